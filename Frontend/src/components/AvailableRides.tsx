@@ -10,7 +10,7 @@ export function AvailableRides() {
   const location = useLocation();
   const searchData = location.state?.searchData;
   const selectedFilters = location.state?.filters || [];
-  const [expandedRide, setExpandedRide] = useState<number | null>(null);
+  const [expandedRide, setExpandedRide] = useState<string | null>(null);
   const [rides, setRides] = useState<any[]>([]);
   const [loading, setLoading] = useState(true);
 
@@ -63,8 +63,11 @@ export function AvailableRides() {
     }
   };
 
-  const toggleExpanded = (rideId: number) => {
-    setExpandedRide(expandedRide === rideId ? null : rideId);
+  // Recurring rides nobody has booked yet have no id, only their template and date
+  const rideKey = (ride: any) => ride.id != null ? String(ride.id) : `recurring-${ride.templateId}-${ride.rideDate}`;
+
+  const toggleExpanded = (key: string) => {
+    setExpandedRide(expandedRide === key ? null : key);
   };
 
   const calculateTotalFare = (farePerKm: number, distance: number) => {
@@ -157,13 +160,13 @@ export function AvailableRides() {
           <div className="space-y-4">
             {rides.map((ride) => (
               <div
-                key={ride.id}
+                key={rideKey(ride)}
                 className="bg-white rounded-2xl shadow-md hover:shadow-xl transition-all overflow-hidden"
               >
                 {/* Collapsed View */}
                 <button
                   type="button"
-                  onClick={() => toggleExpanded(ride.id)}
+                  onClick={() => toggleExpanded(rideKey(ride))}
                   className="w-full p-6 text-left"
                 >
                   <div className="flex items-start justify-between gap-4">
@@ -192,7 +195,7 @@ export function AvailableRides() {
                     </div>
 
                     <div className="flex items-center gap-2">
-                      {expandedRide === ride.id ? (
+                      {expandedRide === rideKey(ride) ? (
                         <ChevronUp size={24} style={{ color: '#EF8F31' }} />
                       ) : (
                         <ChevronDown size={24} style={{ color: '#EF8F31' }} />
@@ -202,7 +205,7 @@ export function AvailableRides() {
                 </button>
 
                 {/* Expanded View */}
-                {expandedRide === ride.id && (
+                {expandedRide === rideKey(ride) && (
                   <div 
                     className="px-6 pb-6 border-t-2 pt-4 space-y-4"
                     style={{ borderColor: '#F9C05E' }}
@@ -279,7 +282,7 @@ export function AvailableRides() {
                     <div className="flex justify-center pt-4">
                       <button
                         type="button"
-                        onClick={() => navigate(`/passenger/booking/${ride.id}`, { state: { ride } })}
+                        onClick={() => navigate(`/passenger/booking/${rideKey(ride)}`, { state: { ride } })}
                         className="w-full py-3 rounded-xl transition-all duration-300 hover:opacity-90"
                         style={{
                           backgroundColor: '#3D5A5D',
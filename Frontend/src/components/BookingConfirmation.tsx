@@ -160,7 +160,9 @@ export function BookingConfirmation() {
       
       // Final validation before sending
       const bookingData = {
-        rideId: ride.id,
+        rideId: ride.id ?? undefined,
+        templateId: ride.templateId ?? undefined,
+        rideDate: ride.rideDate,
         seatsBooked: parseInt(formData.seats),
         pickupLocation: formData.pickup.trim(),
         dropLocation: formData.drop.trim(),
@@ -1,7 +1,9 @@
 import api from './apiService';
 
 export interface CreateBookingData {
-  rideId: number;
+  rideId?: number; // absent for a recurring ride not booked yet, which is sent as templateId + rideDate
+  templateId?: number;
+  rideDate?: string;
   seatsBooked: number;
   pickupLocation: string;
   dropLocation: string;
@@ -17,7 +19,9 @@ export const bookingService = {
   createBooking: async (data: CreateBookingData) => {
     // Ensure all numeric fields are valid numbers, not NaN or Infinity
     const sanitizedData = {
-      rideId: Number(data.rideId),
+      rideId: data.rideId != null ? Number(data.rideId) : undefined,
+      templateId: data.templateId != null ? Number(data.templateId) : undefined,
+      rideDate: data.rideDate,
       seatsBooked: Number(data.seatsBooked),
       pickupLocation: String(data.pickupLocation).trim(),
       dropLocation: String(data.dropLocation).trim(),
@@ -30,7 +34,9 @@ export const bookingService = {
     };
 
     // Validate all required fields are present and valid
-    if (!sanitizedData.rideId || isNaN(sanitizedData.rideId)) {
+    const validRideId = sanitizedData.rideId != null && !isNaN(sanitizedData.rideId);
+    const validTemplate = sanitizedData.templateId != null && !isNaN(sanitizedData.templateId) && !!sanitizedData.rideDate;
+    if (!validRideId && !validTemplate) {
       throw new Error('Invalid ride ID');
     }
     if (!sanitizedData.seatsBooked || isNaN(sanitizedData.seatsBooked) || sanitizedData.seatsBooked < 1) {
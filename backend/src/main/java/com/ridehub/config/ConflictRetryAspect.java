@@ -0,0 +1,137 @@
+package com.ridehub.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retries {@link RetryOnConflict} methods that fail with an optimistic-lock conflict
+ * Runs ahead of the transaction interceptor; calls inside a running transaction are not retried
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@Slf4j
+public class ConflictRetryAspect {
+
+    private static final long MAX_BACKOFF_MS = 500;
+
+    private final Map<String, MethodStats> statsByMethod = new ConcurrentHashMap<>();
+
+    /**
+     * The annotation is looked up, binding it would need ExposeInvocationInterceptor to run first
+     */
+    @Around("@annotation(com.ridehub.config.RetryOnConflict)")
+    public Object retry(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        RetryOnConflict retryOnConflict = AnnotationUtils.findAnnotation(
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), RetryOnConflict.class);
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        MethodStats stats = statsByMethod.computeIfAbsent(method, m -> new MethodStats());
+        stats.calls.increment();
+
+        int maxAttempts = Math.max(1, retryOnConflict.maxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Object result = joinPoint.proceed();
+                if (attempt > 1) {
+                    stats.recovered.increment();
+                }
+                return result;
+            } catch (OptimisticLockingFailureException e) {
+                stats.conflicts.increment();
+                if (attempt == 1) {
+                    stats.conflictedCalls.increment();
+                }
+                if (attempt >= maxAttempts) {
+                    stats.exhausted.increment();
+                    log.warn("{} still conflicting after {} attempts: {}", method, attempt, e.getMessage());
+                    throw e;
+                }
+                stats.retries.increment();
+                log.debug("{} hit an optimistic-lock conflict (attempt {}/{}), retrying",
+                        method, attempt, maxAttempts);
+                backoff(retryOnConflict.backoffMs(), attempt);
+            }
+        }
+    }
+
+    /**
+     * Full jitter: sleep a random time up to backoffMs * 2^(attempt-1), capped
+     */
+    private void backoff(long backoffMs, int attempt) throws InterruptedException {
+        if (backoffMs <= 0) {
+            return;
+        }
+        long bound = Math.min(MAX_BACKOFF_MS, backoffMs << Math.min(attempt - 1, 16));
+        Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+    }
+
+    public Map<String, Object> getStats() {
+        long calls = 0, conflictedCalls = 0, conflicts = 0, retries = 0, recovered = 0, exhausted = 0;
+        Map<String, Object> methods = new TreeMap<>();
+        for (Map.Entry<String, MethodStats> entry : statsByMethod.entrySet()) {
+            MethodStats s = entry.getValue();
+            calls += s.calls.sum();
+            conflictedCalls += s.conflictedCalls.sum();
+            conflicts += s.conflicts.sum();
+            retries += s.retries.sum();
+            recovered += s.recovered.sum();
+            exhausted += s.exhausted.sum();
+            methods.put(entry.getKey(), s.toMap());
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls);
+        stats.put("conflictedCalls", conflictedCalls);
+        stats.put("conflicts", conflicts);
+        stats.put("retries", retries);
+        stats.put("recovered", recovered);
+        stats.put("exhausted", exhausted);
+        stats.put("conflictRate", calls == 0 ? 0.0 : (double) conflictedCalls / calls);
+        stats.put("methods", methods);
+        return stats;
+    }
+
+    private static final class MethodStats {
+        final LongAdder calls = new LongAdder();
+        final LongAdder conflictedCalls = new LongAdder();
+        final LongAdder conflicts = new LongAdder();
+        final LongAdder retries = new LongAdder();
+        final LongAdder recovered = new LongAdder();
+        final LongAdder exhausted = new LongAdder();
+
+        Map<String, Object> toMap() {
+            long callCount = calls.sum();
+            long conflictedCount = conflictedCalls.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("calls", callCount);
+            map.put("conflictedCalls", conflictedCount);
+            map.put("conflicts", conflicts.sum());
+            map.put("retries", retries.sum());
+            map.put("recovered", recovered.sum());
+            map.put("exhausted", exhausted.sum());
+            map.put("conflictRate", callCount == 0 ? 0.0 : (double) conflictedCount / callCount);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ridehub.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Re-run a transactional method in a fresh transaction when it loses an optimistic-lock race
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /** Total attempts, including the first one */
+    int maxAttempts() default 4;
+
+    /** Upper bound of the first backoff; doubles per retry and is fully jittered */
+    long backoffMs() default 20;
+}
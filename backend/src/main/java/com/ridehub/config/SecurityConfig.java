@@ -44,6 +44,7 @@ public class SecurityConfig {
                         .requestMatchers("/test/**").permitAll()  // Allow test endpoints
                         .requestMatchers("/rides/search/**").permitAll()
                         .requestMatchers("/rides/available/**").permitAll()
+                        .requestMatchers("/rides/places/suggest").permitAll()
                         .requestMatchers("/reviews/driver/*/rating").permitAll()  // Allow public access to driver ratings
                         .requestMatchers("/reviews/driver/*").permitAll()  // Allow public access to driver reviews
                         .requestMatchers("/rides/my-rides").authenticated()  // Require authentication for my-rides
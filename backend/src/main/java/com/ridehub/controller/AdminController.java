@@ -3,7 +3,9 @@ package com.ridehub.controller;
 import com.ridehub.dto.*;
 import com.ridehub.model.*;
 import com.ridehub.repository.*;
+import com.ridehub.service.RideChangedEvent;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +24,7 @@ public class AdminController {
     private final BookingRepository bookingRepository;
     private final PaymentRepository paymentRepository;
     private final ReviewRepository reviewRepository;
+    private final ApplicationEventPublisher eventPublisher;
     
     // Get all users
     @GetMapping("/users")
@@ -154,6 +157,7 @@ public class AdminController {
             List<Ride> rides = rideRepository.findByDriverId(userId);
             for (Ride ride : rides) {
                 bookingRepository.deleteByRideId(ride.getId());
+                eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.DELETED));
             }
             rideRepository.deleteByDriverId(userId);
         }
@@ -0,0 +1,60 @@
+package com.ridehub.controller;
+
+import com.ridehub.config.ConflictRetryAspect;
+import com.ridehub.service.BookableRideSnapshot;
+import com.ridehub.service.FareQuoteService;
+import com.ridehub.service.RideSearchCache;
+import com.ridehub.service.SearchCoalescer;
+import com.ridehub.service.SearchMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * Runtime counters for the search and write paths (admin only, see SecurityConfig)
+ */
+@RestController
+@RequestMapping("/admin/metrics")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class MetricsController {
+    
+    private final RideSearchCache rideSearchCache;
+    private final FareQuoteService fareQuoteService;
+    private final SearchMetrics searchMetrics;
+    private final BookableRideSnapshot bookableRideSnapshot;
+    private final SearchCoalescer searchCoalescer;
+    private final ConflictRetryAspect conflictRetryAspect;
+    
+    @GetMapping("/search-cache")
+    public ResponseEntity<Map<String, Object>> getSearchCacheStats() {
+        return ResponseEntity.ok(rideSearchCache.getStats());
+    }
+    
+    @GetMapping("/fare-quotes")
+    public ResponseEntity<Map<String, Object>> getFareQuoteStats() {
+        return ResponseEntity.ok(fareQuoteService.getStats());
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<Map<String, Object>> getSearchStats() {
+        return ResponseEntity.ok(searchMetrics.getStats());
+    }
+    
+    @GetMapping("/ride-snapshot")
+    public ResponseEntity<Map<String, Object>> getRideSnapshotStats() {
+        return ResponseEntity.ok(bookableRideSnapshot.getStats());
+    }
+    
+    @GetMapping("/search-coalescing")
+    public ResponseEntity<Map<String, Object>> getSearchCoalescingStats() {
+        return ResponseEntity.ok(searchCoalescer.getStats());
+    }
+    
+    @GetMapping("/write-conflicts")
+    public ResponseEntity<Map<String, Object>> getWriteConflictStats() {
+        return ResponseEntity.ok(conflictRetryAspect.getStats());
+    }
+}
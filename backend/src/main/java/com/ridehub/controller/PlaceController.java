@@ -0,0 +1,36 @@
+package com.ridehub.controller;
+
+import com.ridehub.dto.ApiResponse;
+import com.ridehub.service.PlaceRegistryService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Admin maintenance of the place registry (admin only, see SecurityConfig)
+ */
+@RestController
+@RequestMapping("/admin/places")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class PlaceController {
+    
+    private final PlaceRegistryService placeRegistryService;
+    
+    /**
+     * Make another spelling resolve to the place for rides created from now on
+     */
+    @PostMapping("/{placeId}/aliases")
+    public ResponseEntity<ApiResponse<Void>> addAlias(@PathVariable Long placeId, @RequestParam String alias) {
+        try {
+            placeRegistryService.addAlias(placeId, alias);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Alias added"));
+        } catch (Exception e) {
+            log.error("Error adding alias '{}' to place {}", alias, placeId, e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.ridehub.controller;
+
+import com.ridehub.dto.ApiResponse;
+import com.ridehub.dto.CreateRecurringRideRequest;
+import com.ridehub.dto.RecurringRideResponse;
+import com.ridehub.service.RecurringRideService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/rides/recurring")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class RecurringRideController {
+    
+    private final RecurringRideService recurringRideService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<RecurringRideResponse>> createRecurringRide(
+            @Valid @RequestBody CreateRecurringRideRequest request) {
+        try {
+            RecurringRideResponse response = recurringRideService.createTemplate(request);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Recurring ride created successfully", response));
+        } catch (Exception e) {
+            log.error("Error creating recurring ride", e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+    
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<RecurringRideResponse>>> getMyRecurringRides() {
+        try {
+            List<RecurringRideResponse> templates = recurringRideService.getMyTemplates();
+            return ResponseEntity.ok(new ApiResponse<>(true, "Recurring rides retrieved successfully", templates));
+        } catch (Exception e) {
+            log.error("Error getting recurring rides", e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+    
+    @DeleteMapping("/{templateId}")
+    public ResponseEntity<ApiResponse<Void>> deactivateRecurringRide(@PathVariable Long templateId) {
+        try {
+            recurringRideService.deactivateTemplate(templateId);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Recurring ride stopped"));
+        } catch (Exception e) {
+            log.error("Error stopping recurring ride {}", templateId, e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+}
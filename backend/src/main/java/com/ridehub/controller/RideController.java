@@ -1,14 +1,24 @@
 package com.ridehub.controller;
 
 import com.ridehub.dto.CreateRideRequest;
+import com.ridehub.dto.FareQuoteResponse;
+import com.ridehub.dto.RideDayResponse;
+import com.ridehub.dto.RideFilter;
+import com.ridehub.dto.RidePageResponse;
 import com.ridehub.dto.RideResponse;
+import com.ridehub.service.FareQuoteService;
+import com.ridehub.service.PlaceSuggestionService;
 import com.ridehub.service.RideService;
+import com.ridehub.service.SearchCoalescer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -19,6 +29,9 @@ import java.util.List;
 public class RideController {
     
     private final RideService rideService;
+    private final PlaceSuggestionService placeSuggestionService;
+    private final FareQuoteService fareQuoteService;
+    private final SearchCoalescer searchCoalescer;
     
     @PostMapping
     public ResponseEntity<RideResponse> createRide(@Valid @RequestBody CreateRideRequest request) {
@@ -49,7 +62,10 @@ public class RideController {
             @RequestParam String date) {
         try {
             log.info("Searching rides: source={}, destination={}, date={}", source, destination, date);
-            List<RideResponse> rides = rideService.searchRides(source, destination, date);
+            // Identical searches running at the same moment share one computation
+            List<RideResponse> rides = searchCoalescer.execute(
+                SearchCoalescer.searchKey(source, destination, date),
+                () -> rideService.searchRides(source, destination, date));
             log.info("Found {} rides", rides.size());
             return ResponseEntity.ok(rides);
         } catch (Exception e) {
@@ -58,6 +74,67 @@ public class RideController {
         }
     }
     
+    /**
+     * Streaming variant of /search: rides are written as NDJSON while they are read
+     */
+    @GetMapping(value = "/search/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSearchRides(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date) {
+        try {
+            LocalDate rideDate = LocalDate.parse(date);
+            log.info("Streaming search: source={}, destination={}, date={}", source, destination, date);
+            StreamingResponseBody body = out -> rideService.streamSearchRides(source, destination, rideDate, out);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+        } catch (Exception e) {
+            log.error("Error in streaming search: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/places/suggest")
+    public ResponseEntity<List<String>> suggestPlaces(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(placeSuggestionService.suggest(prefix, limit));
+    }
+    
+    @GetMapping("/search/nearby")
+    public ResponseEntity<List<RideResponse>> findRidesNearby(
+            @RequestParam Double lat,
+            @RequestParam Double lng,
+            @RequestParam(defaultValue = "5") Double radiusKm,
+            @RequestParam String date,
+            @RequestParam(required = false) String fromTime,
+            @RequestParam(required = false) String toTime) {
+        try {
+            log.info("Nearby search: ({}, {}) within {} km on {} {}-{}", lat, lng, radiusKm, date, fromTime, toTime);
+            List<RideResponse> rides = rideService.findRidesNearby(lat, lng, radiusKm, date, fromTime, toTime);
+            log.info("Found {} nearby rides", rides.size());
+            return ResponseEntity.ok(rides);
+        } catch (Exception e) {
+            log.error("Error in nearby search: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/search/flexible")
+    public ResponseEntity<List<RideDayResponse>> searchRidesFlexible(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date,
+            @RequestParam(defaultValue = "1") int flexDays) {
+        try {
+            log.info("Flexible search: source={}, destination={}, date={} +/- {} days", source, destination, date, flexDays);
+            List<RideDayResponse> days = rideService.searchRidesFlexible(source, destination, date, flexDays);
+            return ResponseEntity.ok(days);
+        } catch (Exception e) {
+            log.error("Error in flexible search: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/search/smart-match")
     public ResponseEntity<List<RideResponse>> searchRidesWithMatching(
             @RequestParam String source,
@@ -66,11 +143,20 @@ public class RideController {
             @RequestParam Double pickupLat,
             @RequestParam Double pickupLng,
             @RequestParam Double dropLat,
-            @RequestParam Double dropLng) {
+            @RequestParam Double dropLng,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String time) {
         try {
             log.info("Smart search: source={}, destination={}, date={}", source, destination, date);
-            List<RideResponse> rides = rideService.searchRidesWithRouteMatching(
-                source, destination, date, pickupLat, pickupLng, dropLat, dropLng);
+            // With a limit, return only the best-ranked rides instead of every match
+            List<RideResponse> rides = searchCoalescer.execute(
+                SearchCoalescer.smartMatchKey(
+                    source, destination, date, pickupLat, pickupLng, dropLat, dropLng, limit, time),
+                () -> limit != null
+                    ? rideService.searchRidesRanked(
+                        source, destination, date, pickupLat, pickupLng, dropLat, dropLng, time, limit)
+                    : rideService.searchRidesWithRouteMatching(
+                        source, destination, date, pickupLat, pickupLng, dropLat, dropLng));
             log.info("Found {} matching rides", rides.size());
             return ResponseEntity.ok(rides);
         } catch (Exception e) {
@@ -91,6 +177,30 @@ public class RideController {
         }
     }
     
+    /**
+     * Streaming variant of /available: rides are written as NDJSON while they are read
+     */
+    @GetMapping(value = "/available/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAvailableRides() {
+        StreamingResponseBody body = rideService::streamAvailableRides;
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    @GetMapping("/available/filter")
+    public ResponseEntity<RidePageResponse> filterAvailableRides(
+            @ModelAttribute RideFilter filter,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            RidePageResponse page = rideService.filterAvailableRides(filter, cursor, size);
+            log.info("Found {} filtered rides (hasMore={})", page.getRides().size(), page.isHasMore());
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            log.error("Error filtering rides: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/available/gender/{gender}")
     public ResponseEntity<List<RideResponse>> getAvailableRidesByGender(@PathVariable String gender) {
         try {
@@ -103,6 +213,50 @@ public class RideController {
         }
     }
     
+    @GetMapping("/search/page")
+    public ResponseEntity<RidePageResponse> searchRidesPage(
+            @RequestParam String source,
+            @RequestParam String destination,
+            @RequestParam String date,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            RidePageResponse page = rideService.searchRidesPage(source, destination, date, cursor, size);
+            log.info("Found {} rides (hasMore={})", page.getRides().size(), page.isHasMore());
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            log.error("Error searching rides page: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/available/page")
+    public ResponseEntity<RidePageResponse> getAvailableRidesPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            RidePageResponse page = rideService.getAvailableRidesPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            log.error("Error fetching available rides page: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/available/gender/{gender}/page")
+    public ResponseEntity<RidePageResponse> getAvailableRidesByGenderPage(
+            @PathVariable String gender,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size) {
+        try {
+            RidePageResponse page = rideService.getAvailableRidesByGenderPage(gender, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            log.error("Error fetching rides page by gender: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<RideResponse> getRideById(@PathVariable Long id) {
         try {
@@ -114,6 +268,22 @@ public class RideController {
         }
     }
     
+    @GetMapping("/{id}/quote")
+    public ResponseEntity<FareQuoteResponse> getFareQuote(
+            @PathVariable Long id,
+            @RequestParam Double pickupLat,
+            @RequestParam Double pickupLng,
+            @RequestParam Double dropLat,
+            @RequestParam Double dropLng,
+            @RequestParam(defaultValue = "1") int seats) {
+        try {
+            return ResponseEntity.ok(fareQuoteService.quote(id, pickupLat, pickupLng, dropLat, dropLng, seats));
+        } catch (Exception e) {
+            log.error("Error quoting fare for ride {}: {}", id, e.getMessage(), e);
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
     @DeleteMapping("/{id}")
     public ResponseEntity<?> cancelRide(@PathVariable Long id) {
         try {
@@ -0,0 +1,60 @@
+package com.ridehub.controller;
+
+import com.ridehub.dto.ApiResponse;
+import com.ridehub.dto.SavedSearchRequest;
+import com.ridehub.dto.SavedSearchResponse;
+import com.ridehub.service.SavedSearchService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/saved-searches")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class SavedSearchController {
+    
+    private final SavedSearchService savedSearchService;
+    
+    @PostMapping
+    public ResponseEntity<ApiResponse<SavedSearchResponse>> saveSearch(
+            @Valid @RequestBody SavedSearchRequest request) {
+        try {
+            SavedSearchResponse response = savedSearchService.saveSearch(request);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Search saved successfully", response));
+        } catch (Exception e) {
+            log.error("Error saving search", e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+    
+    @GetMapping
+    public ResponseEntity<ApiResponse<List<SavedSearchResponse>>> getMySavedSearches() {
+        try {
+            List<SavedSearchResponse> searches = savedSearchService.getMySavedSearches();
+            return ResponseEntity.ok(new ApiResponse<>(true, "Saved searches retrieved successfully", searches));
+        } catch (Exception e) {
+            log.error("Error getting saved searches", e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+    
+    @DeleteMapping("/{searchId}")
+    public ResponseEntity<ApiResponse<Void>> deleteSavedSearch(@PathVariable Long searchId) {
+        try {
+            savedSearchService.deleteSavedSearch(searchId);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Saved search deleted"));
+        } catch (Exception e) {
+            log.error("Error deleting saved search {}", searchId, e);
+            return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+}
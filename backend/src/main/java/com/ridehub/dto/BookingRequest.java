@@ -14,9 +14,13 @@ import lombok.NoArgsConstructor;
 @Builder
 public class BookingRequest {
     
-    @NotNull(message = "Ride ID is required")
+    // A recurring ride that has no row yet is booked by templateId and rideDate instead
     private Long rideId;
     
+    private Long templateId;
+    
+    private String rideDate;
+    
     @NotNull(message = "Seats booked is required")
     @Min(value = 1, message = "At least 1 seat must be booked")
     private Integer seatsBooked;
@@ -0,0 +1,74 @@
+package com.ridehub.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CreateRecurringRideRequest {
+    
+    @NotBlank(message = "Source is required")
+    private String source;
+    
+    @NotBlank(message = "Destination is required")
+    private String destination;
+    
+    @NotBlank(message = "Ride time is required")
+    private String rideTime;
+    
+    // Weekday names, e.g. ["MONDAY", "TUESDAY"]
+    @NotEmpty(message = "At least one day of the week is required")
+    private List<String> daysOfWeek;
+    
+    @NotBlank(message = "Start date is required")
+    private String startDate;
+    
+    private String endDate;
+    
+    @NotNull(message = "Total seats is required")
+    @Min(value = 1, message = "Total seats must be at least 1")
+    private Integer totalSeats;
+    
+    @NotNull(message = "Fare per km is required")
+    @Min(value = 0, message = "Fare per km must be positive")
+    private Double farePerKm;
+    
+    private Double distance;
+    
+    @NotNull(message = "Source latitude is required")
+    @DecimalMin(value = "-90.0", message = "Source latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Source latitude must be between -90 and 90")
+    private Double sourceLat;
+    
+    @NotNull(message = "Source longitude is required")
+    @DecimalMin(value = "-180.0", message = "Source longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Source longitude must be between -180 and 180")
+    private Double sourceLng;
+    
+    @NotNull(message = "Destination latitude is required")
+    @DecimalMin(value = "-90.0", message = "Destination latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Destination latitude must be between -90 and 90")
+    private Double destLat;
+    
+    @NotNull(message = "Destination longitude is required")
+    @DecimalMin(value = "-180.0", message = "Destination longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Destination longitude must be between -180 and 180")
+    private Double destLng;
+    
+    @Size(max = 100, message = "A route can have at most 100 waypoints")
+    private List<@Valid @NotNull RouteWaypoint> waypoints;
+}
@@ -1,13 +1,19 @@
 package com.ridehub.dto;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,14 +43,26 @@ public class CreateRideRequest {
     private Double distance;
     
     @NotNull(message = "Source latitude is required")
+    @DecimalMin(value = "-90.0", message = "Source latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Source latitude must be between -90 and 90")
     private Double sourceLat;
     
     @NotNull(message = "Source longitude is required")
+    @DecimalMin(value = "-180.0", message = "Source longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Source longitude must be between -180 and 180")
     private Double sourceLng;
     
     @NotNull(message = "Destination latitude is required")
+    @DecimalMin(value = "-90.0", message = "Destination latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Destination latitude must be between -90 and 90")
     private Double destLat;
     
     @NotNull(message = "Destination longitude is required")
+    @DecimalMin(value = "-180.0", message = "Destination longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Destination longitude must be between -180 and 180")
     private Double destLng;
+    
+    // Optional intermediate points of the actual road route, in driving order
+    @Size(max = 100, message = "A route can have at most 100 waypoints")
+    private List<@Valid @NotNull RouteWaypoint> waypoints;
 }
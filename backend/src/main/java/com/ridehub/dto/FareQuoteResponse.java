@@ -0,0 +1,21 @@
+package com.ridehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FareQuoteResponse {
+    
+    private Long rideId;
+    private Double segmentDistance;
+    private Double segmentFare;
+    private Double farePerKm;
+    private Double totalTripCost;
+    private Integer seats;
+    private Double maximumPrice;
+}
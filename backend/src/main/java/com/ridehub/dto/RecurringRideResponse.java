@@ -0,0 +1,27 @@
+package com.ridehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecurringRideResponse {
+    
+    private Long id;
+    private String source;
+    private String destination;
+    private String rideTime;
+    private List<String> daysOfWeek;
+    private String startDate;
+    private String endDate;
+    private Integer totalSeats;
+    private Double farePerKm;
+    private Double distance;
+    private Boolean active;
+}
@@ -0,0 +1,18 @@
+package com.ridehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideDayResponse {
+    
+    private String date;
+    private List<RideResponse> rides;
+}
@@ -0,0 +1,25 @@
+package com.ridehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Optional filters for listing available rides; null fields do not filter
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideFilter {
+    
+    private String gender;          // driver gender
+    private Integer minSeats;       // minimum available seats
+    private Double maxFarePerKm;
+    private String date;            // yyyy-MM-dd, otherwise any upcoming date
+    private String fromTime;        // HH:mm, departure window start
+    private String toTime;          // HH:mm, departure window end
+    private Double minRating;       // minimum average driver rating
+    private String vehicle;         // part of the driver's car model
+}
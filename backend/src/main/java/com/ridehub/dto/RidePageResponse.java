@@ -0,0 +1,19 @@
+package com.ridehub.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RidePageResponse {
+    
+    private List<RideResponse> rides;
+    private String nextCursor; // Pass back as ?cursor= to get the next page, null on the last page
+    private boolean hasMore;
+}
@@ -11,7 +11,8 @@ import lombok.NoArgsConstructor;
 @Builder
 public class RideResponse {
     
-    private Long id;
+    private Long id; // null for a recurring ride not booked yet, identified by templateId and rideDate
+    private Long templateId;
     private String source;
     private String destination;
     private String rideDate;
@@ -0,0 +1,26 @@
+package com.ridehub.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RouteWaypoint {
+
+    @NotNull(message = "Waypoint latitude is required")
+    @DecimalMin(value = "-90.0", message = "Waypoint latitude must be between -90 and 90")
+    @DecimalMax(value = "90.0", message = "Waypoint latitude must be between -90 and 90")
+    private Double lat;
+
+    @NotNull(message = "Waypoint longitude is required")
+    @DecimalMin(value = "-180.0", message = "Waypoint longitude must be between -180 and 180")
+    @DecimalMax(value = "180.0", message = "Waypoint longitude must be between -180 and 180")
+    private Double lng;
+}
@@ -0,0 +1,36 @@
+package com.ridehub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SavedSearchRequest {
+    
+    @NotBlank(message = "Source is required")
+    private String source;
+    
+    @NotBlank(message = "Destination is required")
+    private String destination;
+    
+    @NotBlank(message = "Date is required")
+    private String date;
+    
+    @NotNull(message = "Pickup latitude is required")
+    private Double pickupLat;
+    
+    @NotNull(message = "Pickup longitude is required")
+    private Double pickupLng;
+    
+    @NotNull(message = "Drop latitude is required")
+    private Double dropLat;
+    
+    @NotNull(message = "Drop longitude is required")
+    private Double dropLng;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -44,6 +45,11 @@ public class Booking {
     
     private Double segmentDistance;
     
+    // Canonical places of pickup and drop, null when the typed name is not a registered place
+    private Long pickupPlaceId;
+    
+    private Long dropPlaceId;
+    
     private Double pickupLat;
     
     private Double pickupLng;
@@ -76,6 +82,10 @@ public class Booking {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+    
     private LocalDateTime paymentDueAt;
     
     private LocalDateTime paidAt;
@@ -5,6 +5,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -41,4 +42,8 @@ public class HubWallet {
     
     @UpdateTimestamp
     private LocalDateTime updatedAt;
+    
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 }
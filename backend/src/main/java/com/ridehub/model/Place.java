@@ -0,0 +1,44 @@
+package com.ridehub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Canonical place in the gazetteer; typed names map to it through {@link PlaceAlias} rows
+ */
+@Entity
+@Table(name = "places", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_places_normalized_name", columnNames = {"normalizedName"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Place {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    // Display name as first entered
+    @Column(nullable = false)
+    private String name;
+    
+    @Column(nullable = false)
+    private String normalizedName;
+    
+    // Coordinates of the first ride that used the place, if known
+    private Double lat;
+    
+    private Double lng;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
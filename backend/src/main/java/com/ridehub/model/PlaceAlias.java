@@ -0,0 +1,33 @@
+package com.ridehub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A normalized name that resolves to a place - every place has at least its own name as an alias
+ */
+@Entity
+@Table(name = "place_aliases", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_place_aliases_alias", columnNames = {"alias"})
+}, indexes = {
+    @Index(name = "idx_place_aliases_place", columnList = "placeId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PlaceAlias {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long placeId;
+    
+    @Column(nullable = false)
+    private String alias;
+}
@@ -0,0 +1,100 @@
+package com.ridehub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * A ride a driver repeats on fixed weekdays
+ * Concrete Ride rows (linked by Ride.templateId) are only created when a date is first booked.
+ */
+@Entity
+@Table(name = "recurring_ride_templates")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecurringRideTemplate {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "driver_id", nullable = false)
+    @JsonIgnoreProperties({"password", "bookings", "rides", "payments", "hibernateLazyInitializer", "handler"})
+    private User driver;
+    
+    @Column(nullable = false)
+    private String source;
+    
+    @Column(nullable = false)
+    private String destination;
+    
+    @Column(nullable = false)
+    private LocalTime rideTime;
+    
+    // Bit (dayOfWeek.getValue() - 1) is set for every weekday the ride runs
+    @Column(nullable = false)
+    private Integer daysOfWeek;
+    
+    @Column(nullable = false)
+    private LocalDate startDate;
+    
+    private LocalDate endDate; // inclusive, null = no end
+    
+    @Column(nullable = false)
+    private Integer totalSeats;
+    
+    @Column(nullable = false)
+    private Double farePerKm;
+    
+    private Double distance;
+    
+    @Column(nullable = false)
+    private Double sourceLat;
+    
+    @Column(nullable = false)
+    private Double sourceLng;
+    
+    @Column(nullable = false)
+    private Double destLat;
+    
+    @Column(nullable = false)
+    private Double destLng;
+    
+    @JsonIgnore
+    @Column(length = 16384)
+    private byte[] routePolyline;
+    
+    @Column(nullable = false)
+    private Boolean active;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    public static int dayBit(DayOfWeek day) {
+        return 1 << (day.getValue() - 1);
+    }
+    
+    /**
+     * Whether the template has a ride on the given date
+     */
+    public boolean runsOn(LocalDate date) {
+        return Boolean.TRUE.equals(active)
+                && !date.isBefore(startDate)
+                && (endDate == null || !date.isAfter(endDate))
+                && (daysOfWeek & dayBit(date.getDayOfWeek())) != 0;
+    }
+}
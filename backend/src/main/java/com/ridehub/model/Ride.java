@@ -1,11 +1,13 @@
 package com.ridehub.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -14,7 +16,14 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Entity
-@Table(name = "rides")
+@Table(name = "rides", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_rides_template_date", columnNames = {"templateId", "rideDate"})
+}, indexes = {
+    @Index(name = "idx_rides_corridor", columnList = "status, rideDate, corridorMinLat, corridorMaxLat, corridorMinLng, corridorMaxLng"),
+    @Index(name = "idx_rides_status_date_time", columnList = "status, rideDate, rideTime"),
+    @Index(name = "idx_rides_source_geohash", columnList = "status, rideDate, sourceGeohash"),
+    @Index(name = "idx_rides_places", columnList = "sourcePlaceId, destinationPlaceId, rideDate, status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -65,6 +74,32 @@ public class Ride {
     @Column(nullable = false)
     private Double destLng;
     
+    // Canonical places of source and destination (see PlaceRegistryService)
+    private Long sourcePlaceId;
+    
+    private Long destinationPlaceId;
+    
+    // RecurringRideTemplate this ride was materialized from, null for one-off rides
+    private Long templateId;
+    
+    // Geohash of the source point (Geohash.MAX_PRECISION characters) for radius lookups
+    @Column(length = 12)
+    private String sourceGeohash;
+    
+    // Full route (source, waypoints..., destination) encoded with PolylineCodec; null for straight routes
+    @JsonIgnore
+    @Column(length = 16384)
+    private byte[] routePolyline;
+    
+    // Bounding box of the route, padded by the route matching tolerance
+    private Double corridorMinLat;
+    
+    private Double corridorMaxLat;
+    
+    private Double corridorMinLng;
+    
+    private Double corridorMaxLng;
+    
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
     private RideStatus status = RideStatus.AVAILABLE;
@@ -84,6 +119,10 @@ public class Ride {
     @UpdateTimestamp
     private LocalDateTime updatedAt;
     
+    @Version
+    @ColumnDefault("0")
+    private Long version;
+    
     public enum RideStatus {
         AVAILABLE, FULL, COMPLETED, CANCELLED
     }
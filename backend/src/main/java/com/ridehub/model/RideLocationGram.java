@@ -0,0 +1,51 @@
+package com.ridehub.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * One trigram of a ride's normalized source or destination
+ * Lets location search find rides whose place name contains the query (or is contained in it)
+ * through an index lookup instead of a double-sided LIKE scan.
+ */
+@Entity
+@Table(name = "ride_location_grams", indexes = {
+    @Index(name = "idx_ride_location_grams_lookup", columnList = "endpoint, rideDate, gram, rideId")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideLocationGram {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false)
+    private Long rideId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Endpoint endpoint;
+    
+    // Denormalized from the ride so lookups stay within one day's rows
+    @Column(nullable = false)
+    private LocalDate rideDate;
+    
+    @Column(nullable = false, length = 8)
+    private String gram;
+    
+    // Number of distinct grams stored for this ride endpoint
+    @Column(nullable = false)
+    private Integer gramCount;
+    
+    public enum Endpoint {
+        SOURCE, DESTINATION
+    }
+}
@@ -0,0 +1,58 @@
+package com.ridehub.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "saved_searches", indexes = {
+    @Index(name = "idx_saved_searches_date", columnList = "searchDate"),
+    @Index(name = "idx_saved_searches_passenger", columnList = "passenger_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SavedSearch {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "passenger_id", nullable = false)
+    @JsonIgnoreProperties({"password", "hibernateLazyInitializer", "handler"})
+    private User passenger;
+    
+    @Column(nullable = false)
+    private String source;
+    
+    @Column(nullable = false)
+    private String destination;
+    
+    @Column(nullable = false)
+    private LocalDate searchDate;
+    
+    @Column(nullable = false)
+    private Double pickupLat;
+    
+    @Column(nullable = false)
+    private Double pickupLng;
+    
+    @Column(nullable = false)
+    private Double dropLat;
+    
+    @Column(nullable = false)
+    private Double dropLng;
+    
+    @CreationTimestamp
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.PlaceAlias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PlaceAliasRepository extends JpaRepository<PlaceAlias, Long> {
+    
+    Optional<PlaceAlias> findByAlias(String alias);
+    
+    // Aliases added after the given id, for the incremental reload of the in-memory alias map
+    List<PlaceAlias> findByIdGreaterThanOrderByIdAsc(Long id);
+    
+    @Modifying
+    @Query(value = "INSERT INTO place_aliases (place_id, alias) VALUES (:placeId, :alias) " +
+                   "ON CONFLICT (alias) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("placeId") Long placeId, @Param("alias") String alias);
+}
@@ -0,0 +1,27 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.Place;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PlaceRepository extends JpaRepository<Place, Long> {
+    
+    // Insert unless a place with the normalized name exists; a concurrent insert waits for the other transaction
+    @Modifying
+    @Query(value = "INSERT INTO places (name, normalized_name, lat, lng, created_at) " +
+                   "VALUES (:name, :normalizedName, CAST(:lat AS double precision), CAST(:lng AS double precision), now()) " +
+                   "ON CONFLICT (normalized_name) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name,
+                       @Param("normalizedName") String normalizedName,
+                       @Param("lat") Double lat,
+                       @Param("lng") Double lng);
+    
+    @Query("SELECT p.id FROM Place p WHERE p.normalizedName = :normalizedName")
+    Optional<Long> findIdByNormalizedName(@Param("normalizedName") String normalizedName);
+}
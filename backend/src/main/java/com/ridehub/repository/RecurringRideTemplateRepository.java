@@ -0,0 +1,21 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.RecurringRideTemplate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface RecurringRideTemplateRepository extends JpaRepository<RecurringRideTemplate, Long> {
+    
+    // Active templates whose date range covers the date; the weekday is checked with runsOn
+    @Query("SELECT t FROM RecurringRideTemplate t JOIN FETCH t.driver WHERE t.active = true " +
+           "AND t.startDate <= :date AND (t.endDate IS NULL OR t.endDate >= :date)")
+    List<RecurringRideTemplate> findActiveOn(@Param("date") LocalDate date);
+    
+    List<RecurringRideTemplate> findByDriverIdOrderByCreatedAtDesc(Long driverId);
+}
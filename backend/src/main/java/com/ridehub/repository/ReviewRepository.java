@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -36,6 +37,10 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     @Query("SELECT COUNT(r) FROM Review r WHERE r.driver.id = :driverId")
     Long countReviewsForDriver(@Param("driverId") Long driverId);
     
+    // Average rating and review count per driver, for mapping a page of rides in one query
+    @Query("SELECT r.driver.id, AVG(r.rating), COUNT(r) FROM Review r WHERE r.driver.id IN :driverIds GROUP BY r.driver.id")
+    List<Object[]> getRatingSummariesForDrivers(@Param("driverIds") Collection<Long> driverIds);
+    
     // Get driver rating statistics
     @Query("SELECT r.rating, COUNT(r) FROM Review r WHERE r.driver.id = :driverId GROUP BY r.rating ORDER BY r.rating DESC")
     List<Object[]> getRatingDistributionForDriver(@Param("driverId") Long driverId);
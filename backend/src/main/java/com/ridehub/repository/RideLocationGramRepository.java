@@ -0,0 +1,11 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.RideLocationGram;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface RideLocationGramRepository extends JpaRepository<RideLocationGram, Long> {
+    
+    boolean existsByRideId(Long rideId);
+}
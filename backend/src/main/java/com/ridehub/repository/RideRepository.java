@@ -2,16 +2,26 @@ package com.ridehub.repository;
 
 import com.ridehub.model.Ride;
 import com.ridehub.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface RideRepository extends JpaRepository<Ride, Long> {
+public interface RideRepository extends JpaRepository<Ride, Long>, JpaSpecificationExecutor<Ride> {
     
     List<Ride> findByDriver(User driver);
     
@@ -26,15 +36,296 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
                                    @Param("destination") String destination, 
                                    @Param("date") LocalDate date);
     
+    /**
+     * Candidate rides for a location search, looked up through ride_location_grams
+     * An endpoint qualifies when all of the ride's grams occur in the query (its name may lie inside the query)
+     * or it has every trigram of the query (the query may lie inside its name).
+     * Callers confirm candidates with LocationGrams.eitherContains.
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.rideDate = :date AND r.status = 'AVAILABLE' " +
+           "AND r.availableSeats > 0 " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'SOURCE' " +
+           "AND g.rideDate = :date AND g.gram IN :sourceGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :sourceTrigrams) " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'DESTINATION' " +
+           "AND g.rideDate = :date AND g.gram IN :destinationGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :destinationTrigrams) " +
+           "ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByLocationGrams(@Param("date") LocalDate date,
+                                                  @Param("sourceGrams") Collection<String> sourceGrams,
+                                                  @Param("sourceTrigrams") Long sourceTrigrams,
+                                                  @Param("destinationGrams") Collection<String> destinationGrams,
+                                                  @Param("destinationTrigrams") Long destinationTrigrams);
+    
+    /**
+     * Bookable rides from the date on as plain columns - id, rideDate, sourceLat, sourceLng, destLat,
+     * destLng, routePolyline, rideTime, availableSeats, farePerKm - for the in-memory ride snapshot
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1024"))
+    @Query("SELECT r.id, r.rideDate, r.sourceLat, r.sourceLng, r.destLat, r.destLng, r.routePolyline, " +
+           "r.rideTime, r.availableSeats, r.farePerKm " +
+           "FROM Ride r WHERE r.status = 'AVAILABLE' AND r.availableSeats > 0 AND r.rideDate >= :fromDate " +
+           "ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Object[]> findBookableRideColumns(@Param("fromDate") LocalDate fromDate);
+    
+    /**
+     * Streaming variants of findAvailableRides, findAvailableRidesByLocationGrams and findAllAvailableRides
+     * The caller must consume and close the stream inside a transaction.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+           "(LOWER(r.source) LIKE LOWER(CONCAT('%', :source, '%')) OR LOWER(:source) LIKE LOWER(CONCAT('%', r.source, '%'))) AND " +
+           "(LOWER(r.destination) LIKE LOWER(CONCAT('%', :destination, '%')) OR LOWER(:destination) LIKE LOWER(CONCAT('%', r.destination, '%'))) AND " +
+           "r.rideDate = :date AND r.status = 'AVAILABLE' AND r.availableSeats > 0 " +
+           "ORDER BY r.rideTime ASC, r.id ASC")
+    Stream<Ride> streamAvailableRides(@Param("source") String source,
+                                      @Param("destination") String destination,
+                                      @Param("date") LocalDate date);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.rideDate = :date AND r.status = 'AVAILABLE' " +
+           "AND r.availableSeats > 0 " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'SOURCE' " +
+           "AND g.rideDate = :date AND g.gram IN :sourceGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :sourceTrigrams) " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'DESTINATION' " +
+           "AND g.rideDate = :date AND g.gram IN :destinationGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :destinationTrigrams) " +
+           "ORDER BY r.rideTime ASC, r.id ASC")
+    Stream<Ride> streamAvailableRidesByLocationGrams(@Param("date") LocalDate date,
+                                                     @Param("sourceGrams") Collection<String> sourceGrams,
+                                                     @Param("sourceTrigrams") Long sourceTrigrams,
+                                                     @Param("destinationGrams") Collection<String> destinationGrams,
+                                                     @Param("destinationTrigrams") Long destinationTrigrams);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' AND r.availableSeats > 0 " +
+           "AND r.rideDate >= :currentDate ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    Stream<Ride> streamAllAvailableRides(@Param("currentDate") LocalDate currentDate);
+    
+    /**
+     * Available rides on the date between any of the source places and any of the destination places
+     * Served by idx_rides_places - the place-registry form of findAvailableRides
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.sourcePlaceId IN :sourcePlaceIds " +
+           "AND r.destinationPlaceId IN :destinationPlaceIds AND r.rideDate = :date " +
+           "AND r.status = 'AVAILABLE' AND r.availableSeats > 0 ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByPlaces(@Param("sourcePlaceIds") Collection<Long> sourcePlaceIds,
+                                          @Param("destinationPlaceIds") Collection<Long> destinationPlaceIds,
+                                          @Param("date") LocalDate date);
+    
+    @Query("SELECT r.id FROM Ride r WHERE r.sourcePlaceId IN :sourcePlaceIds " +
+           "AND r.destinationPlaceId IN :destinationPlaceIds AND r.rideDate = :date " +
+           "AND r.status = 'AVAILABLE' AND r.availableSeats > 0")
+    List<Long> findAvailableRideIdsByPlaces(@Param("sourcePlaceIds") Collection<Long> sourcePlaceIds,
+                                            @Param("destinationPlaceIds") Collection<Long> destinationPlaceIds,
+                                            @Param("date") LocalDate date);
+    
+    /**
+     * Date-window variant of findAvailableRidesByPlaces, ordered by (rideDate, rideTime, id)
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.sourcePlaceId IN :sourcePlaceIds " +
+           "AND r.destinationPlaceId IN :destinationPlaceIds AND r.rideDate BETWEEN :fromDate AND :toDate " +
+           "AND r.status = 'AVAILABLE' AND r.availableSeats > 0 ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByPlacesBetween(@Param("sourcePlaceIds") Collection<Long> sourcePlaceIds,
+                                                 @Param("destinationPlaceIds") Collection<Long> destinationPlaceIds,
+                                                 @Param("fromDate") LocalDate fromDate,
+                                                 @Param("toDate") LocalDate toDate);
+    
+    /**
+     * Date-window variant of findAvailableRides, only for queries neither the place registry nor the trigrams can serve
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+           "(LOWER(r.source) LIKE LOWER(CONCAT('%', :source, '%')) OR LOWER(:source) LIKE LOWER(CONCAT('%', r.source, '%'))) AND " +
+           "(LOWER(r.destination) LIKE LOWER(CONCAT('%', :destination, '%')) OR LOWER(:destination) LIKE LOWER(CONCAT('%', r.destination, '%'))) AND " +
+           "r.status = 'AVAILABLE' AND r.rideDate BETWEEN :fromDate AND :toDate AND r.availableSeats > 0 " +
+           "ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesBetween(@Param("source") String source,
+                                          @Param("destination") String destination,
+                                          @Param("fromDate") LocalDate fromDate,
+                                          @Param("toDate") LocalDate toDate);
+    
+    /**
+     * Date-window variant of findAvailableRidesByLocationGrams
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' " +
+           "AND r.rideDate BETWEEN :fromDate AND :toDate AND r.availableSeats > 0 " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'SOURCE' " +
+           "AND g.rideDate BETWEEN :fromDate AND :toDate AND g.gram IN :sourceGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :sourceTrigrams) " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'DESTINATION' " +
+           "AND g.rideDate BETWEEN :fromDate AND :toDate AND g.gram IN :destinationGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :destinationTrigrams) " +
+           "ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByLocationGramsBetween(@Param("fromDate") LocalDate fromDate,
+                                                         @Param("toDate") LocalDate toDate,
+                                                         @Param("sourceGrams") Collection<String> sourceGrams,
+                                                         @Param("sourceTrigrams") Long sourceTrigrams,
+                                                         @Param("destinationGrams") Collection<String> destinationGrams,
+                                                         @Param("destinationTrigrams") Long destinationTrigrams);
+    
+    /**
+     * Take seats in one conditional UPDATE, flipping the ride to FULL when none are left
+     * Returns 0 when fewer seats are free; bumps the version for optimistic writers of the ride
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats - :seats, r.version = r.version + 1, " +
+           "r.status = CASE WHEN r.availableSeats = :seats AND r.status = com.ridehub.model.Ride.RideStatus.AVAILABLE " +
+           "THEN com.ridehub.model.Ride.RideStatus.FULL ELSE r.status END " +
+           "WHERE r.id = :rideId AND r.availableSeats >= :seats")
+    int reserveSeats(@Param("rideId") Long rideId, @Param("seats") int seats);
+    
+    /**
+     * Give seats back in one conditional UPDATE, reopening a FULL ride
+     * Returns 0 when the ride would end up with more free seats than it has
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Ride r SET r.availableSeats = r.availableSeats + :seats, r.version = r.version + 1, " +
+           "r.status = CASE WHEN r.status = com.ridehub.model.Ride.RideStatus.FULL " +
+           "THEN com.ridehub.model.Ride.RideStatus.AVAILABLE ELSE r.status END " +
+           "WHERE r.id = :rideId AND r.availableSeats + :seats <= r.totalSeats")
+    int releaseSeats(@Param("rideId") Long rideId, @Param("seats") int seats);
+    
+    @Query("SELECT r FROM Ride r WHERE r.rideDate >= :fromDate " +
+           "AND NOT EXISTS (SELECT g.id FROM RideLocationGram g WHERE g.rideId = r.id)")
+    List<Ride> findRidesWithoutLocationGrams(@Param("fromDate") LocalDate fromDate);
+    
     @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' AND r.availableSeats > 0 " +
            "AND r.rideDate >= :currentDate ORDER BY r.rideDate ASC")
     List<Ride> findAllAvailableRides(@Param("currentDate") LocalDate currentDate);
     
+    /**
+     * Bookable rides between the dates (inclusive), without their drivers - used to load the near-term index
+     */
+    @Query("SELECT r FROM Ride r WHERE r.rideDate BETWEEN :fromDate AND :toDate " +
+           "AND r.status = 'AVAILABLE' AND r.availableSeats > 0")
+    List<Ride> findAvailableRidesOnDates(@Param("fromDate") LocalDate fromDate,
+                                         @Param("toDate") LocalDate toDate);
+    
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.id IN :ids AND r.rideDate = :date " +
+           "AND r.status = 'AVAILABLE' AND r.availableSeats > 0 ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByIds(@Param("ids") Collection<Long> ids, 
+                                        @Param("date") LocalDate date);
+    
+    /**
+     * Rides on the date whose corridor bounding box contains the box spanned by the pickup and drop points
+     * Served by idx_rides_corridor so only rides around the passenger's trip are loaded
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' AND r.rideDate = :date " +
+           "AND r.corridorMinLat <= :minLat AND r.corridorMaxLat >= :maxLat " +
+           "AND r.corridorMinLng <= :minLng AND r.corridorMaxLng >= :maxLng " +
+           "AND r.availableSeats > 0 ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesInCorridor(@Param("date") LocalDate date,
+                                             @Param("minLat") Double minLat,
+                                             @Param("maxLat") Double maxLat,
+                                             @Param("minLng") Double minLng,
+                                             @Param("maxLng") Double maxLng);
+    
+    List<Ride> findByCorridorMinLatIsNull();
+    
+    /**
+     * Available rides on the date whose source geohash lies in [fromHash, toHash) - one geohash prefix cell
+     */
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' AND r.rideDate = :date " +
+           "AND r.sourceGeohash >= :fromHash AND r.sourceGeohash < :toHash " +
+           "AND r.rideTime BETWEEN :fromTime AND :toTime AND r.availableSeats > 0")
+    List<Ride> findAvailableRidesBySourceGeohashRange(@Param("date") LocalDate date,
+                                                       @Param("fromHash") String fromHash,
+                                                       @Param("toHash") String toHash,
+                                                       @Param("fromTime") LocalTime fromTime,
+                                                       @Param("toTime") LocalTime toTime);
+    
+    List<Ride> findBySourceGeohashIsNull();
+    
+    List<Ride> findBySourcePlaceIdIsNullOrDestinationPlaceIdIsNull();
+    
+    // Which of the recurring templates already have a ride on the date
+    @Query("SELECT r.templateId FROM Ride r WHERE r.rideDate = :date AND r.templateId IN :templateIds")
+    List<Long> findMaterializedTemplateIds(@Param("date") LocalDate date,
+                                           @Param("templateIds") Collection<Long> templateIds);
+    
+    Optional<Ride> findByTemplateIdAndRideDate(Long templateId, LocalDate rideDate);
+    
+    List<Ride> findByTemplateIdAndRideDateGreaterThanEqual(Long templateId, LocalDate rideDate);
+    
     @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.driver.gender = :gender AND r.status = 'AVAILABLE' " +
            "AND r.availableSeats > 0 AND r.rideDate >= :currentDate")
     List<Ride> findAvailableRidesByDriverGender(@Param("gender") String gender, 
                                                   @Param("currentDate") LocalDate currentDate);
     
+    // Keyset-paginated listings, ordered by (rideDate, rideTime, id) and starting after the given position
+    
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.status = 'AVAILABLE' AND r.availableSeats > 0 " +
+           "AND r.rideDate >= :currentDate " +
+           "AND (r.rideDate > :afterDate OR (r.rideDate = :afterDate AND (r.rideTime > :afterTime " +
+           "OR (r.rideTime = :afterTime AND r.id > :afterId)))) " +
+           "ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesAfter(@Param("currentDate") LocalDate currentDate,
+                                        @Param("afterDate") LocalDate afterDate,
+                                        @Param("afterTime") LocalTime afterTime,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+    
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.driver.gender = :gender AND r.status = 'AVAILABLE' " +
+           "AND r.availableSeats > 0 AND r.rideDate >= :currentDate " +
+           "AND (r.rideDate > :afterDate OR (r.rideDate = :afterDate AND (r.rideTime > :afterTime " +
+           "OR (r.rideTime = :afterTime AND r.id > :afterId)))) " +
+           "ORDER BY r.rideDate ASC, r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByDriverGenderAfter(@Param("gender") String gender,
+                                                      @Param("currentDate") LocalDate currentDate,
+                                                      @Param("afterDate") LocalDate afterDate,
+                                                      @Param("afterTime") LocalTime afterTime,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable pageable);
+    
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE r.rideDate = :date AND r.status = 'AVAILABLE' " +
+           "AND r.availableSeats > 0 " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'SOURCE' " +
+           "AND g.rideDate = :date AND g.gram IN :sourceGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :sourceTrigrams) " +
+           "AND r.id IN (SELECT g.rideId FROM RideLocationGram g WHERE g.endpoint = 'DESTINATION' " +
+           "AND g.rideDate = :date AND g.gram IN :destinationGrams GROUP BY g.rideId, g.gramCount " +
+           "HAVING COUNT(g) = g.gramCount OR COUNT(g) >= :destinationTrigrams) " +
+           "AND (r.rideTime > :afterTime OR (r.rideTime = :afterTime AND r.id > :afterId)) " +
+           "ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesByLocationGramsAfter(@Param("date") LocalDate date,
+                                                       @Param("sourceGrams") Collection<String> sourceGrams,
+                                                       @Param("sourceTrigrams") Long sourceTrigrams,
+                                                       @Param("destinationGrams") Collection<String> destinationGrams,
+                                                       @Param("destinationTrigrams") Long destinationTrigrams,
+                                                       @Param("afterTime") LocalTime afterTime,
+                                                       @Param("afterId") Long afterId,
+                                                       Pageable pageable);
+    
+    @Query("SELECT r FROM Ride r JOIN FETCH r.driver WHERE " +
+           "(LOWER(r.source) LIKE LOWER(CONCAT('%', :source, '%')) OR LOWER(:source) LIKE LOWER(CONCAT('%', r.source, '%'))) AND " +
+           "(LOWER(r.destination) LIKE LOWER(CONCAT('%', :destination, '%')) OR LOWER(:destination) LIKE LOWER(CONCAT('%', r.destination, '%'))) AND " +
+           "r.rideDate = :date AND r.status = 'AVAILABLE' AND r.availableSeats > 0 " +
+           "AND (r.rideTime > :afterTime OR (r.rideTime = :afterTime AND r.id > :afterId)) " +
+           "ORDER BY r.rideTime ASC, r.id ASC")
+    List<Ride> findAvailableRidesAfter(@Param("source") String source,
+                                        @Param("destination") String destination,
+                                        @Param("date") LocalDate date,
+                                        @Param("afterTime") LocalTime afterTime,
+                                        @Param("afterId") Long afterId,
+                                        Pageable pageable);
+    
+    // Place name frequencies for autocomplete, as {name, ride count}
+    @Query("SELECT r.source, COUNT(r) FROM Ride r GROUP BY r.source")
+    List<Object[]> countRidesBySource();
+    
+    @Query("SELECT r.destination, COUNT(r) FROM Ride r GROUP BY r.destination")
+    List<Object[]> countRidesByDestination();
+    
     // Admin queries
     List<Ride> findByDriverId(Long driverId);
     
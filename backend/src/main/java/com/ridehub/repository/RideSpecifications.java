@@ -0,0 +1,113 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.Review;
+import com.ridehub.model.Ride;
+import com.ridehub.model.User;
+import com.ridehub.util.RideCursor;
+import jakarta.persistence.criteria.Fetch;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Locale;
+
+/**
+ * Composable predicates over rides for RideRepository's JpaSpecificationExecutor
+ * Combine with Specification.where(...).and(...); all of them compile into a single query.
+ */
+public final class RideSpecifications {
+    
+    private RideSpecifications() {
+    }
+    
+    /**
+     * AVAILABLE with free seats, on or after the given date; also fetches the driver
+     */
+    public static Specification<Ride> bookableFrom(LocalDate currentDate) {
+        return (root, query, cb) -> {
+            driver(root, query.getResultType());
+            return cb.and(
+                    cb.equal(root.get("status"), Ride.RideStatus.AVAILABLE),
+                    cb.greaterThan(root.get("availableSeats"), 0),
+                    cb.greaterThanOrEqualTo(root.get("rideDate"), currentDate));
+        };
+    }
+    
+    public static Specification<Ride> departsOn(LocalDate date) {
+        return (root, query, cb) -> cb.equal(root.get("rideDate"), date);
+    }
+    
+    public static Specification<Ride> departsBetween(LocalTime from, LocalTime to) {
+        return (root, query, cb) -> cb.between(root.get("rideTime"), from, to);
+    }
+    
+    public static Specification<Ride> hasAtLeastSeats(int seats) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("availableSeats"), seats);
+    }
+    
+    public static Specification<Ride> fareAtMost(double farePerKm) {
+        return (root, query, cb) -> cb.lessThanOrEqualTo(root.get("farePerKm"), farePerKm);
+    }
+    
+    public static Specification<Ride> driverGender(String gender) {
+        return (root, query, cb) -> cb.equal(driver(root, query.getResultType()).get("gender"), gender);
+    }
+    
+    public static Specification<Ride> vehicleContains(String vehicle) {
+        return (root, query, cb) -> cb.like(
+                cb.lower(driver(root, query.getResultType()).get("carModel")),
+                "%" + vehicle.toLowerCase(Locale.ROOT) + "%");
+    }
+    
+    /**
+     * Driver's average review rating is at least minRating (drivers without reviews never qualify)
+     */
+    public static Specification<Ride> driverRatingAtLeast(double minRating) {
+        return (root, query, cb) -> {
+            Subquery<Double> averageRating = query.subquery(Double.class);
+            Root<Review> review = averageRating.from(Review.class);
+            averageRating.select(cb.avg(review.get("rating")))
+                    .where(cb.equal(review.get("driver"), driver(root, query.getResultType())));
+            return cb.greaterThanOrEqualTo(averageRating, minRating);
+        };
+    }
+    
+    /**
+     * Rides after the cursor in (rideDate, rideTime, id) order
+     */
+    public static Specification<Ride> after(RideCursor cursor) {
+        return (root, query, cb) -> cb.or(
+                cb.greaterThan(root.get("rideDate"), cursor.rideDate()),
+                cb.and(cb.equal(root.get("rideDate"), cursor.rideDate()), cb.or(
+                        cb.greaterThan(root.get("rideTime"), cursor.rideTime()),
+                        cb.and(cb.equal(root.get("rideTime"), cursor.rideTime()),
+                                cb.greaterThan(root.get("id"), cursor.id())))));
+    }
+    
+    /**
+     * The driver join, shared by every specification of a query
+     * Entity queries fetch it (like the JOIN FETCH queries); count queries only join.
+     */
+    @SuppressWarnings("unchecked")
+    private static Join<Ride, User> driver(Root<Ride> root, Class<?> resultType) {
+        for (Fetch<Ride, ?> fetch : root.getFetches()) {
+            if (fetch.getAttribute().getName().equals("driver")) {
+                return (Join<Ride, User>) fetch;
+            }
+        }
+        for (Join<Ride, ?> join : root.getJoins()) {
+            if (join.getAttribute().getName().equals("driver")) {
+                return (Join<Ride, User>) join;
+            }
+        }
+        if (Long.class.equals(resultType) || long.class.equals(resultType)) {
+            return root.join("driver", JoinType.INNER);
+        }
+        Fetch<Ride, User> fetch = root.fetch("driver", JoinType.INNER);
+        return (Join<Ride, User>) fetch;
+    }
+}
@@ -0,0 +1,25 @@
+package com.ridehub.repository;
+
+import com.ridehub.model.SavedSearch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface SavedSearchRepository extends JpaRepository<SavedSearch, Long> {
+    
+    List<SavedSearch> findByPassengerIdOrderByCreatedAtDesc(Long passengerId);
+    
+    long countByPassengerIdAndSearchDateGreaterThanEqual(Long passengerId, LocalDate date);
+    
+    List<SavedSearch> findBySearchDateGreaterThanEqual(LocalDate fromDate);
+    
+    @Modifying
+    @Query("DELETE FROM SavedSearch s WHERE s.searchDate < :date")
+    int deleteBySearchDateBefore(@Param("date") LocalDate date);
+}
@@ -0,0 +1,450 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copy-on-write, struct-of-arrays snapshot of every bookable ride from today on
+ * Each ride event swaps in a copy of its day's columns; a full rebuild only runs on max age or a new day.
+ */
+@Service
+@Slf4j
+public class BookableRideSnapshot {
+
+    private final RideRepository rideRepository;
+    private final GeospatialService geospatialService;
+    private final ParallelRouteMatcher parallelRouteMatcher;
+    private final RideSearchCache rideSearchCache;
+    private final long maxStalenessMillis;
+    private final long maxAgeMillis;
+
+    private volatile Snapshot snapshot;
+    // Events seen while a rebuild loads, applied to the rebuilt snapshot; null otherwise. Guarded by this
+    private List<RideChangedEvent> pendingEvents;
+    private volatile boolean rebuilding;
+    private final AtomicLong pendingSince = new AtomicLong();
+
+    private final AtomicLong rebuilds = new AtomicLong();
+    private final AtomicLong lastRebuildMillis = new AtomicLong();
+    private final AtomicLong deltas = new AtomicLong();
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong staleFallbacks = new AtomicLong();
+    private final Histogram staleness = new Histogram(Histogram.LATENCY_BOUNDS_MICROS);
+
+    public BookableRideSnapshot(RideRepository rideRepository,
+                                GeospatialService geospatialService,
+                                ParallelRouteMatcher parallelRouteMatcher,
+                                RideSearchCache rideSearchCache,
+                                @Value("${ridehub.ride-snapshot.max-staleness-ms:5000}") long maxStalenessMillis,
+                                @Value("${ridehub.ride-snapshot.max-age-ms:300000}") long maxAgeMillis) {
+        this.rideRepository = rideRepository;
+        this.geospatialService = geospatialService;
+        this.parallelRouteMatcher = parallelRouteMatcher;
+        this.rideSearchCache = rideSearchCache;
+        this.maxStalenessMillis = maxStalenessMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+        Snapshot current = snapshot;
+        if (current != null) {
+            log.info("[BookableRideSnapshot] Loaded {} rides across {} dates", current.size(), current.days().size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(RideChangedEvent.INDEX_ORDER)
+    public synchronized void onRideChanged(RideChangedEvent event) {
+        if (pendingEvents != null) {
+            pendingEvents.add(event);
+            pendingSince.compareAndSet(0, System.currentTimeMillis());
+        } else {
+            apply(event);
+        }
+    }
+
+    /**
+     * Rebuild when the snapshot is older than max-age-ms (catches changes made without an event),
+     * from before today, or missing because the last load failed
+     */
+    @Scheduled(fixedDelayString = "${ridehub.ride-snapshot.refresh-ms:1000}")
+    public void rebuildIfExpired() {
+        Snapshot current = snapshot;
+        if (current == null
+                || System.currentTimeMillis() - current.builtAt() >= maxAgeMillis
+                || current.fromDate().isBefore(LocalDate.now())) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Whether matches on the date can be taken from the snapshot right now
+     */
+    public boolean isUsable(LocalDate date) {
+        Snapshot current = snapshot;
+        if (current == null || date.isBefore(current.fromDate())) {
+            return false;
+        }
+        long since = pendingSince.get();
+        if (since != 0 && System.currentTimeMillis() - since > maxStalenessMillis) {
+            staleFallbacks.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Epoch of the current snapshot while a rebuild holds back changes, else RideSearchCache.NO_EPOCH
+     * Read before matching, so a result tagged with it is dropped from the cache at the next swap.
+     */
+    public long pendingEpoch() {
+        boolean pending = rebuilding;
+        Snapshot current = snapshot;
+        return pending && current != null ? current.epoch() : RideSearchCache.NO_EPOCH;
+    }
+
+    /**
+     * Ids of the rides on the date that pass the filter and either route past both points or are
+     * in exactMatchIds; the columns are checked in full, so no entity needs checking again
+     */
+    public Set<Long> findMatchingIds(LocalDate date, Filter filter, Set<Long> exactMatchIds,
+                                     double pickupLat, double pickupLng,
+                                     double dropLat, double dropLng) {
+        served.incrementAndGet();
+        DayColumns day = snapshot.days().get(date.toEpochDay());
+        if (day == null) {
+            return new HashSet<>();
+        }
+
+        long[] eligible = day.filter(filter);
+        long[] matches = new long[day.routes().bitsetWords()];
+        parallelRouteMatcher.matchRoutes(pickupLat, pickupLng, dropLat, dropLng, day.routes(), matches);
+        if (day.polylines() != null) {
+            for (int i = 0; i < day.polylines().length; i++) {
+                PolylineRoute polyline = day.polylines()[i];
+                if (polyline != null && (eligible[i >>> 6] & (1L << i)) != 0
+                        && polyline.matches(pickupLat, pickupLng, dropLat, dropLng)) {
+                    matches[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+
+        Set<Long> rideIds = new HashSet<>();
+        for (int word = 0; word < eligible.length; word++) {
+            long bits = eligible[word];
+            while (bits != 0) {
+                int i = (word << 6) + Long.numberOfTrailingZeros(bits);
+                if ((matches[word] & (1L << i)) != 0 || exactMatchIds.contains(day.rideIds()[i])) {
+                    rideIds.add(day.rideIds()[i]);
+                }
+                bits &= bits - 1;
+            }
+        }
+        return rideIds;
+    }
+
+    public Map<String, Object> getStats() {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        long since = pendingSince.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rides", current == null ? 0 : current.size());
+        stats.put("dates", current == null ? 0 : current.days().size());
+        stats.put("ageMs", current == null ? null : now - current.builtAt());
+        stats.put("pendingChangesMs", since == 0 ? 0 : now - since);
+        stats.put("maxStalenessMs", maxStalenessMillis);
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMs", lastRebuildMillis.get());
+        stats.put("deltas", deltas.get());
+        stats.put("served", served.get());
+        stats.put("staleFallbacks", staleFallbacks.get());
+        // Time from a change held back by a rebuild to the swap that includes it
+        stats.put("stalenessMs", staleness.snapshot(1000.0));
+        return stats;
+    }
+
+    /**
+     * Load every bookable ride outside the lock, then swap it in and apply the events that arrived meanwhile
+     */
+    private void rebuild() {
+        synchronized (this) {
+            if (pendingEvents != null) {
+                return; // another rebuild is loading
+            }
+            pendingEvents = new ArrayList<>();
+            rebuilding = true;
+        }
+
+        long started = System.currentTimeMillis();
+        LocalDate today = LocalDate.now();
+        Snapshot previous = snapshot;
+        Snapshot built = null;
+        try {
+            built = build(today, previous == null ? 1 : previous.epoch() + 1,
+                    rideRepository.findBookableRideColumns(today));
+        } catch (RuntimeException e) {
+            log.error("[BookableRideSnapshot] Rebuild failed: {}", e.getMessage(), e);
+        }
+
+        synchronized (this) {
+            if (built != null) {
+                snapshot = built;
+            }
+            // Replayed in arrival order, so each ride ends in the state of its latest event
+            pendingEvents.forEach(this::apply);
+            pendingEvents = null;
+            rebuilding = false;
+            long since = pendingSince.getAndSet(0);
+            if (since != 0) {
+                staleness.record((System.currentTimeMillis() - since) * 1000);
+            }
+        }
+        if (built == null) {
+            return;
+        }
+        rideSearchCache.snapshotSwapped(built.epoch());
+        rebuilds.incrementAndGet();
+        lastRebuildMillis.set(System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Swap in a copy of the ride's day with the ride added, updated or removed
+     */
+    private void apply(RideChangedEvent event) {
+        Snapshot current = snapshot;
+        Ride ride = event.getRide();
+        if (current == null || ride.getId() == null || ride.getRideDate() == null
+                || ride.getRideDate().isBefore(current.fromDate())) {
+            return;
+        }
+
+        long key = ride.getRideDate().toEpochDay();
+        DayColumns day = current.days().get(key);
+        int index = day == null ? -1 : day.indexOf(ride.getId());
+        DayColumns changed;
+        if (!event.isBookable()) {
+            if (index < 0) {
+                return;
+            }
+            changed = day.without(index);
+        } else if (index >= 0) {
+            // Route and departure never change once a ride is created, only its seats
+            changed = day.withSeats(index, ride.getAvailableSeats());
+        } else {
+            DayColumns row = buildDay(List.<Object[]>of(new Object[] {
+                    ride.getId(), ride.getRideDate(), ride.getSourceLat(), ride.getSourceLng(),
+                    ride.getDestLat(), ride.getDestLng(), ride.getRoutePolyline(),
+                    ride.getRideTime(), ride.getAvailableSeats(), ride.getFarePerKm()}));
+            changed = day == null ? row : day.append(row);
+        }
+
+        Map<Long, DayColumns> days = new HashMap<>(current.days());
+        if (changed.rideIds().length == 0) {
+            days.remove(key);
+        } else {
+            days.put(key, changed);
+        }
+        snapshot = new Snapshot(current.fromDate(), current.epoch(), current.builtAt(), days);
+        deltas.incrementAndGet();
+    }
+
+    /**
+     * Rows come ordered by (rideDate, rideTime, id), so each date is one contiguous run
+     */
+    private Snapshot build(LocalDate fromDate, long epoch, List<Object[]> rows) {
+        Map<Long, DayColumns> days = new HashMap<>();
+        int start = 0;
+        while (start < rows.size()) {
+            LocalDate date = (LocalDate) rows.get(start)[1];
+            int end = start;
+            while (end < rows.size() && date.equals(rows.get(end)[1])) {
+                end++;
+            }
+            days.put(date.toEpochDay(), buildDay(rows.subList(start, end)));
+            start = end;
+        }
+        return new Snapshot(fromDate, epoch, System.currentTimeMillis(), days);
+    }
+
+    private DayColumns buildDay(List<Object[]> rows) {
+        int count = rows.size();
+        long[] rideIds = new long[count];
+        long[] departures = new long[count];
+        int[] seats = new int[count];
+        double[] fares = new double[count];
+        double[] startLat = new double[count];
+        double[] startLng = new double[count];
+        double[] endLat = new double[count];
+        double[] endLng = new double[count];
+        PolylineRoute[] polylines = null;
+
+        for (int i = 0; i < count; i++) {
+            Object[] row = rows.get(i);
+            rideIds[i] = (Long) row[0];
+            LocalTime time = row[7] != null ? (LocalTime) row[7] : LocalTime.MIDNIGHT;
+            departures[i] = departureSecond(LocalDateTime.of((LocalDate) row[1], time));
+            seats[i] = row[8] != null ? (Integer) row[8] : 0;
+            fares[i] = row[9] != null ? (Double) row[9] : Double.NaN;
+
+            byte[] encoded = (byte[]) row[6];
+            if (encoded != null) {
+                if (polylines == null) {
+                    polylines = new PolylineRoute[count];
+                }
+                polylines[i] = geospatialService.getPolylineRoute(rideIds[i], encoded);
+                // Polyline rides are matched against their own route, never as a straight line
+                startLat[i] = startLng[i] = endLat[i] = endLng[i] = Double.NaN;
+                continue;
+            }
+            // Missing coordinates become NaN, which never matches
+            startLat[i] = row[2] != null ? (Double) row[2] : Double.NaN;
+            startLng[i] = row[3] != null ? (Double) row[3] : Double.NaN;
+            endLat[i] = row[4] != null ? (Double) row[4] : Double.NaN;
+            endLng[i] = row[5] != null ? (Double) row[5] : Double.NaN;
+        }
+
+        RouteColumns routes = geospatialService.buildRouteColumns(startLat, startLng, endLat, endLng, count);
+        return new DayColumns(rideIds, departures, seats, fares, routes, polylines);
+    }
+
+    // Local date-time as seconds, only ever compared with other local date-times
+    private static long departureSecond(LocalDateTime departure) {
+        return departure.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Column checks made before any route: departure at or after departsAfter, at least minSeats
+     * free and a fare per km of at most maxFarePerKm
+     */
+    public record Filter(LocalDateTime departsAfter, int minSeats, double maxFarePerKm) {
+
+        /**
+         * Rides a passenger can still book at the time: not departed, with a free seat
+         */
+        public static Filter bookableAt(LocalDateTime now) {
+            return new Filter(now, 1, Double.POSITIVE_INFINITY);
+        }
+    }
+
+    private record Snapshot(LocalDate fromDate, long epoch, long builtAt, Map<Long, DayColumns> days) {
+
+        int size() {
+            return days.values().stream().mapToInt(day -> day.rideIds().length).sum();
+        }
+    }
+
+    /**
+     * One ride date: column i of every array describes the same ride; polylines is null
+     * when no ride on the date has waypoints. Never modified, changes build a new instance.
+     */
+    private record DayColumns(long[] rideIds, long[] departures, int[] seats, double[] fares,
+                              RouteColumns routes, PolylineRoute[] polylines) {
+
+        int indexOf(long rideId) {
+            for (int i = 0; i < rideIds.length; i++) {
+                if (rideIds[i] == rideId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Bitset of the rides passing the filter
+         */
+        long[] filter(Filter filter) {
+            long departsAfter = departureSecond(filter.departsAfter());
+            long[] eligible = new long[routes.bitsetWords()];
+            for (int i = 0; i < rideIds.length; i++) {
+                // A fare of NaN (unknown) is not excluded by the fare limit
+                if (departures[i] >= departsAfter && seats[i] >= filter.minSeats()
+                        && !(fares[i] > filter.maxFarePerKm())) {
+                    eligible[i >>> 6] |= 1L << i;
+                }
+            }
+            return eligible;
+        }
+
+        DayColumns withSeats(int i, int availableSeats) {
+            int[] changed = seats.clone();
+            changed[i] = availableSeats;
+            return new DayColumns(rideIds, departures, changed, fares, routes, polylines);
+        }
+
+        DayColumns append(DayColumns row) {
+            int size = rideIds.length;
+            long[] ids = Arrays.copyOf(rideIds, size + 1);
+            ids[size] = row.rideIds()[0];
+            long[] departs = Arrays.copyOf(departures, size + 1);
+            departs[size] = row.departures()[0];
+            int[] free = Arrays.copyOf(seats, size + 1);
+            free[size] = row.seats()[0];
+            double[] fare = Arrays.copyOf(fares, size + 1);
+            fare[size] = row.fares()[0];
+            PolylineRoute[] lines = null;
+            if (polylines != null || row.polylines() != null) {
+                lines = polylines != null ? Arrays.copyOf(polylines, size + 1) : new PolylineRoute[size + 1];
+                lines[size] = row.polylines() != null ? row.polylines()[0] : null;
+            }
+            return new DayColumns(ids, departs, free, fare, routes.append(row.routes()), lines);
+        }
+
+        DayColumns without(int i) {
+            return new DayColumns(remove(rideIds, i), remove(departures, i), remove(seats, i), remove(fares, i),
+                    routes.without(i), polylines != null ? remove(polylines, i) : null);
+        }
+
+        private static long[] remove(long[] column, int i) {
+            long[] out = new long[column.length - 1];
+            System.arraycopy(column, 0, out, 0, i);
+            System.arraycopy(column, i + 1, out, i, out.length - i);
+            return out;
+        }
+
+        private static int[] remove(int[] column, int i) {
+            int[] out = new int[column.length - 1];
+            System.arraycopy(column, 0, out, 0, i);
+            System.arraycopy(column, i + 1, out, i, out.length - i);
+            return out;
+        }
+
+        private static double[] remove(double[] column, int i) {
+            double[] out = new double[column.length - 1];
+            System.arraycopy(column, 0, out, 0, i);
+            System.arraycopy(column, i + 1, out, i, out.length - i);
+            return out;
+        }
+
+        private static PolylineRoute[] remove(PolylineRoute[] column, int i) {
+            PolylineRoute[] out = new PolylineRoute[column.length - 1];
+            System.arraycopy(column, 0, out, 0, i);
+            System.arraycopy(column, i + 1, out, i, out.length - i);
+            return out;
+        }
+    }
+}
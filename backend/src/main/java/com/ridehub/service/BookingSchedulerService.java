@@ -7,9 +7,12 @@ import com.ridehub.repository.BookingRepository;
 import com.ridehub.repository.RideRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -24,6 +27,8 @@ public class BookingSchedulerService {
     private final RideRepository rideRepository;
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
     
     // Run every 2 minutes for more responsive payment processing
     @Scheduled(cron = "0 */2 * * * *")
@@ -77,63 +82,78 @@ public class BookingSchedulerService {
                 booking.getId(), finalPrice);
     }
     
-    // Run every hour to mark past rides as completed
+    // Run every hour to mark past rides as completed, each ride in its own transaction
     @Scheduled(cron = "0 0 * * * *")
-    @Transactional
     public void markPastRidesAsCompleted() {
         log.info("Starting to mark past rides as completed...");
         
         LocalDateTime now = LocalDateTime.now();
         
         // Find all rides that have passed their scheduled time
-        List<Ride> pastRides = rideRepository.findAll().stream()
-                .filter(ride -> {
-                    LocalDateTime rideDateTime = LocalDateTime.of(ride.getRideDate(), ride.getRideTime());
-                    // If ride time was more than 2 hours ago
-                    return rideDateTime.plusHours(2).isBefore(now) &&
-                           (ride.getStatus() == Ride.RideStatus.AVAILABLE ||
-                            ride.getStatus() == Ride.RideStatus.FULL ||
-                            ride.getTripStatus() == Ride.TripStatus.IN_PROGRESS ||
-                            ride.getTripStatus() == Ride.TripStatus.SCHEDULED);
-                })
+        List<Long> pastRideIds = rideRepository.findAll().stream()
+                .filter(ride -> isPastAndOpen(ride, now))
+                .map(Ride::getId)
                 .collect(Collectors.toList());
         
-        log.info("Found {} past rides to mark as completed", pastRides.size());
+        log.info("Found {} past rides to mark as completed", pastRideIds.size());
         
-        for (Ride ride : pastRides) {
+        for (Long rideId : pastRideIds) {
             try {
-                // Update ride status
-                ride.setStatus(Ride.RideStatus.COMPLETED);
-                if (ride.getTripStatus() != Ride.TripStatus.COMPLETED) {
-                    ride.setTripStatus(Ride.TripStatus.COMPLETED);
-                    ride.setTripCompletedAt(LocalDateTime.now());
+                transactionTemplate.executeWithoutResult(status -> markRideAsCompleted(rideId, now));
+            } catch (OptimisticLockingFailureException e) {
+                // Changed by a driver or passenger meanwhile; the next run looks at it again
+                log.info("Ride {} changed while being completed, left for the next run", rideId);
+            } catch (Exception e) {
+                log.error("Error marking ride {} as completed: {}", rideId, e.getMessage());
+            }
+        }
+        
+        log.info("Past rides marking completed");
+    }
+    
+    private void markRideAsCompleted(Long rideId, LocalDateTime now) {
+        Ride ride = rideRepository.findById(rideId).orElse(null);
+        if (ride == null || !isPastAndOpen(ride, now)) {
+            return;
+        }
+        
+        // Update ride status
+        ride.setStatus(Ride.RideStatus.COMPLETED);
+        if (ride.getTripStatus() != Ride.TripStatus.COMPLETED) {
+            ride.setTripStatus(Ride.TripStatus.COMPLETED);
+            ride.setTripCompletedAt(LocalDateTime.now());
+        }
+        rideRepository.saveAndFlush(ride);
+        
+        // Mark all confirmed bookings as completed if not already
+        List<Booking> bookings = bookingRepository.findByRideOrderByBookedAtDesc(ride);
+        for (Booking booking : bookings) {
+            if (booking.getStatus() == Booking.BookingStatus.CONFIRMED) {
+                booking.setStatus(Booking.BookingStatus.COMPLETED);
+                if (booking.getRideEndedAt() == null) {
+                    booking.setRideEndedAt(LocalDateTime.now());
                 }
-                rideRepository.save(ride);
-                
-                // Mark all confirmed bookings as completed if not already
-                List<Booking> bookings = bookingRepository.findByRideOrderByBookedAtDesc(ride);
-                for (Booking booking : bookings) {
-                    if (booking.getStatus() == Booking.BookingStatus.CONFIRMED) {
-                        booking.setStatus(Booking.BookingStatus.COMPLETED);
-                        if (booking.getRideEndedAt() == null) {
-                            booking.setRideEndedAt(LocalDateTime.now());
-                        }
-                        if (booking.getDeboardedAt() == null) {
-                            booking.setDeboardedAt(LocalDateTime.now());
-                        }
-                        bookingRepository.save(booking);
-                        
-                        log.info("Booking {} marked as completed", booking.getId());
-                    }
+                if (booking.getDeboardedAt() == null) {
+                    booking.setDeboardedAt(LocalDateTime.now());
                 }
+                bookingRepository.saveAndFlush(booking);
                 
-                log.info("Ride {} marked as completed", ride.getId());
-            } catch (Exception e) {
-                log.error("Error marking ride {} as completed: {}", ride.getId(), e.getMessage());
+                log.info("Booking {} marked as completed", booking.getId());
             }
         }
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
         
-        log.info("Past rides marking completed");
+        log.info("Ride {} marked as completed", ride.getId());
+    }
+    
+    private boolean isPastAndOpen(Ride ride, LocalDateTime now) {
+        LocalDateTime rideDateTime = LocalDateTime.of(ride.getRideDate(), ride.getRideTime());
+        // If ride time was more than 2 hours ago
+        return rideDateTime.plusHours(2).isBefore(now) &&
+               (ride.getStatus() == Ride.RideStatus.AVAILABLE ||
+                ride.getStatus() == Ride.RideStatus.FULL ||
+                ride.getTripStatus() == Ride.TripStatus.IN_PROGRESS ||
+                ride.getTripStatus() == Ride.TripStatus.SCHEDULED);
     }
     
     // Run every 10 minutes to check for rides starting in 1 hour
@@ -1,5 +1,6 @@
 package com.ridehub.service;
 
+import com.ridehub.config.RetryOnConflict;
 import com.ridehub.dto.BookingRequest;
 import com.ridehub.dto.BookingResponse;
 import com.ridehub.model.Booking;
@@ -12,7 +13,10 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
@@ -29,6 +33,8 @@ public class BookingService {
     private final EmailService emailService;
     private final GeospatialService geospatialService;
     private final NotificationService notificationService;
+    private final PlaceRegistryService placeRegistryService;
+    private final RecurringRideService recurringRideService;
     
     private User getCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -36,6 +42,20 @@ public class BookingService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
     }
     
+    /**
+     * The booked ride's id; the first booking of a recurring ride's date writes that ride
+     */
+    private Long resolveRideId(BookingRequest request) {
+        if (request.getRideId() != null) {
+            return request.getRideId();
+        }
+        if (request.getTemplateId() == null || request.getRideDate() == null) {
+            throw new RuntimeException("Ride ID is required");
+        }
+        return recurringRideService.materializeForBooking(request.getTemplateId(), LocalDate.parse(request.getRideDate()));
+    }
+    
+    @RetryOnConflict
     @Transactional
     public BookingResponse createBooking(BookingRequest request) {
         User passenger = getCurrentUser();
@@ -44,12 +64,11 @@ public class BookingService {
             throw new RuntimeException("Only passengers can book rides");
         }
         
-        Ride ride = rideRepository.findById(request.getRideId())
+        Ride ride = rideRepository.findById(resolveRideId(request))
                 .orElseThrow(() -> new RuntimeException("Ride not found"));
         
-        if (ride.getAvailableSeats() < request.getSeatsBooked()) {
-            throw new RuntimeException("Not enough seats available");
-        }
+        // The conditional UPDATE is the only seat check, it fails here once the seats are gone
+        rideService.updateRideSeats(ride.getId(), request.getSeatsBooked());
         
         // Calculate segment distance using geospatial service
         double segmentDistance = geospatialService.calculateSegmentDistance(
@@ -74,6 +93,8 @@ public class BookingService {
                 .seatsBooked(request.getSeatsBooked())
                 .pickupLocation(request.getPickupLocation())
                 .dropLocation(request.getDropLocation())
+                .pickupPlaceId(placeRegistryService.resolve(request.getPickupLocation()))
+                .dropPlaceId(placeRegistryService.resolve(request.getDropLocation()))
                 .segmentDistance(segmentDistance)
                 .pickupLat(request.getPickupLat())
                 .pickupLng(request.getPickupLng())
@@ -84,27 +105,33 @@ public class BookingService {
                 .totalFare(maximumPrice)  // CRITICAL FIX: Set totalFare to satisfy NOT NULL constraint
                 .status(Booking.BookingStatus.TENTATIVE)
                 .paymentDueAt(paymentDueAt)
-                .initialEmailSent(false)  // EXPLICITLY SET - Required field
+                .initialEmailSent(true)  // Sent right after the booking commits
                 .paymentRequestSent(false)  // EXPLICITLY SET - Required field
                 .build();
         
-        booking = bookingRepository.save(booking);
-        
-        // Update ride seats
-        rideService.updateRideSeats(ride.getId(), request.getSeatsBooked());
-        
-        // Send initial booking email explaining price sharing logic
-        emailService.sendInitialBookingEmail(passenger, booking, ride);
-        booking.setInitialEmailSent(true);
-        bookingRepository.save(booking);
-        
-        // Send WebSocket notification
-        notificationService.sendBookingConfirmationNotification(passenger, booking);
+        Booking saved = bookingRepository.save(booking);
+        User driver = ride.getDriver();
         
-        // Send notification to driver about tentative booking
-        emailService.sendDriverBookingNotification(ride.getDriver(), passenger, booking, ride);
+        // Messages only go out once the booking has committed
+        afterCommit(() -> {
+            // Initial booking email explaining price sharing logic
+            emailService.sendInitialBookingEmail(passenger, saved, ride);
+            
+            try {
+                notificationService.sendBookingConfirmationNotification(passenger, saved);
+            } catch (Exception e) {
+                System.err.println("Failed to send booking notification: " + e.getMessage());
+            }
+            
+            // Tell the driver about the tentative booking
+            try {
+                emailService.sendDriverBookingNotification(driver, passenger, saved, ride);
+            } catch (Exception e) {
+                System.err.println("Failed to send booking email to driver: " + e.getMessage());
+            }
+        });
         
-        return mapToBookingResponse(booking);
+        return mapToBookingResponse(saved);
     }
     
     @Transactional(readOnly = true)
@@ -160,6 +187,7 @@ public class BookingService {
         return mapToBookingResponse(booking);
     }
     
+    @RetryOnConflict
     @Transactional
     public void cancelBooking(Long id) {
         Booking booking = bookingRepository.findById(id)
@@ -184,20 +212,37 @@ public class BookingService {
         // Restore seats to ride using atomic operation
         rideService.updateRideSeatsCancellation(ride.getId(), booking.getSeatsBooked());
         
-        // Send email notification to driver
-        try {
-            emailService.sendBookingCancellationToDriver(driver, currentUser, booking, ride);
-        } catch (Exception e) {
-            // Log error but don't fail the cancellation
-            System.err.println("Failed to send cancellation email to driver: " + e.getMessage());
-        }
-        
-        // Send notification to driver
-        try {
-            notificationService.sendBookingCancellationNotification(driver, booking);
-        } catch (Exception e) {
-            System.err.println("Failed to send cancellation notification: " + e.getMessage());
+        // The driver only hears about the cancellation once it has committed
+        afterCommit(() -> {
+            try {
+                emailService.sendBookingCancellationToDriver(driver, currentUser, booking, ride);
+            } catch (Exception e) {
+                // Log error but don't fail the cancellation
+                System.err.println("Failed to send cancellation email to driver: " + e.getMessage());
+            }
+            
+            try {
+                notificationService.sendBookingCancellationNotification(driver, booking);
+            } catch (Exception e) {
+                System.err.println("Failed to send cancellation notification: " + e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Run once the current transaction commits
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     private BookingResponse mapToBookingResponse(Booking booking) {
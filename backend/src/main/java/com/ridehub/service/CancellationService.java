@@ -4,15 +4,23 @@ import com.razorpay.Payment;
 import com.razorpay.RazorpayClient;
 import com.razorpay.RazorpayException;
 import com.razorpay.Refund;
+import com.ridehub.config.RetryOnConflict;
 import com.ridehub.model.*;
 import com.ridehub.repository.*;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -30,6 +38,9 @@ public class CancellationService {
     private final UserRepository userRepository;
     private final NotificationService notificationService;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
     
     @Value("${razorpay.key.id}")
     private String razorpayKeyId;
@@ -155,12 +166,12 @@ public class CancellationService {
         booking.setStatus(Booking.BookingStatus.CANCELLED);
         bookingRepository.save(booking);
         
-        // Update ride available seats
-        ride.setAvailableSeats(ride.getAvailableSeats() + booking.getSeatsBooked());
-        if (ride.getStatus() == Ride.RideStatus.FULL) {
-            ride.setStatus(Ride.RideStatus.AVAILABLE);
+        // Update ride available seats with one conditional UPDATE, then reload the managed ride
+        if (rideRepository.releaseSeats(ride.getId(), booking.getSeatsBooked()) == 0) {
+            throw new RuntimeException("Cannot restore more seats than the ride has");
         }
-        rideRepository.save(ride);
+        entityManager.refresh(ride);
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.SEATS_CHANGED));
         
         // Send notifications
         notificationService.sendCancellationConfirmation(passenger, booking, refundCalc);
@@ -174,6 +185,7 @@ public class CancellationService {
     /**
      * Driver cancels entire ride
      */
+    @RetryOnConflict
     @Transactional
     public void cancelRideByDriver(Long rideId, String reason) {
         User driver = getCurrentUser();
@@ -197,6 +209,11 @@ public class CancellationService {
         LocalDateTime tripStartTime = LocalDateTime.of(ride.getRideDate(), ride.getRideTime());
         long hoursUntilTrip = Duration.between(cancellationTime, tripStartTime).toHours();
         
+        // Cancel the ride first so a concurrent change conflicts here, before any refund goes out
+        ride.setStatus(Ride.RideStatus.CANCELLED);
+        ride.setTripStatus(Ride.TripStatus.CANCELLED);
+        rideRepository.saveAndFlush(ride);
+        
         // Get all confirmed bookings
         java.util.List<Booking> confirmedBookings = bookingRepository.findActiveBookingsByRide(ride);
         
@@ -223,40 +240,52 @@ public class CancellationService {
             log.warn("Warning issued to driver {} for late cancellation", driver.getId());
         }
         
-        // Process 100% refund for all passengers
         for (Booking booking : confirmedBookings) {
-            try {
-                RefundCalculation fullRefund = RefundCalculation.builder()
-                        .refundPercentage(1.0)
-                        .penaltyPercentage(0.0)
-                        .refundAmount(booking.getFinalPrice())
-                        .penaltyAmount(0.0)
-                        .hoursUntilTrip(hoursUntilTrip)
-                        .reason("Driver cancelled ride - Full refund")
-                        .build();
-                
-                processRefund(booking, fullRefund, reason);
-                
-                booking.setStatus(Booking.BookingStatus.CANCELLED);
-                bookingRepository.save(booking);
-                
-                // Notify passenger
-                notificationService.sendDriverCancelledNotification(booking.getPassenger(), booking, ride);
-                emailService.sendDriverCancellationEmailToPassenger(booking.getPassenger(), ride, reason);
-                
-            } catch (Exception e) {
-                log.error("Failed to process refund for booking {}: {}", booking.getId(), e.getMessage());
-            }
+            booking.setStatus(Booking.BookingStatus.CANCELLED);
         }
+        bookingRepository.saveAllAndFlush(confirmedBookings);
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
         
-        // Update ride status
-        ride.setStatus(Ride.RideStatus.CANCELLED);
-        ride.setTripStatus(Ride.TripStatus.CANCELLED);
-        rideRepository.save(ride);
+        // Process 100% refund for all passengers once the cancellation has committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (Booking booking : confirmedBookings) {
+                    try {
+                        RefundCalculation fullRefund = RefundCalculation.builder()
+                                .refundPercentage(1.0)
+                                .penaltyPercentage(0.0)
+                                .refundAmount(booking.getFinalPrice())
+                                .penaltyAmount(0.0)
+                                .hoursUntilTrip(hoursUntilTrip)
+                                .reason("Driver cancelled ride - Full refund")
+                                .build();
+                        
+                        newTransaction().executeWithoutResult(status -> processRefund(booking, fullRefund, reason));
+                        
+                        // Notify passenger
+                        notificationService.sendDriverCancelledNotification(booking.getPassenger(), booking, ride);
+                        emailService.sendDriverCancellationEmailToPassenger(booking.getPassenger(), ride, reason);
+                        
+                    } catch (Exception e) {
+                        log.error("Failed to process refund for booking {}: {}", booking.getId(), e.getMessage());
+                    }
+                }
+            }
+        });
         
         log.info("Ride {} cancelled successfully by driver", rideId);
     }
     
+    /**
+     * Separate transaction for the payment updates made after the cancellation has committed
+     */
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+    
     /**
      * Process refund through Razorpay
      */
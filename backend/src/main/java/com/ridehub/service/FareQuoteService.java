@@ -0,0 +1,153 @@
+package com.ridehub.service;
+
+import com.ridehub.dto.FareQuoteResponse;
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.GeoGrid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fare quotes for the booking page, cached per ride and ~20m-snapped pickup/drop pair
+ * Bookings price the raw points themselves; a quote is an estimate within ~20m.
+ */
+@Service
+@Slf4j
+public class FareQuoteService {
+
+    private static final double SNAP_DEG = 0.0002; // ~20m cells for pickup/drop points
+
+    private final RideRepository rideRepository;
+    private final GeospatialService geospatialService;
+    private final int maxEntries;
+
+    private final LinkedHashMap<QuoteKey, Quote> quotes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FareQuoteService(RideRepository rideRepository,
+                            GeospatialService geospatialService,
+                            @Value("${ridehub.fare-quotes.max-entries:10000}") int maxEntries) {
+        this.rideRepository = rideRepository;
+        this.geospatialService = geospatialService;
+        this.maxEntries = maxEntries;
+        this.quotes = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Quote for a ride by id; a cached pair is answered without loading the ride
+     */
+    public FareQuoteResponse quote(Long rideId,
+                                   double pickupLat, double pickupLng,
+                                   double dropLat, double dropLng,
+                                   int seats) {
+        if (seats < 1) {
+            throw new RuntimeException("Seats must be at least 1");
+        }
+
+        QuoteKey key = keyOf(rideId, pickupLat, pickupLng, dropLat, dropLng);
+        Quote quote = lookup(key);
+        if (quote == null) {
+            Ride ride = rideRepository.findById(rideId)
+                    .orElseThrow(() -> new RuntimeException("Ride not found"));
+            quote = compute(key, ride);
+        }
+        return toResponse(rideId, quote, seats);
+    }
+
+    /**
+     * Drop quotes of rides that can no longer be booked
+     * Distance and fare never change for a live ride, so nothing else needs invalidating.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        if (event.isBookable()) {
+            return;
+        }
+        Long rideId = event.getRide().getId();
+        synchronized (this) {
+            quotes.keySet().removeIf(key -> key.rideId() == rideId);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.get());
+        synchronized (this) {
+            stats.put("size", quotes.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    private synchronized Quote lookup(QuoteKey key) {
+        Quote quote = quotes.get(key);
+        if (quote == null) {
+            misses.incrementAndGet();
+        } else {
+            hits.incrementAndGet();
+        }
+        return quote;
+    }
+
+    private Quote compute(QuoteKey key, Ride ride) {
+        double segmentDistance = geospatialService.calculateSegmentDistance(
+                cellCentre(key.pickupCell() >> 32), cellCentre((int) key.pickupCell()),
+                cellCentre(key.dropCell() >> 32), cellCentre((int) key.dropCell()));
+        double segmentFare = geospatialService.calculateFare(segmentDistance, ride.getFarePerKm());
+        double totalTripCost = ride.getDistance() * ride.getFarePerKm();
+        Quote quote = new Quote(segmentDistance, segmentFare, ride.getFarePerKm(), totalTripCost);
+
+        synchronized (this) {
+            quotes.put(key, quote);
+            while (quotes.size() > maxEntries) {
+                quotes.remove(quotes.keySet().iterator().next());
+                evictions.incrementAndGet();
+            }
+        }
+        return quote;
+    }
+
+    private static QuoteKey keyOf(Long rideId, double pickupLat, double pickupLng, double dropLat, double dropLng) {
+        return new QuoteKey(rideId,
+                GeoGrid.cellOf(pickupLat, pickupLng, SNAP_DEG),
+                GeoGrid.cellOf(dropLat, dropLng, SNAP_DEG));
+    }
+
+    private static double cellCentre(long index) {
+        return ((int) index + 0.5) * SNAP_DEG;
+    }
+
+    private static FareQuoteResponse toResponse(Long rideId, Quote quote, int seats) {
+        return FareQuoteResponse.builder()
+                .rideId(rideId)
+                .segmentDistance(quote.segmentDistance())
+                .segmentFare(quote.segmentFare())
+                .farePerKm(quote.farePerKm())
+                .totalTripCost(quote.totalTripCost())
+                .seats(seats)
+                .maximumPrice(quote.totalTripCost() * seats)
+                .build();
+    }
+
+    private record QuoteKey(long rideId, long pickupCell, long dropCell) {
+    }
+
+    private record Quote(double segmentDistance, double segmentFare, double farePerKm, double totalTripCost) {
+    }
+}
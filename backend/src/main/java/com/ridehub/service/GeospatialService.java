@@ -1,12 +1,36 @@
 package com.ridehub.service;
 
+import com.ridehub.dto.RouteWaypoint;
+import com.ridehub.model.Ride;
+import com.ridehub.util.GeoGrid;
+import com.ridehub.util.PolylineCodec;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class GeospatialService {
     
     private static final double EARTH_RADIUS_KM = 6371.0;
     private static final double ROUTE_TOLERANCE_KM = 5.0; // 5km tolerance for route matching
+    private static final double MAX_ROUTE_KM = 3000.0;
+    
+    private final Map<Long, RouteGeometry> routeGeometryCache = new ConcurrentHashMap<>();
+    private final Map<Long, CachedPolyline> polylineRouteCache = new ConcurrentHashMap<>();
+    
+    /**
+     * Maximum distance (km) a pickup/drop point may lie from a route and still match it
+     */
+    public double getRouteToleranceKm() {
+        return ROUTE_TOLERANCE_KM;
+    }
     
     /**
      * Calculate distance between two coordinates using Haversine formula
@@ -32,6 +56,181 @@ public class GeospatialService {
         return Math.round(distanceKm * ratePerKm * 100.0) / 100.0;
     }
     
+    /**
+     * Precomputed geometry for a ride's route, built once per ride and reused by every search
+     */
+    public RouteGeometry getRouteGeometry(Ride ride) {
+        RouteGeometry cached = ride.getId() != null ? routeGeometryCache.get(ride.getId()) : null;
+        if (cached != null && cached.hasEndpoints(
+                ride.getSourceLat(), ride.getSourceLng(), ride.getDestLat(), ride.getDestLng())) {
+            return cached;
+        }
+        
+        RouteGeometry geometry = buildRouteGeometry(
+            ride.getSourceLat(), ride.getSourceLng(),
+            ride.getDestLat(), ride.getDestLng()
+        );
+        if (ride.getId() != null) {
+            routeGeometryCache.put(ride.getId(), geometry);
+        }
+        return geometry;
+    }
+    
+    public RouteGeometry buildRouteGeometry(
+            double routeStartLat, double routeStartLng,
+            double routeEndLat, double routeEndLng) {
+        return RouteGeometry.of(routeStartLat, routeStartLng, routeEndLat, routeEndLng, EARTH_RADIUS_KM);
+    }
+    
+    /**
+     * Precomputed multi-segment route for a ride with waypoints, null for straight routes
+     */
+    public PolylineRoute getPolylineRoute(Ride ride) {
+        return getPolylineRoute(ride.getId(), ride.getRoutePolyline());
+    }
+    
+    /**
+     * Same as getPolylineRoute(Ride), for callers that only read the ride's id and encoded polyline
+     */
+    public PolylineRoute getPolylineRoute(Long rideId, byte[] encoded) {
+        if (encoded == null) {
+            return null;
+        }
+        
+        CachedPolyline cached = rideId != null ? polylineRouteCache.get(rideId) : null;
+        if (cached != null && Arrays.equals(cached.encoded(), encoded)) {
+            return cached.route();
+        }
+        
+        PolylineRoute route = PolylineRoute.of(PolylineCodec.decode(encoded), EARTH_RADIUS_KM, ROUTE_TOLERANCE_KM);
+        if (rideId != null) {
+            polylineRouteCache.put(rideId, new CachedPolyline(encoded, route));
+        }
+        return route;
+    }
+    
+    /**
+     * Source, waypoints and destination as a compact polyline, null when there are no waypoints
+     */
+    public byte[] encodeRoutePolyline(
+            double sourceLat, double sourceLng,
+            List<RouteWaypoint> waypoints,
+            double destLat, double destLng) {
+        
+        if (waypoints == null || waypoints.isEmpty()) {
+            return null;
+        }
+        
+        double[] vertices = new double[(waypoints.size() + 2) * 2];
+        vertices[0] = sourceLat;
+        vertices[1] = sourceLng;
+        for (int i = 0; i < waypoints.size(); i++) {
+            vertices[2 * i + 2] = waypoints.get(i).getLat();
+            vertices[2 * i + 3] = waypoints.get(i).getLng();
+        }
+        vertices[vertices.length - 2] = destLat;
+        vertices[vertices.length - 1] = destLng;
+        return PolylineCodec.encode(vertices);
+    }
+    
+    /**
+     * Reject routes longer than MAX_ROUTE_KM, whose corridors would cover too many grid cells
+     */
+    public void validateRouteLength(
+            double sourceLat, double sourceLng,
+            List<RouteWaypoint> waypoints,
+            double destLat, double destLng) {
+        
+        double lengthKm = 0;
+        double lat = sourceLat;
+        double lng = sourceLng;
+        if (waypoints != null) {
+            for (RouteWaypoint waypoint : waypoints) {
+                lengthKm += calculateDistance(lat, lng, waypoint.getLat(), waypoint.getLng());
+                lat = waypoint.getLat();
+                lng = waypoint.getLng();
+            }
+        }
+        lengthKm += calculateDistance(lat, lng, destLat, destLng);
+        if (lengthKm > MAX_ROUTE_KM) {
+            throw new RuntimeException("Route is too long: at most " + (int) MAX_ROUTE_KM + " km allowed");
+        }
+    }
+    
+    /**
+     * All vertices of a ride's route as interleaved lat, lng pairs - just source and
+     * destination for straight routes
+     */
+    public double[] getRouteVertices(Ride ride) {
+        PolylineRoute polyline = getPolylineRoute(ride);
+        if (polyline != null) {
+            return polyline.vertices();
+        }
+        return new double[] {ride.getSourceLat(), ride.getSourceLng(), ride.getDestLat(), ride.getDestLng()};
+    }
+    
+    /**
+     * Grid cells within the route tolerance of any segment of the ride's route
+     */
+    public Set<Long> corridorCells(Ride ride, double cellSizeDeg) {
+        double[] vertices = getRouteVertices(ride);
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i + 3 < vertices.length; i += 2) {
+            cells.addAll(GeoGrid.corridorCells(
+                vertices[i], vertices[i + 1], vertices[i + 2], vertices[i + 3],
+                ROUTE_TOLERANCE_KM, cellSizeDeg));
+        }
+        return cells;
+    }
+    
+    public void evictRouteGeometry(Long rideId) {
+        routeGeometryCache.remove(rideId);
+        polylineRouteCache.remove(rideId);
+    }
+    
+    /**
+     * Keep the geometry cache limited to bookable rides
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(RideChangedEvent.INDEX_ORDER)
+    public void onRideChanged(RideChangedEvent event) {
+        Ride ride = event.getRide();
+        if (event.isBookable() && ride.getSourceLat() != null && ride.getSourceLng() != null
+                && ride.getDestLat() != null && ride.getDestLng() != null) {
+            getRouteGeometry(ride);
+            getPolylineRoute(ride);
+        } else {
+            evictRouteGeometry(ride.getId());
+        }
+    }
+    
+    /**
+     * Set the ride's corridor bounding box: the box around every route vertex,
+     * padded by the route tolerance, that must contain every point matching the route
+     */
+    public void applyCorridorBounds(Ride ride) {
+        double[] vertices = getRouteVertices(ride);
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY;
+        double maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < vertices.length; i += 2) {
+            minLat = Math.min(minLat, vertices[i]);
+            maxLat = Math.max(maxLat, vertices[i]);
+            minLng = Math.min(minLng, vertices[i + 1]);
+            maxLng = Math.max(maxLng, vertices[i + 1]);
+        }
+        
+        double padLat = ROUTE_TOLERANCE_KM / GeoGrid.KM_PER_DEGREE;
+        double maxAbsLat = Math.max(Math.abs(minLat), Math.abs(maxLat)) + padLat;
+        double padLng = GeoGrid.kmToLngDegrees(ROUTE_TOLERANCE_KM, maxAbsLat);
+        
+        ride.setCorridorMinLat(minLat - padLat);
+        ride.setCorridorMaxLat(maxLat + padLat);
+        ride.setCorridorMinLng(minLng - padLng);
+        ride.setCorridorMaxLng(maxLng + padLng);
+    }
+    
     /**
      * Check if a point lies on or near a route (within tolerance)
      * Uses perpendicular distance from point to line segment
@@ -41,15 +240,14 @@ public class GeospatialService {
             double routeStartLat, double routeStartLng,
             double routeEndLat, double routeEndLng) {
         
-        // Calculate perpendicular distance from point to line segment
-        double distance = perpendicularDistance(
-            pointLat, pointLng,
-            routeStartLat, routeStartLng,
-            routeEndLat, routeEndLng
-        );
+        RouteGeometry route = buildRouteGeometry(routeStartLat, routeStartLng, routeEndLat, routeEndLng);
+        double latRad = Math.toRadians(pointLat);
+        double cosLat = Math.cos(latRad);
+        double lngRad = Math.toRadians(pointLng);
+        double distanceFromStart = route.distanceFromStart(latRad, cosLat, lngRad, EARTH_RADIUS_KM);
         
         // Check if point is within tolerance
-        return distance <= ROUTE_TOLERANCE_KM;
+        return perpendicularDistance(route, distanceFromStart, Math.sin(latRad), cosLat, lngRad) <= ROUTE_TOLERANCE_KM;
     }
     
     /**
@@ -61,99 +259,222 @@ public class GeospatialService {
             double routeStartLat, double routeStartLng,
             double routeEndLat, double routeEndLng) {
         
-        // Check if pickup point is on route
-        boolean pickupOnRoute = isPointOnRoute(
-            pickupLat, pickupLng,
-            routeStartLat, routeStartLng,
-            routeEndLat, routeEndLng
-        );
-        
-        // Check if drop point is on route
-        boolean dropOnRoute = isPointOnRoute(
-            dropLat, dropLng,
-            routeStartLat, routeStartLng,
-            routeEndLat, routeEndLng
-        );
-        
-        // Ensure pickup comes before drop along the route
-        boolean correctOrder = isPickupBeforeDrop(
+        return doPointsMatchRoute(
             pickupLat, pickupLng,
             dropLat, dropLng,
-            routeStartLat, routeStartLng,
-            routeEndLat, routeEndLng
+            buildRouteGeometry(routeStartLat, routeStartLng, routeEndLat, routeEndLng)
         );
+    }
+    
+    /**
+     * Check if both pickup and dropoff points match a ride's route,
+     * following its waypoints when it has them
+     */
+    public boolean doPointsMatchRide(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            Ride ride) {
         
-        return pickupOnRoute && dropOnRoute && correctOrder;
+        return !Double.isNaN(routeDetourKm(pickupLat, pickupLng, dropLat, dropLng, ride));
     }
     
     /**
-     * Calculate perpendicular distance from point to line segment
+     * Detour cost of serving pickup and drop on a ride's route: the summed distance (km)
+     * of both points from the route, or NaN when they do not match it
      */
-    private double perpendicularDistance(
-            double pointLat, double pointLng,
-            double lineStartLat, double lineStartLng,
-            double lineEndLat, double lineEndLng) {
-        
-        // Convert to radians
-        double lat1 = Math.toRadians(lineStartLat);
-        double lng1 = Math.toRadians(lineStartLng);
-        double lat2 = Math.toRadians(lineEndLat);
-        double lng2 = Math.toRadians(lineEndLng);
-        double latP = Math.toRadians(pointLat);
-        double lngP = Math.toRadians(pointLng);
-        
-        // Calculate distances
-        double d13 = calculateDistance(lineStartLat, lineStartLng, pointLat, pointLng);
-        double d23 = calculateDistance(lineEndLat, lineEndLng, pointLat, pointLng);
-        double d12 = calculateDistance(lineStartLat, lineStartLng, lineEndLat, lineEndLng);
+    public double routeDetourKm(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            Ride ride) {
         
-        // Handle edge cases
-        if (d12 < 0.001) { // Points are essentially the same
-            return d13;
+        PolylineRoute polyline = getPolylineRoute(ride);
+        if (polyline != null) {
+            return polyline.detourKm(pickupLat, pickupLng, dropLat, dropLng);
         }
+        return routeDetourKm(pickupLat, pickupLng, dropLat, dropLng, getRouteGeometry(ride));
+    }
+    
+    /**
+     * Check if both pickup and dropoff points match a precomputed route
+     */
+    public boolean doPointsMatchRoute(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            RouteGeometry route) {
         
-        // Use cross-track distance formula
-        double bearing13 = getBearing(lineStartLat, lineStartLng, pointLat, pointLng);
-        double bearing12 = getBearing(lineStartLat, lineStartLng, lineEndLat, lineEndLng);
+        return !Double.isNaN(routeDetourKm(pickupLat, pickupLng, dropLat, dropLng, route));
+    }
+    
+    /**
+     * Summed cross-track distance (km) of pickup and drop from a precomputed route,
+     * NaN unless both are within tolerance with the pickup before the drop
+     */
+    public double routeDetourKm(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            RouteGeometry route) {
         
-        double crossTrackDistance = Math.asin(
-            Math.sin(d13 / EARTH_RADIUS_KM) * 
-            Math.sin(bearing13 - bearing12)
-        ) * EARTH_RADIUS_KM;
+        // Check if pickup point is on route
+        double pickupLatRad = Math.toRadians(pickupLat);
+        double pickupCosLat = Math.cos(pickupLatRad);
+        double pickupLngRad = Math.toRadians(pickupLng);
+        double distToPickup = route.distanceFromStart(pickupLatRad, pickupCosLat, pickupLngRad, EARTH_RADIUS_KM);
+        double pickupOffset = perpendicularDistance(route, distToPickup, Math.sin(pickupLatRad), pickupCosLat, pickupLngRad);
+        if (pickupOffset > ROUTE_TOLERANCE_KM) {
+            return Double.NaN;
+        }
         
-        return Math.abs(crossTrackDistance);
+        // Check if drop point is on route
+        double dropLatRad = Math.toRadians(dropLat);
+        double dropCosLat = Math.cos(dropLatRad);
+        double dropLngRad = Math.toRadians(dropLng);
+        double distToDrop = route.distanceFromStart(dropLatRad, dropCosLat, dropLngRad, EARTH_RADIUS_KM);
+        double dropOffset = perpendicularDistance(route, distToDrop, Math.sin(dropLatRad), dropCosLat, dropLngRad);
+        if (dropOffset > ROUTE_TOLERANCE_KM) {
+            return Double.NaN;
+        }
+        
+        // Ensure pickup comes before drop along the route (pickup closer to start than drop)
+        return distToPickup < distToDrop ? pickupOffset + dropOffset : Double.NaN;
     }
     
     /**
-     * Calculate bearing between two points
+     * Precompute many routes at once into struct-of-arrays columns for batch matching
+     * Only the first count entries of each coordinate array are used
      */
-    private double getBearing(double lat1, double lng1, double lat2, double lng2) {
-        double dLng = Math.toRadians(lng2 - lng1);
-        lat1 = Math.toRadians(lat1);
-        lat2 = Math.toRadians(lat2);
+    public RouteColumns buildRouteColumns(
+            double[] routeStartLat, double[] routeStartLng,
+            double[] routeEndLat, double[] routeEndLng,
+            int count) {
         
-        double y = Math.sin(dLng) * Math.cos(lat2);
-        double x = Math.cos(lat1) * Math.sin(lat2) -
-                   Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLng);
+        double[] startLatRad = new double[count];
+        double[] startLngRad = new double[count];
+        double[] sinStartLat = new double[count];
+        double[] cosStartLat = new double[count];
+        double[] bearing = new double[count];
+        double[] lengthKm = new double[count];
         
-        return Math.atan2(y, x);
+        for (int i = 0; i < count; i++) {
+            RouteGeometry route = buildRouteGeometry(
+                routeStartLat[i], routeStartLng[i], routeEndLat[i], routeEndLng[i]);
+            startLatRad[i] = Math.toRadians(routeStartLat[i]);
+            startLngRad[i] = Math.toRadians(routeStartLng[i]);
+            sinStartLat[i] = Math.sin(startLatRad[i]);
+            cosStartLat[i] = Math.cos(startLatRad[i]);
+            bearing[i] = route.getBearing();
+            lengthKm[i] = route.getLengthKm();
+        }
+        
+        return new RouteColumns(count, startLatRad, startLngRad, sinStartLat, cosStartLat, bearing, lengthKm);
     }
     
     /**
-     * Check if pickup point comes before drop point along the route
+     * Match one pickup/drop pair against every route in the columns
+     * Sets bit i of matches (which must hold at least routes.bitsetWords() zeroed words)
+     * for every route i that doPointsMatchRoute would accept, and returns the match count.
      */
-    private boolean isPickupBeforeDrop(
+    public int matchRoutes(
             double pickupLat, double pickupLng,
             double dropLat, double dropLng,
-            double routeStartLat, double routeStartLng,
-            double routeEndLat, double routeEndLng) {
+            RouteColumns routes, long[] matches) {
         
-        // Calculate distances from route start to each point
-        double distToPickup = calculateDistance(routeStartLat, routeStartLng, pickupLat, pickupLng);
-        double distToDrop = calculateDistance(routeStartLat, routeStartLng, dropLat, dropLng);
+        return matchRoutes(pickupLat, pickupLng, dropLat, dropLng, routes, 0, routes.size, matches);
+    }
+    
+    /**
+     * Same as matchRoutes over the whole columns, restricted to routes [from, to)
+     * Allocation-free: all per-point trigonometry is hoisted out of the loop.
+     */
+    public int matchRoutes(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            RouteColumns routes, int from, int to, long[] matches) {
+        
+        double pLatRad = Math.toRadians(pickupLat);
+        double pLngRad = Math.toRadians(pickupLng);
+        double pSinLat = Math.sin(pLatRad);
+        double pCosLat = Math.cos(pLatRad);
+        double dLatRad = Math.toRadians(dropLat);
+        double dLngRad = Math.toRadians(dropLng);
+        double dSinLat = Math.sin(dLatRad);
+        double dCosLat = Math.cos(dLatRad);
         
-        // Pickup should be closer to start than drop
-        return distToPickup < distToDrop;
+        final double[] startLatRad = routes.startLatRad;
+        final double[] startLngRad = routes.startLngRad;
+        final double[] sinStartLat = routes.sinStartLat;
+        final double[] cosStartLat = routes.cosStartLat;
+        final double[] bearing = routes.bearing;
+        final double[] lengthKm = routes.lengthKm;
+        
+        int matched = 0;
+        for (int i = from; i < to; i++) {
+            double distToPickup = haversineRad(startLatRad[i], cosStartLat[i], startLngRad[i], pLatRad, pCosLat, pLngRad);
+            if (crossTrack(distToPickup, lengthKm[i], sinStartLat[i], cosStartLat[i], startLngRad[i], bearing[i],
+                    pSinLat, pCosLat, pLngRad) > ROUTE_TOLERANCE_KM) {
+                continue;
+            }
+            
+            double distToDrop = haversineRad(startLatRad[i], cosStartLat[i], startLngRad[i], dLatRad, dCosLat, dLngRad);
+            if (crossTrack(distToDrop, lengthKm[i], sinStartLat[i], cosStartLat[i], startLngRad[i], bearing[i],
+                    dSinLat, dCosLat, dLngRad) > ROUTE_TOLERANCE_KM) {
+                continue;
+            }
+            
+            if (distToPickup < distToDrop) {
+                matches[i >>> 6] |= 1L << i;
+                matched++;
+            }
+        }
+        return matched;
+    }
+    
+    private static double haversineRad(double lat1Rad, double cosLat1, double lng1Rad,
+                                       double lat2Rad, double cosLat2, double lng2Rad) {
+        double sinHalfDLat = Math.sin((lat2Rad - lat1Rad) / 2);
+        double sinHalfDLng = Math.sin((lng2Rad - lng1Rad) / 2);
+        double a = sinHalfDLat * sinHalfDLat + cosLat1 * cosLat2 * sinHalfDLng * sinHalfDLng;
+        return EARTH_RADIUS_KM * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+    
+    private static double crossTrack(double distanceFromStart, double routeLengthKm,
+                                     double sinStartLat, double cosStartLat, double startLngRad,
+                                     double routeBearing, double sinLat, double cosLat, double lngRad) {
+        if (routeLengthKm < 0.001) {
+            return distanceFromStart;
+        }
+        double dLng = lngRad - startLngRad;
+        double y = Math.sin(dLng) * cosLat;
+        double x = cosStartLat * sinLat - sinStartLat * cosLat * Math.cos(dLng);
+        double bearingToPoint = Math.atan2(y, x);
+        return Math.abs(Math.asin(Math.sin(distanceFromStart / EARTH_RADIUS_KM)
+                * Math.sin(bearingToPoint - routeBearing)) * EARTH_RADIUS_KM);
+    }
+    
+    /**
+     * Calculate perpendicular (cross-track) distance from a point to the route,
+     * given the point's precomputed distance from the route start
+     */
+    private double perpendicularDistance(
+            RouteGeometry route, double distanceFromStart,
+            double sinLat, double cosLat, double lngRad) {
+        
+        // Handle edge cases
+        if (route.getLengthKm() < 0.001) { // Points are essentially the same
+            return distanceFromStart;
+        }
+        
+        // Use cross-track distance formula
+        double bearingToPoint = route.bearingFromStart(sinLat, cosLat, lngRad);
+        
+        double crossTrackDistance = Math.asin(
+            Math.sin(distanceFromStart / EARTH_RADIUS_KM) * 
+            Math.sin(bearingToPoint - route.getBearing())
+        ) * EARTH_RADIUS_KM;
+        
+        return Math.abs(crossTrackDistance);
+    }
+    
+    private record CachedPolyline(byte[] encoded, PolylineRoute route) {
     }
     
     /**
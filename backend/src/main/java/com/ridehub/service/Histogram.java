@@ -0,0 +1,77 @@
+package com.ridehub.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free fixed-bucket histogram; percentiles are reported as bucket upper bounds
+ */
+final class Histogram {
+
+    static final long[] LATENCY_BOUNDS_MICROS = {
+            100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000
+    };
+
+    static final long[] COUNT_BOUNDS = {
+            0, 1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000
+    };
+
+    private final long[] bounds;
+    private final AtomicLongArray buckets;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram(long[] bounds) {
+        this.bounds = bounds;
+        this.buckets = new AtomicLongArray(bounds.length + 1);
+    }
+
+    void record(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        max.accumulateAndGet(value, Math::max);
+    }
+
+    long count() {
+        return count.get();
+    }
+
+    /**
+     * Summary with values divided by scale (e.g. 1000 to report micros as millis)
+     */
+    Map<String, Object> snapshot(double scale) {
+        long total = count.get();
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("count", total);
+        snapshot.put("mean", total == 0 ? 0.0 : sum.get() / scale / total);
+        snapshot.put("p50", percentile(total, 0.50) / scale);
+        snapshot.put("p95", percentile(total, 0.95) / scale);
+        snapshot.put("p99", percentile(total, 0.99) / scale);
+        snapshot.put("max", max.get() / scale);
+        return snapshot;
+    }
+
+    private long percentile(long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int bucket = 0; bucket < bounds.length; bucket++) {
+            seen += buckets.get(bucket);
+            if (seen >= rank) {
+                return Math.min(bounds[bucket], max.get());
+            }
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,196 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.model.RideLocationGram;
+import com.ridehub.repository.RideLocationGramRepository;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.LocationGrams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index-backed place-name matching for ride search
+ * Keeps the "either name contains the other" rule of the original LIKE query,
+ * but narrows candidates through the trigram table before any ride row is read.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LocationMatchingService {
+    
+    private static final int MIN_SCAN_BATCH = 50;
+    
+    private final RideRepository rideRepository;
+    private final RideLocationGramRepository gramRepository;
+    
+    @Value("${ridehub.rides.page-scan-budget:2000}")
+    private int pageScanBudget;
+    
+    /**
+     * Store the source and destination trigrams of a newly created ride
+     */
+    @Transactional
+    public void indexRide(Ride ride) {
+        List<RideLocationGram> grams = new ArrayList<>();
+        addGrams(grams, ride, RideLocationGram.Endpoint.SOURCE, ride.getSource());
+        addGrams(grams, ride, RideLocationGram.Endpoint.DESTINATION, ride.getDestination());
+        gramRepository.saveAll(grams);
+    }
+    
+    /**
+     * Available rides on the date whose source and destination match the query
+     * Falls back to the LIKE query when a query is too short to have a trigram
+     */
+    @Transactional(readOnly = true)
+    public List<Ride> findAvailableRides(String source, String destination, LocalDate date) {
+        String sourceKey = LocationGrams.normalize(source);
+        String destinationKey = LocationGrams.normalize(destination);
+        
+        if (!LocationGrams.isIndexable(sourceKey) || !LocationGrams.isIndexable(destinationKey)) {
+            return rideRepository.findAvailableRides(source, destination, date);
+        }
+        
+        List<Ride> candidates = rideRepository.findAvailableRidesByLocationGrams(
+                date,
+                LocationGrams.queryGrams(sourceKey), (long) LocationGrams.trigramCount(sourceKey),
+                LocationGrams.queryGrams(destinationKey), (long) LocationGrams.trigramCount(destinationKey));
+        
+        return candidates.stream()
+                .filter(ride -> LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                        && LocationGrams.eitherContains(ride.getDestination(), destinationKey))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Streaming form of findAvailableRides, in (rideTime, id) order
+     * Must be consumed and closed inside the caller's transaction.
+     */
+    @Transactional(readOnly = true)
+    public Stream<Ride> streamAvailableRides(String source, String destination, LocalDate date) {
+        String sourceKey = LocationGrams.normalize(source);
+        String destinationKey = LocationGrams.normalize(destination);
+        
+        if (!LocationGrams.isIndexable(sourceKey) || !LocationGrams.isIndexable(destinationKey)) {
+            return rideRepository.streamAvailableRides(source, destination, date);
+        }
+        
+        return rideRepository.streamAvailableRidesByLocationGrams(
+                date,
+                LocationGrams.queryGrams(sourceKey), (long) LocationGrams.trigramCount(sourceKey),
+                LocationGrams.queryGrams(destinationKey), (long) LocationGrams.trigramCount(destinationKey))
+                .filter(ride -> LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                        && LocationGrams.eitherContains(ride.getDestination(), destinationKey));
+    }
+    
+    /**
+     * Available rides between the dates (inclusive) whose source and destination match the query,
+     * ordered by (rideDate, rideTime, id); callers try the place registry first
+     */
+    @Transactional(readOnly = true)
+    public List<Ride> findAvailableRidesBetween(String source, String destination,
+                                                LocalDate fromDate, LocalDate toDate) {
+        String sourceKey = LocationGrams.normalize(source);
+        String destinationKey = LocationGrams.normalize(destination);
+        
+        if (!LocationGrams.isIndexable(sourceKey) || !LocationGrams.isIndexable(destinationKey)) {
+            return rideRepository.findAvailableRidesBetween(source, destination, fromDate, toDate);
+        }
+        
+        List<Ride> candidates = rideRepository.findAvailableRidesByLocationGramsBetween(
+                fromDate, toDate,
+                LocationGrams.queryGrams(sourceKey), (long) LocationGrams.trigramCount(sourceKey),
+                LocationGrams.queryGrams(destinationKey), (long) LocationGrams.trigramCount(destinationKey));
+        
+        return candidates.stream()
+                .filter(ride -> LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                        && LocationGrams.eitherContains(ride.getDestination(), destinationKey))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * One keyset page of a location search on a single date, ordered by (rideTime, id)
+     * Scans keyset batches until limit matches are found; a short page with hasMore only
+     * happens when the scan budget runs out first, and then resumes after the last scanned row.
+     */
+    @Transactional(readOnly = true)
+    public LocationPage findAvailableRidesPage(
+            String source, String destination, LocalDate date,
+            LocalTime afterTime, Long afterId, int limit) {
+        
+        String sourceKey = LocationGrams.normalize(source);
+        String destinationKey = LocationGrams.normalize(destination);
+        boolean indexable = LocationGrams.isIndexable(sourceKey) && LocationGrams.isIndexable(destinationKey);
+        Pageable batch = PageRequest.of(0, Math.max(limit + 1, MIN_SCAN_BATCH));
+        
+        // One match past the page tells whether another page exists
+        List<Ride> matching = new ArrayList<>(limit + 1);
+        Ride lastScanned = null;
+        int scannedRows = 0;
+        boolean exhausted = false;
+        while (matching.size() <= limit && scannedRows < pageScanBudget && !exhausted) {
+            LocalTime scanTime = lastScanned != null ? lastScanned.getRideTime() : afterTime;
+            Long scanId = lastScanned != null ? lastScanned.getId() : afterId;
+            List<Ride> scanned = indexable
+                    ? rideRepository.findAvailableRidesByLocationGramsAfter(
+                            date,
+                            LocationGrams.queryGrams(sourceKey), (long) LocationGrams.trigramCount(sourceKey),
+                            LocationGrams.queryGrams(destinationKey), (long) LocationGrams.trigramCount(destinationKey),
+                            scanTime, scanId, batch)
+                    : rideRepository.findAvailableRidesAfter(source, destination, date, scanTime, scanId, batch);
+            exhausted = scanned.size() < batch.getPageSize();
+            
+            for (Ride ride : scanned) {
+                lastScanned = ride;
+                scannedRows++;
+                if (LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                        && LocationGrams.eitherContains(ride.getDestination(), destinationKey)) {
+                    matching.add(ride);
+                    if (matching.size() > limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        
+        if (matching.size() > limit) {
+            List<Ride> page = matching.subList(0, limit);
+            return new LocationPage(page, page.get(limit - 1), true);
+        }
+        // Budget spent before the page filled: resume after the last row looked at
+        boolean hasMore = !exhausted;
+        return new LocationPage(matching, hasMore ? lastScanned : null, hasMore);
+    }
+    
+    /**
+     * resumeAfter is the row the next page continues after, null on the last page
+     */
+    public record LocationPage(List<Ride> rides, Ride resumeAfter, boolean hasMore) {
+    }
+    
+    private void addGrams(List<RideLocationGram> grams, Ride ride,
+                          RideLocationGram.Endpoint endpoint, String location) {
+        Set<String> distinctGrams = LocationGrams.storedGrams(LocationGrams.normalize(location));
+        for (String gram : distinctGrams) {
+            grams.add(RideLocationGram.builder()
+                    .rideId(ride.getId())
+                    .endpoint(endpoint)
+                    .rideDate(ride.getRideDate())
+                    .gram(gram)
+                    .gramCount(distinctGrams.size())
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.LocationGrams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of today's and tomorrow's bookable rides, grouped by source and destination
+ * Searches read immutable published days without locking; a change copies the day it touches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NearTermRideIndex {
+
+    private static final int DAYS = 2; // today and tomorrow
+
+    private static final Comparator<IndexedRide> DEPARTURE_ORDER = Comparator
+            .comparingInt(IndexedRide::secondOfDay)
+            .thenComparingLong(IndexedRide::rideId);
+
+    private static final IndexedRide[] NO_RIDES = new IndexedRide[0];
+
+    private final RideRepository rideRepository;
+
+    // Replaced as a whole on every change, never modified once published
+    private volatile Map<LocalDate, Day> days = Map.of();
+    // Writer state, guarded by this
+    private final Map<Long, IndexedRide> indexedRides = new HashMap<>();
+    // Dates being loaded -> ride events seen meanwhile, replayed once the day is published
+    private final Map<LocalDate, List<RideChangedEvent>> pendingByDate = new HashMap<>();
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        roll(LocalDate.now());
+        ready = true;
+        log.info("[NearTermRideIndex] Indexed {} rides for {}", size(), days.keySet());
+    }
+
+    /**
+     * Move the window to the new day just after midnight
+     */
+    @Scheduled(cron = "0 0 0 * * *")
+    @Transactional(readOnly = true)
+    public void rollOver() {
+        roll(LocalDate.now());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(RideChangedEvent.INDEX_ORDER)
+    public synchronized void onRideChanged(RideChangedEvent event) {
+        List<RideChangedEvent> pending = pendingByDate.get(event.getRide().getRideDate());
+        if (pending != null) {
+            pending.add(event);
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(RideChangedEvent event) {
+        Ride ride = event.getRide();
+        if (event.isBookable()) {
+            add(ride);
+        } else {
+            remove(ride.getId());
+        }
+    }
+
+    /**
+     * Whether searches on the date can be answered from the index
+     */
+    public boolean covers(LocalDate date) {
+        return ready && days.containsKey(date);
+    }
+
+    public int size() {
+        return days.values().stream().mapToInt(Day::size).sum();
+    }
+
+    /**
+     * Ids of indexed rides on the date whose endpoints match the query, in (rideTime, id) order
+     */
+    public List<Long> findRideIds(String source, String destination, LocalDate date) {
+        Day day = days.get(date);
+        if (day == null) {
+            return List.of();
+        }
+
+        String sourceKey = LocationGrams.normalize(source);
+        String destinationKey = LocationGrams.normalize(destination);
+
+        // Destinations are only compared for the sources that match
+        List<IndexedRide[]> routes = new ArrayList<>();
+        int total = 0;
+        for (Map.Entry<String, Map<String, IndexedRide[]>> bySource : day.routes().entrySet()) {
+            if (!eitherContains(bySource.getKey(), sourceKey)) {
+                continue;
+            }
+            for (Map.Entry<String, IndexedRide[]> route : bySource.getValue().entrySet()) {
+                if (eitherContains(route.getKey(), destinationKey)) {
+                    routes.add(route.getValue());
+                    total += route.getValue().length;
+                }
+            }
+        }
+
+        List<IndexedRide> matches = new ArrayList<>(total);
+        routes.forEach(rides -> Collections.addAll(matches, rides));
+        if (routes.size() > 1) {
+            matches.sort(DEPARTURE_ORDER);
+        }
+
+        List<Long> rideIds = new ArrayList<>(matches.size());
+        matches.forEach(ride -> rideIds.add(ride.rideId()));
+        return rideIds;
+    }
+
+    /**
+     * Drop past days and load the missing ones outside the lock; each new day is built
+     * completely, then published together with the events that arrived during the load
+     */
+    private void roll(LocalDate today) {
+        List<LocalDate> missing = new ArrayList<>();
+        synchronized (this) {
+            Map<LocalDate, Day> current = new HashMap<>(days);
+            current.keySet().removeIf(date -> date.isBefore(today));
+            days = current;
+            indexedRides.values().removeIf(ride -> ride.date().isBefore(today));
+            for (int i = 0; i < DAYS; i++) {
+                LocalDate date = today.plusDays(i);
+                if (!current.containsKey(date) && !pendingByDate.containsKey(date)) {
+                    pendingByDate.put(date, new ArrayList<>());
+                    missing.add(date);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<LocalDate, List<IndexedRide>> loaded = new HashMap<>();
+        try {
+            missing.forEach(date -> loaded.put(date, new ArrayList<>()));
+            for (Ride ride : rideRepository.findAvailableRidesOnDates(missing.get(0), missing.get(missing.size() - 1))) {
+                List<IndexedRide> rides = loaded.get(ride.getRideDate());
+                IndexedRide indexed = toIndexed(ride);
+                if (rides != null && indexed != null) {
+                    rides.add(indexed);
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                missing.forEach(pendingByDate::remove);
+            }
+            throw e;
+        }
+
+        Map<LocalDate, Day> built = new HashMap<>();
+        loaded.forEach((date, rides) -> built.put(date, Day.of(rides)));
+        synchronized (this) {
+            Map<LocalDate, Day> current = new HashMap<>(days);
+            current.putAll(built);
+            days = current;
+            loaded.values().forEach(rides -> rides.forEach(ride -> indexedRides.put(ride.rideId(), ride)));
+            // Replayed in arrival order, so each ride ends in the state of its latest event
+            missing.forEach(date -> pendingByDate.remove(date).forEach(this::apply));
+        }
+    }
+
+    private void add(Ride ride) {
+        Day day = days.get(ride.getRideDate());
+        IndexedRide indexed = toIndexed(ride);
+        if (day == null || indexed == null || indexedRides.containsKey(indexed.rideId())) {
+            return; // endpoints and departure never change once a ride is created
+        }
+        publish(indexed.date(), day.with(indexed));
+        indexedRides.put(indexed.rideId(), indexed);
+    }
+
+    private void remove(Long rideId) {
+        IndexedRide indexed = indexedRides.remove(rideId);
+        if (indexed == null) {
+            return;
+        }
+        Day day = days.get(indexed.date());
+        if (day != null) {
+            publish(indexed.date(), day.without(indexed));
+        }
+    }
+
+    private void publish(LocalDate date, Day day) {
+        Map<LocalDate, Day> current = new HashMap<>(days);
+        current.put(date, day);
+        days = current;
+    }
+
+    private static IndexedRide toIndexed(Ride ride) {
+        if (ride.getId() == null || ride.getRideTime() == null) {
+            return null;
+        }
+        return new IndexedRide(ride.getId(), ride.getRideDate(), LocationGrams.normalize(ride.getSource()),
+                LocationGrams.normalize(ride.getDestination()), ride.getRideTime().toSecondOfDay());
+    }
+
+    private static boolean eitherContains(String rideKey, String queryKey) {
+        return rideKey.contains(queryKey) || queryKey.contains(rideKey);
+    }
+
+    /**
+     * One day's rides: source -> destination -> departure-ordered rides
+     * with and without return a copy that shares every route they do not touch.
+     */
+    private record Day(Map<String, Map<String, IndexedRide[]>> routes, int size) {
+
+        static Day of(List<IndexedRide> rides) {
+            Map<String, Map<String, List<IndexedRide>>> grouped = new HashMap<>();
+            for (IndexedRide ride : rides) {
+                grouped.computeIfAbsent(ride.source(), key -> new HashMap<>())
+                        .computeIfAbsent(ride.destination(), key -> new ArrayList<>())
+                        .add(ride);
+            }
+            Map<String, Map<String, IndexedRide[]>> routes = new HashMap<>();
+            grouped.forEach((source, destinations) -> {
+                Map<String, IndexedRide[]> sorted = new HashMap<>();
+                destinations.forEach((destination, route) -> {
+                    IndexedRide[] array = route.toArray(NO_RIDES);
+                    Arrays.sort(array, DEPARTURE_ORDER);
+                    sorted.put(destination, array);
+                });
+                routes.put(source, sorted);
+            });
+            return new Day(routes, rides.size());
+        }
+
+        Day with(IndexedRide ride) {
+            IndexedRide[] current = route(ride);
+            int position = Arrays.binarySearch(current, ride, DEPARTURE_ORDER);
+            if (position >= 0) {
+                return this;
+            }
+            int insertAt = -position - 1;
+            IndexedRide[] next = new IndexedRide[current.length + 1];
+            System.arraycopy(current, 0, next, 0, insertAt);
+            next[insertAt] = ride;
+            System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+            return withRoute(ride, next, size + 1);
+        }
+
+        Day without(IndexedRide ride) {
+            IndexedRide[] current = route(ride);
+            int position = Arrays.binarySearch(current, ride, DEPARTURE_ORDER);
+            if (position < 0) {
+                return this;
+            }
+            IndexedRide[] next = new IndexedRide[current.length - 1];
+            System.arraycopy(current, 0, next, 0, position);
+            System.arraycopy(current, position + 1, next, position, next.length - position);
+            return withRoute(ride, next, size - 1);
+        }
+
+        private IndexedRide[] route(IndexedRide ride) {
+            return routes.getOrDefault(ride.source(), Map.of()).getOrDefault(ride.destination(), NO_RIDES);
+        }
+
+        private Day withRoute(IndexedRide ride, IndexedRide[] rides, int newSize) {
+            Map<String, IndexedRide[]> destinations = new HashMap<>(routes.getOrDefault(ride.source(), Map.of()));
+            if (rides.length == 0) {
+                destinations.remove(ride.destination());
+            } else {
+                destinations.put(ride.destination(), rides);
+            }
+            Map<String, Map<String, IndexedRide[]>> copy = new HashMap<>(routes);
+            if (destinations.isEmpty()) {
+                copy.remove(ride.source());
+            } else {
+                copy.put(ride.source(), destinations);
+            }
+            return new Day(copy, newSize);
+        }
+    }
+
+    private record IndexedRide(long rideId, LocalDate date, String source, String destination, int secondOfDay) {
+    }
+}
@@ -338,6 +338,30 @@ public class NotificationService {
         );
     }
     
+    public void sendSavedSearchMatchNotification(User passenger, Ride ride, Long savedSearchId) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("rideId", ride.getId());
+        data.put("savedSearchId", savedSearchId);
+        data.put("rideDate", ride.getRideDate().toString());
+        data.put("rideTime", ride.getRideTime().toString());
+        
+        NotificationMessage notification = NotificationMessage.builder()
+                .type("SAVED_SEARCH_MATCH")
+                .title("New Ride Matches Your Search")
+                .message(String.format(
+                    "A new ride from %s to %s on %s at %s matches your saved search.",
+                    ride.getSource(), ride.getDestination(), ride.getRideDate(), ride.getRideTime()))
+                .data(data)
+                .timestamp(LocalDateTime.now().format(formatter))
+                .build();
+        
+        messagingTemplate.convertAndSendToUser(
+                passenger.getEmail(),
+                "/queue/notifications",
+                notification
+        );
+    }
+    
     public void sendOnboardedNotification(User passenger, Ride ride) {
         Map<String, Object> data = new HashMap<>();
         data.put("rideId", ride.getId());
@@ -0,0 +1,122 @@
+package com.ridehub.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Batch route matching split across a dedicated fork-join pool
+ * Leaves cover whole 64-route bitset words, so workers never write the same word.
+ */
+@Service
+@Slf4j
+public class ParallelRouteMatcher {
+
+    private static final int MIN_LEAF_SIZE = 256;
+    private static final int LEAVES_PER_THREAD = 4;
+
+    private final GeospatialService geospatialService;
+    private final ForkJoinPool pool;
+    private final int parallelThreshold;
+
+    public ParallelRouteMatcher(GeospatialService geospatialService,
+                                @Value("${ridehub.matching.parallelism:0}") int parallelism,
+                                @Value("${ridehub.matching.parallel-threshold:2048}") int parallelThreshold) {
+        this.geospatialService = geospatialService;
+        this.parallelThreshold = parallelThreshold;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("route-matcher-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Same contract as {@link GeospatialService#matchRoutes(double, double, double, double, RouteColumns, long[])}
+     */
+    public int matchRoutes(
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng,
+            RouteColumns routes, long[] matches) {
+
+        int size = routes.size();
+        if (size < parallelThreshold || pool.getParallelism() < 2) {
+            return geospatialService.matchRoutes(pickupLat, pickupLng, dropLat, dropLng, routes, matches);
+        }
+
+        int leafSize = leafSize(size);
+        return pool.invoke(new MatchTask(pickupLat, pickupLng, dropLat, dropLng, routes, matches, 0, size, leafSize));
+    }
+
+    /**
+     * Enough leaves to keep every worker busy while stealing, rounded up to whole bitset words
+     */
+    private int leafSize(int size) {
+        int leaf = Math.max(MIN_LEAF_SIZE, size / (pool.getParallelism() * LEAVES_PER_THREAD));
+        return (leaf + 63) & ~63;
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
+    private class MatchTask extends RecursiveTask<Integer> {
+
+        private final double pickupLat;
+        private final double pickupLng;
+        private final double dropLat;
+        private final double dropLng;
+        private final RouteColumns routes;
+        private final long[] matches;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        MatchTask(double pickupLat, double pickupLng, double dropLat, double dropLng,
+                  RouteColumns routes, long[] matches, int from, int to, int leafSize) {
+            this.pickupLat = pickupLat;
+            this.pickupLng = pickupLng;
+            this.dropLat = dropLat;
+            this.dropLng = dropLng;
+            this.routes = routes;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (to - from <= leafSize) {
+                return geospatialService.matchRoutes(
+                        pickupLat, pickupLng, dropLat, dropLng, routes, from, to, matches);
+            }
+
+            // Split on a word boundary so both halves own disjoint bitset words
+            int mid = (from + (to - from) / 2) & ~63;
+            if (mid <= from) {
+                mid = from + 64;
+            }
+            MatchTask left = new MatchTask(pickupLat, pickupLng, dropLat, dropLng, routes, matches, from, mid, leafSize);
+            MatchTask right = new MatchTask(pickupLat, pickupLng, dropLat, dropLng, routes, matches, mid, to, leafSize);
+            left.fork();
+            int rightMatches = right.compute();
+            return left.join() + rightMatches;
+        }
+    }
+}
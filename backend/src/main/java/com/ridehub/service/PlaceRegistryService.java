@@ -0,0 +1,189 @@
+package com.ridehub.service;
+
+import com.ridehub.model.PlaceAlias;
+import com.ridehub.repository.PlaceAliasRepository;
+import com.ridehub.repository.PlaceRepository;
+import com.ridehub.util.LocationGrams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Canonical place registry with an in-memory alias map and alias trigram index
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlaceRegistryService {
+    
+    /** Above this many matching places a search uses the name search instead of an IN list */
+    public static final int MAX_MATCHING_PLACES = 64;
+    
+    private final PlaceRepository placeRepository;
+    private final PlaceAliasRepository placeAliasRepository;
+    
+    private final Map<String, Long> placeIdByAlias = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> aliasesByGram = new ConcurrentHashMap<>();
+    private long lastAliasId = 0;
+    private volatile boolean ridesResolved = false;
+    
+    /**
+     * Load the alias map before the ride backfill resolves older rides
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadAliases() {
+        reloadAliases();
+        log.info("[PlaceRegistryService] Loaded {} place aliases", placeIdByAlias.size());
+    }
+    
+    /**
+     * Pick up aliases added since the last load, including those registered on other instances
+     */
+    @Scheduled(fixedDelayString = "${ridehub.places.alias-reload-ms:60000}")
+    public synchronized void reloadAliases() {
+        for (PlaceAlias alias : placeAliasRepository.findByIdGreaterThanOrderByIdAsc(lastAliasId)) {
+            register(alias.getAlias(), alias.getPlaceId());
+            lastAliasId = Math.max(lastAliasId, alias.getId());
+        }
+    }
+    
+    /**
+     * Called once every ride has its place ids, from then on searches may rely on them
+     */
+    public void markRidesResolved() {
+        ridesResolved = true;
+    }
+    
+    public boolean isReady() {
+        return ridesResolved;
+    }
+    
+    /**
+     * Id of the place the name refers to, null when it is not registered
+     */
+    public Long resolve(String name) {
+        String alias = LocationGrams.normalize(name);
+        Long placeId = placeIdByAlias.get(alias);
+        if (placeId == null) {
+            // Registered on another instance since the last reload
+            placeId = placeAliasRepository.findByAlias(alias).map(PlaceAlias::getPlaceId).orElse(null);
+            if (placeId != null) {
+                register(alias, placeId);
+            }
+        }
+        return placeId;
+    }
+    
+    /**
+     * Id of the place the name refers to, registering a new place in the caller's transaction when it is unknown
+     */
+    @Transactional
+    public Long resolveOrRegister(String name, Double lat, Double lng) {
+        Long placeId = resolve(name);
+        if (placeId != null) {
+            return placeId;
+        }
+        
+        String alias = LocationGrams.normalize(name);
+        // Concurrent registrations of the same name serialize on the unique keys instead of failing
+        placeRepository.insertIfAbsent(name.trim(), alias, lat, lng);
+        Long newPlaceId = placeRepository.findIdByNormalizedName(alias)
+                .orElseThrow(() -> new RuntimeException("Place '" + alias + "' was not registered"));
+        placeAliasRepository.insertIfAbsent(newPlaceId, alias);
+        Long registeredId = placeAliasRepository.findByAlias(alias)
+                .map(PlaceAlias::getPlaceId)
+                .orElseThrow(() -> new RuntimeException("Alias '" + alias + "' was not registered"));
+        log.info("[PlaceRegistryService] Registered place #{} '{}'", registeredId, alias);
+        
+        // Kept out of memory until the place is committed, so a rollback leaves no dangling id
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                register(alias, registeredId);
+            }
+        });
+        return registeredId;
+    }
+    
+    /**
+     * Make another name resolve to an existing place
+     */
+    public void addAlias(Long placeId, String name) {
+        String alias = LocationGrams.normalize(name);
+        if (alias.isEmpty()) {
+            throw new RuntimeException("Alias cannot be empty");
+        }
+        if (!placeRepository.existsById(placeId)) {
+            throw new RuntimeException("Place not found");
+        }
+        Long existing = resolve(alias);
+        if (existing != null) {
+            if (existing.equals(placeId)) {
+                return;
+            }
+            throw new RuntimeException("Alias already refers to place #" + existing);
+        }
+        
+        placeAliasRepository.save(PlaceAlias.builder().placeId(placeId).alias(alias).build());
+        register(alias, placeId);
+    }
+    
+    /**
+     * Places with an alias that contains the name or is contained in it, or null when
+     * more than MAX_MATCHING_PLACES match
+     */
+    public Set<Long> findMatchingPlaceIds(String query) {
+        String key = LocationGrams.normalize(query);
+        Collection<String> candidates = LocationGrams.isIndexable(key) ? candidateAliases(key) : placeIdByAlias.keySet();
+        Set<Long> placeIds = new HashSet<>();
+        for (String alias : candidates) {
+            if (alias.contains(key) || key.contains(alias)) {
+                placeIds.add(placeIdByAlias.get(alias));
+                if (placeIds.size() > MAX_MATCHING_PLACES) {
+                    return null;
+                }
+            }
+        }
+        return placeIds;
+    }
+    
+    /**
+     * Aliases sharing a query gram with the key: every alias containing the key shares its
+     * trigrams, and every alias inside the key is stored under one of the key's grams
+     */
+    private Set<String> candidateAliases(String key) {
+        Set<String> candidates = new HashSet<>();
+        for (String gram : LocationGrams.queryGrams(key)) {
+            Set<String> aliases = aliasesByGram.get(gram);
+            if (aliases != null) {
+                candidates.addAll(aliases);
+            }
+        }
+        return candidates;
+    }
+    
+    private void register(String alias, Long placeId) {
+        // The map entry goes first, so an alias found through the gram index always resolves
+        if (placeIdByAlias.putIfAbsent(alias, placeId) != null) {
+            return;
+        }
+        for (String gram : LocationGrams.storedGrams(alias)) {
+            aliasesByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(alias);
+        }
+    }
+}
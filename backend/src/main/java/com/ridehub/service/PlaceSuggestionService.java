@@ -0,0 +1,158 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.LocationGrams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory prefix trie of place names used as ride sources and destinations
+ * Every node keeps its TOP_K most frequent names, so suggestions never touch the database.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PlaceSuggestionService {
+
+    private static final int TOP_K = 10;
+
+    private static final Comparator<Place> BY_FREQUENCY = Comparator
+            .comparingLong((Place place) -> place.count).reversed()
+            .thenComparing(place -> place.key);
+
+    private final RideRepository rideRepository;
+
+    private final Node root = new Node();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        List<Object[]> counts = new ArrayList<>(rideRepository.countRidesBySource());
+        counts.addAll(rideRepository.countRidesByDestination());
+
+        lock.writeLock().lock();
+        try {
+            counts.forEach(row -> add((String) row[0], ((Number) row[1]).longValue()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("[PlaceSuggestionService] Loaded {} place name counts", counts.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        if (event.getChangeType() != RideChangedEvent.ChangeType.CREATED) {
+            return;
+        }
+        Ride ride = event.getRide();
+        lock.writeLock().lock();
+        try {
+            add(ride.getSource(), 1);
+            add(ride.getDestination(), 1);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Most frequent place names starting with the prefix (case-insensitive), most used first
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String key = LocationGrams.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+
+            int count = Math.max(0, Math.min(limit, node.top.size()));
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add(node.top.get(i).name);
+            }
+            return names;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Add occurrences of a place name; caller holds the write lock
+     */
+    private void add(String name, long occurrences) {
+        if (name == null || name.isBlank()) {
+            return;
+        }
+        String displayName = name.trim();
+        String key = LocationGrams.normalize(displayName);
+
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+            path.add(node);
+        }
+
+        if (node.place == null) {
+            node.place = new Place(key, displayName);
+        }
+        Place place = node.place;
+        place.count += occurrences;
+
+        // Counts only grow, so a place can only enter a node's top list by beating its last entry
+        for (Node onPath : path) {
+            List<Place> top = onPath.top;
+            if (!top.contains(place)) {
+                if (top.size() < TOP_K) {
+                    top.add(place);
+                } else if (BY_FREQUENCY.compare(place, top.get(top.size() - 1)) < 0) {
+                    top.set(top.size() - 1, place);
+                } else {
+                    continue;
+                }
+            }
+            top.sort(BY_FREQUENCY);
+        }
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final List<Place> top = new ArrayList<>(2);
+        private Place place;
+    }
+
+    private static final class Place {
+        private final String key;
+        private final String name;
+        private long count;
+
+        private Place(String key, String name) {
+            this.key = key;
+            this.name = name;
+        }
+    }
+}
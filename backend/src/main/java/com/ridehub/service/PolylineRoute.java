@@ -0,0 +1,161 @@
+package com.ridehub.service;
+
+import com.ridehub.util.GeoGrid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, precomputed geometry of a multi-segment route
+ * A grid maps each cell to the segments within tolerance of it, so a point is only checked against nearby segments.
+ */
+public final class PolylineRoute {
+
+    private static final double CELL_SIZE_DEG = 0.02; // ~2km cells
+
+    private final double[] vertices;         // interleaved lat, lng
+    private final RouteGeometry[] segments;
+    private final double[] startKm;          // route distance at the start of each segment
+    private final Map<Long, int[]> segmentsByCell;
+    private final double earthRadiusKm;
+    private final double toleranceKm;
+
+    private PolylineRoute(double[] vertices, double earthRadiusKm, double toleranceKm) {
+        this.vertices = vertices;
+        this.earthRadiusKm = earthRadiusKm;
+        this.toleranceKm = toleranceKm;
+
+        int count = vertices.length / 2 - 1;
+        this.segments = new RouteGeometry[count];
+        this.startKm = new double[count];
+
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        double km = 0;
+        for (int i = 0; i < count; i++) {
+            double lat1 = vertices[2 * i];
+            double lng1 = vertices[2 * i + 1];
+            double lat2 = vertices[2 * i + 2];
+            double lng2 = vertices[2 * i + 3];
+
+            segments[i] = RouteGeometry.of(lat1, lng1, lat2, lng2, earthRadiusKm);
+            startKm[i] = km;
+            km += segments[i].getLengthKm();
+
+            for (Long cell : GeoGrid.corridorCells(lat1, lng1, lat2, lng2, toleranceKm, CELL_SIZE_DEG)) {
+                cells.computeIfAbsent(cell, key -> new ArrayList<>()).add(i);
+            }
+        }
+
+        this.segmentsByCell = new HashMap<>(cells.size() * 4 / 3 + 1);
+        cells.forEach((cell, indexes) ->
+                segmentsByCell.put(cell, indexes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    static PolylineRoute of(double[] vertices, double earthRadiusKm, double toleranceKm) {
+        if (vertices.length < 4) {
+            throw new IllegalArgumentException("A route needs at least two vertices");
+        }
+        return new PolylineRoute(vertices, earthRadiusKm, toleranceKm);
+    }
+
+    /**
+     * Vertices as interleaved lat, lng pairs (do not modify)
+     */
+    double[] vertices() {
+        return vertices;
+    }
+
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    public double getLengthKm() {
+        int last = segments.length - 1;
+        return startKm[last] + segments[last].getLengthKm();
+    }
+
+    /**
+     * Whether both points lie within the tolerance of the route, the pickup before the drop
+     * On looping routes the earliest position near the pickup and the latest near the drop are used.
+     */
+    public boolean matches(double pickupLat, double pickupLng, double dropLat, double dropLng) {
+        return !Double.isNaN(detourKm(pickupLat, pickupLng, dropLat, dropLng));
+    }
+
+    /**
+     * Summed distance (km) of the pickup and drop from the route at the positions
+     * matches uses, NaN when the points do not match
+     */
+    public double detourKm(double pickupLat, double pickupLng, double dropLat, double dropLng) {
+        Position pickup = positionAlongRoute(pickupLat, pickupLng, true);
+        if (pickup == null) {
+            return Double.NaN;
+        }
+        Position drop = positionAlongRoute(dropLat, dropLng, false);
+        if (drop == null || pickup.routeKm() >= drop.routeKm()) {
+            return Double.NaN;
+        }
+        return pickup.offRouteKm() + drop.offRouteKm();
+    }
+
+    /**
+     * First or last position within tolerance of the point, null if none
+     */
+    private Position positionAlongRoute(double lat, double lng, boolean first) {
+        int[] candidates = segmentsByCell.get(GeoGrid.cellOf(lat, lng, CELL_SIZE_DEG));
+        if (candidates == null) {
+            return null;
+        }
+
+        double latRad = Math.toRadians(lat);
+        double sinLat = Math.sin(latRad);
+        double cosLat = Math.cos(latRad);
+        double lngRad = Math.toRadians(lng);
+
+        Position best = null;
+        for (int index : candidates) {
+            RouteGeometry segment = segments[index];
+            double fromStart = segment.distanceFromStart(latRad, cosLat, lngRad, earthRadiusKm);
+            double length = segment.getLengthKm();
+
+            double distance;
+            double along;
+            if (length < 0.001) {
+                distance = fromStart;
+                along = 0;
+            } else {
+                double angular = fromStart / earthRadiusKm;
+                double bearingDiff = segment.bearingFromStart(sinLat, cosLat, lngRad) - segment.getBearing();
+                double crossAngular = Math.asin(Math.sin(angular) * Math.sin(bearingDiff));
+                along = Math.acos(Math.min(1.0, Math.cos(angular) / Math.cos(crossAngular))) * earthRadiusKm;
+                if (Math.cos(bearingDiff) < 0) {
+                    along = -along;
+                }
+
+                // Clamp to the segment: beyond either end the nearest point is that vertex
+                if (along <= 0) {
+                    distance = fromStart;
+                    along = 0;
+                } else if (along >= length) {
+                    distance = segment.distanceFromEnd(latRad, cosLat, lngRad, earthRadiusKm);
+                    along = length;
+                } else {
+                    distance = Math.abs(crossAngular) * earthRadiusKm;
+                }
+            }
+
+            if (distance <= toleranceKm) {
+                double position = startKm[index] + along;
+                if (best == null || (first ? position < best.routeKm() : position > best.routeKm())) {
+                    best = new Position(position, distance);
+                }
+            }
+        }
+        return best;
+    }
+
+    private record Position(double routeKm, double offRouteKm) {
+    }
+}
@@ -0,0 +1,304 @@
+package com.ridehub.service;
+
+import com.ridehub.config.RetryOnConflict;
+import com.ridehub.dto.CreateRecurringRideRequest;
+import com.ridehub.dto.RecurringRideResponse;
+import com.ridehub.model.RecurringRideTemplate;
+import com.ridehub.model.Ride;
+import com.ridehub.model.User;
+import com.ridehub.repository.RecurringRideTemplateRepository;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.repository.UserRepository;
+import com.ridehub.util.Geohash;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Recurring ride templates, offered to searches as virtual rides
+ * A Ride row is only written when the first passenger books a template's date.
+ */
+@Service
+@Slf4j
+public class RecurringRideService {
+    
+    private final RecurringRideTemplateRepository templateRepository;
+    private final RideRepository rideRepository;
+    private final UserRepository userRepository;
+    private final GeospatialService geospatialService;
+    private final LocationMatchingService locationMatchingService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PlaceRegistryService placeRegistryService;
+    private final RideSearchCache rideSearchCache;
+    private final TransactionTemplate newTransaction;
+    
+    public RecurringRideService(RecurringRideTemplateRepository templateRepository,
+                                RideRepository rideRepository,
+                                UserRepository userRepository,
+                                GeospatialService geospatialService,
+                                LocationMatchingService locationMatchingService,
+                                ApplicationEventPublisher eventPublisher,
+                                PlaceRegistryService placeRegistryService,
+                                RideSearchCache rideSearchCache,
+                                PlatformTransactionManager transactionManager) {
+        this.templateRepository = templateRepository;
+        this.rideRepository = rideRepository;
+        this.userRepository = userRepository;
+        this.geospatialService = geospatialService;
+        this.locationMatchingService = locationMatchingService;
+        this.eventPublisher = eventPublisher;
+        this.placeRegistryService = placeRegistryService;
+        this.rideSearchCache = rideSearchCache;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+    
+    private User getCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
+    @Transactional
+    public RecurringRideResponse createTemplate(CreateRecurringRideRequest request) {
+        User driver = getCurrentUser();
+        if (driver.getRole() != User.Role.DRIVER) {
+            throw new RuntimeException("Only drivers can create rides");
+        }
+        
+        LocalDate startDate = LocalDate.parse(request.getStartDate());
+        LocalDate endDate = request.getEndDate() != null ? LocalDate.parse(request.getEndDate()) : null;
+        if (startDate.isBefore(LocalDate.now())) {
+            throw new RuntimeException("Start date cannot be in the past");
+        }
+        if (endDate != null && endDate.isBefore(startDate)) {
+            throw new RuntimeException("End date cannot be before start date");
+        }
+        
+        geospatialService.validateRouteLength(
+                request.getSourceLat(), request.getSourceLng(), request.getWaypoints(),
+                request.getDestLat(), request.getDestLng());
+        
+        int days = 0;
+        for (String day : request.getDaysOfWeek()) {
+            days |= RecurringRideTemplate.dayBit(DayOfWeek.valueOf(day.trim().toUpperCase(Locale.ROOT)));
+        }
+        
+        RecurringRideTemplate template = templateRepository.save(RecurringRideTemplate.builder()
+                .driver(driver)
+                .source(request.getSource())
+                .destination(request.getDestination())
+                .rideTime(LocalTime.parse(request.getRideTime()))
+                .daysOfWeek(days)
+                .startDate(startDate)
+                .endDate(endDate)
+                .totalSeats(request.getTotalSeats())
+                .farePerKm(request.getFarePerKm())
+                .distance(request.getDistance())
+                .sourceLat(request.getSourceLat())
+                .sourceLng(request.getSourceLng())
+                .destLat(request.getDestLat())
+                .destLng(request.getDestLng())
+                .routePolyline(geospatialService.encodeRoutePolyline(
+                        request.getSourceLat(), request.getSourceLng(), request.getWaypoints(),
+                        request.getDestLat(), request.getDestLng()))
+                .active(true)
+                .build());
+        log.info("[RecurringRideService] Driver {} created recurring template #{}: {} -> {}",
+                driver.getId(), template.getId(), template.getSource(), template.getDestination());
+        
+        // Cached searches were computed without the new template's rides
+        afterCommit(rideSearchCache::clear);
+        return mapToResponse(template);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<RecurringRideResponse> getMyTemplates() {
+        User driver = getCurrentUser();
+        return templateRepository.findByDriverIdOrderByCreatedAtDesc(driver.getId()).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Stop offering the template; its unbooked future rides are cancelled, booked ones stay with the driver
+     */
+    @RetryOnConflict
+    @Transactional
+    public void deactivateTemplate(Long templateId) {
+        User driver = getCurrentUser();
+        RecurringRideTemplate template = templateRepository.findById(templateId)
+                .orElseThrow(() -> new RuntimeException("Recurring ride not found"));
+        if (!template.getDriver().getId().equals(driver.getId())) {
+            throw new RuntimeException("You can only stop your own recurring rides");
+        }
+        template.setActive(false);
+        templateRepository.save(template);
+        
+        int cancelled = 0;
+        for (Ride ride : rideRepository.findByTemplateIdAndRideDateGreaterThanEqual(templateId, LocalDate.now())) {
+            if (ride.getStatus() == Ride.RideStatus.AVAILABLE && ride.getAvailableSeats().equals(ride.getTotalSeats())) {
+                ride.setStatus(Ride.RideStatus.CANCELLED);
+                // Flushed so a booking that took a seat meanwhile conflicts here
+                rideRepository.saveAndFlush(ride);
+                eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
+                cancelled++;
+            }
+        }
+        log.info("[RecurringRideService] Template #{} stopped, {} unbooked rides cancelled", templateId, cancelled);
+        afterCommit(rideSearchCache::clear);
+    }
+    
+    /**
+     * Unsaved rides of the active templates running on the date that have no ride yet and pass the filter
+     * They carry their templateId and no id; booking one calls materializeForBooking.
+     */
+    @Transactional(readOnly = true)
+    public List<Ride> findVirtualRides(LocalDate date, Predicate<Ride> matches) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RecurringRideTemplate> running = templateRepository.findActiveOn(date).stream()
+                .filter(template -> template.runsOn(date)
+                        && !LocalDateTime.of(date, template.getRideTime()).isBefore(now))
+                .collect(Collectors.toList());
+        if (running.isEmpty()) {
+            return List.of();
+        }
+        
+        // A template's date that already has a ride, even a cancelled one, is served by that row
+        Set<Long> existing = new HashSet<>(rideRepository.findMaterializedTemplateIds(
+                date, running.stream().map(RecurringRideTemplate::getId).collect(Collectors.toList())));
+        List<Ride> rides = new ArrayList<>();
+        for (RecurringRideTemplate template : running) {
+            if (existing.contains(template.getId())) {
+                continue;
+            }
+            Ride ride = toRide(template, date);
+            if (matches.test(ride)) {
+                rides.add(ride);
+            }
+        }
+        return rides;
+    }
+    
+    /**
+     * Id of the template's ride on the date, saving it in its own transaction on the first booking
+     * The unique (templateId, rideDate) constraint makes concurrent first bookings share one ride.
+     */
+    public Long materializeForBooking(Long templateId, LocalDate date) {
+        Optional<Ride> existing = rideRepository.findByTemplateIdAndRideDate(templateId, date);
+        if (existing.isPresent()) {
+            return existing.get().getId();
+        }
+        
+        try {
+            Ride saved = newTransaction.execute(status -> {
+                RecurringRideTemplate template = templateRepository.findById(templateId)
+                        .orElseThrow(() -> new RuntimeException("Recurring ride not found"));
+                if (!template.runsOn(date) || LocalDateTime.of(date, template.getRideTime()).isBefore(LocalDateTime.now())) {
+                    throw new RuntimeException("Recurring ride does not run on " + date);
+                }
+                Ride ride = toRide(template, date);
+                ride.setSourcePlaceId(placeRegistryService.resolveOrRegister(
+                        ride.getSource(), ride.getSourceLat(), ride.getSourceLng()));
+                ride.setDestinationPlaceId(placeRegistryService.resolveOrRegister(
+                        ride.getDestination(), ride.getDestLat(), ride.getDestLng()));
+                Ride persisted = rideRepository.save(ride);
+                locationMatchingService.indexRide(persisted);
+                eventPublisher.publishEvent(new RideChangedEvent(persisted, RideChangedEvent.ChangeType.CREATED));
+                return persisted;
+            });
+            log.info("[RecurringRideService] Materialized template #{} for {} as ride #{}",
+                    templateId, date, saved.getId());
+            return saved.getId();
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Template #{} already materialized for {}", templateId, date);
+            return rideRepository.findByTemplateIdAndRideDate(templateId, date)
+                    .map(Ride::getId)
+                    .orElseThrow(() -> e);
+        }
+    }
+    
+    private Ride toRide(RecurringRideTemplate template, LocalDate date) {
+        Ride ride = Ride.builder()
+                .driver(template.getDriver())
+                .templateId(template.getId())
+                .source(template.getSource())
+                .destination(template.getDestination())
+                .rideDate(date)
+                .rideTime(template.getRideTime())
+                .totalSeats(template.getTotalSeats())
+                .availableSeats(template.getTotalSeats())
+                .farePerKm(template.getFarePerKm())
+                .distance(template.getDistance())
+                .sourceLat(template.getSourceLat())
+                .sourceLng(template.getSourceLng())
+                .destLat(template.getDestLat())
+                .destLng(template.getDestLng())
+                .sourceGeohash(Geohash.encode(template.getSourceLat(), template.getSourceLng(), Geohash.MAX_PRECISION))
+                .routePolyline(template.getRoutePolyline())
+                .status(Ride.RideStatus.AVAILABLE)
+                .tripStatus(Ride.TripStatus.SCHEDULED)
+                .build();
+        geospatialService.applyCorridorBounds(ride);
+        return ride;
+    }
+    
+    /**
+     * Run once the current transaction commits
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private RecurringRideResponse mapToResponse(RecurringRideTemplate template) {
+        List<String> days = Arrays.stream(DayOfWeek.values())
+                .filter(day -> (template.getDaysOfWeek() & RecurringRideTemplate.dayBit(day)) != 0)
+                .map(DayOfWeek::name)
+                .collect(Collectors.toList());
+        
+        return RecurringRideResponse.builder()
+                .id(template.getId())
+                .source(template.getSource())
+                .destination(template.getDestination())
+                .rideTime(template.getRideTime().toString())
+                .daysOfWeek(days)
+                .startDate(template.getStartDate().toString())
+                .endDate(template.getEndDate() != null ? template.getEndDate().toString() : null)
+                .totalSeats(template.getTotalSeats())
+                .farePerKm(template.getFarePerKm())
+                .distance(template.getDistance())
+                .active(template.getActive())
+                .build();
+    }
+}
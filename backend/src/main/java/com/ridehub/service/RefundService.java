@@ -12,6 +12,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -118,8 +119,9 @@ public class RefundService {
     
     /**
      * Process refund for a single booking
+     * Runs in its own transaction, so it also commits when called after the cancelling transaction
      */
-    @Transactional
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void processRefund(Booking booking) {
         processDriverCancellationRefund(booking, "Ride cancelled by driver");
     }
@@ -0,0 +1,79 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.Geohash;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Fills derived search columns for rides created before those columns existed
+ * Runs once on startup; new rides get the values in RideService.createRide
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RideBackfillService {
+    
+    private final RideRepository rideRepository;
+    private final GeospatialService geospatialService;
+    private final LocationMatchingService locationMatchingService;
+    private final PlaceRegistryService placeRegistryService;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillDerivedColumns() {
+        List<Ride> missingCorridor = rideRepository.findByCorridorMinLatIsNull();
+        if (!missingCorridor.isEmpty()) {
+            missingCorridor.forEach(geospatialService::applyCorridorBounds);
+            rideRepository.saveAll(missingCorridor);
+            log.info("[RideBackfillService] Backfilled corridor bounds for {} rides", missingCorridor.size());
+        }
+        
+        List<Ride> missingGeohash = rideRepository.findBySourceGeohashIsNull();
+        if (!missingGeohash.isEmpty()) {
+            missingGeohash.forEach(ride -> ride.setSourceGeohash(
+                    Geohash.encode(ride.getSourceLat(), ride.getSourceLng(), Geohash.MAX_PRECISION)));
+            rideRepository.saveAll(missingGeohash);
+            log.info("[RideBackfillService] Backfilled source geohashes for {} rides", missingGeohash.size());
+        }
+        
+        List<Ride> missingPlaces = rideRepository.findBySourcePlaceIdIsNullOrDestinationPlaceIdIsNull();
+        if (!missingPlaces.isEmpty()) {
+            missingPlaces.forEach(ride -> {
+                ride.setSourcePlaceId(placeRegistryService.resolveOrRegister(
+                        ride.getSource(), ride.getSourceLat(), ride.getSourceLng()));
+                ride.setDestinationPlaceId(placeRegistryService.resolveOrRegister(
+                        ride.getDestination(), ride.getDestLat(), ride.getDestLng()));
+            });
+            rideRepository.saveAll(missingPlaces);
+            log.info("[RideBackfillService] Backfilled place ids for {} rides", missingPlaces.size());
+        }
+        afterCommit(placeRegistryService::markRidesResolved);
+        
+        // Only upcoming rides are ever searched by location
+        List<Ride> missingGrams = rideRepository.findRidesWithoutLocationGrams(LocalDate.now());
+        missingGrams.forEach(locationMatchingService::indexRide);
+        if (!missingGrams.isEmpty()) {
+            log.info("[RideBackfillService] Backfilled location grams for {} rides", missingGrams.size());
+        }
+    }
+    
+    private void afterCommit(Runnable action) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
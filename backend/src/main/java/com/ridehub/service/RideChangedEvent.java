@@ -0,0 +1,41 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Published whenever a ride is created, deleted or its seats/status change
+ * In-memory search structures listen for it (after commit) to stay in sync with the rides table
+ */
+@Getter
+@RequiredArgsConstructor
+public class RideChangedEvent {
+
+    /**
+     * Listener order: derived indexes apply a change before the search cache invalidates,
+     * so a search started after the invalidation never reads an index that lags behind it
+     */
+    public static final int INDEX_ORDER = 0;
+    public static final int CACHE_ORDER = 100;
+
+    private final Ride ride;
+    private final ChangeType changeType;
+
+    public enum ChangeType {
+        CREATED,
+        SEATS_CHANGED,
+        STATUS_CHANGED,
+        DELETED
+    }
+
+    /**
+     * Whether the ride can still be booked (and therefore shown in searches)
+     */
+    public boolean isBookable() {
+        return changeType != ChangeType.DELETED
+                && ride.getStatus() == Ride.RideStatus.AVAILABLE
+                && ride.getAvailableSeats() != null
+                && ride.getAvailableSeats() > 0;
+    }
+}
@@ -0,0 +1,215 @@
+package com.ridehub.service;
+
+import com.ridehub.dto.RideResponse;
+import com.ridehub.model.Ride;
+import com.ridehub.util.GeoGrid;
+import com.ridehub.util.LocationGrams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded, TTL-expiring cache of ride search results
+ * Entries are dropped as soon as a ride that is in them - or that could now appear in them -
+ * is created, changes seats or changes status.
+ */
+@Service
+@Slf4j
+public class RideSearchCache {
+
+    /** Snapshot epoch of a result that did not come from a stale ride snapshot */
+    public static final long NO_EPOCH = -1;
+
+    private static final double COORDINATE_BUCKET_DEG = 0.005; // ~500m buckets for smart-match points
+
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<SearchKey, Entry> entries;
+    private final Map<LocalDate, Set<SearchKey>> keysByDate = new LinkedHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long snapshotEpoch;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public RideSearchCache(@Value("${ridehub.search-cache.max-entries:1000}") int maxEntries,
+                           @Value("${ridehub.search-cache.ttl-seconds:60}") long ttlSeconds) {
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public static SearchKey searchKey(String source, String destination, LocalDate date) {
+        return new SearchKey(LocationGrams.normalize(source), LocationGrams.normalize(destination), date, null, null);
+    }
+
+    public static SearchKey smartMatchKey(String source, String destination, LocalDate date,
+                                          double pickupLat, double pickupLng,
+                                          double dropLat, double dropLng) {
+        return new SearchKey(LocationGrams.normalize(source), LocationGrams.normalize(destination), date,
+                GeoGrid.cellOf(pickupLat, pickupLng, COORDINATE_BUCKET_DEG),
+                GeoGrid.cellOf(dropLat, dropLng, COORDINATE_BUCKET_DEG));
+    }
+
+    /**
+     * Read before computing a result; pass it back to put so a result computed
+     * while a ride changed is never cached
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    public synchronized List<RideResponse> get(SearchKey key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.expiresAt < System.currentTimeMillis()
+                || (entry.snapshotEpoch != NO_EPOCH && entry.snapshotEpoch != snapshotEpoch)) {
+            if (entry != null) {
+                remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.results;
+    }
+
+    public void put(SearchKey key, List<RideResponse> results, long computedAtGeneration) {
+        put(key, results, computedAtGeneration, NO_EPOCH);
+    }
+
+    /**
+     * Cache a result computed from a ride snapshot with pending changes; it is served
+     * only until the snapshot of that epoch is replaced
+     */
+    public synchronized void put(SearchKey key, List<RideResponse> results, long computedAtGeneration,
+                                 long staleSnapshotEpoch) {
+        if (computedAtGeneration != generation.get()
+                || (staleSnapshotEpoch != NO_EPOCH && staleSnapshotEpoch != snapshotEpoch)) {
+            return;
+        }
+
+        Set<Long> rideIds = results.stream().map(RideResponse::getId).collect(Collectors.toSet());
+        entries.put(key, new Entry(List.copyOf(results), rideIds, System.currentTimeMillis() + ttlMillis,
+                staleSnapshotEpoch));
+        keysByDate.computeIfAbsent(key.date(), date -> new LinkedHashSet<>()).add(key);
+
+        while (entries.size() > maxEntries) {
+            Iterator<SearchKey> eldest = entries.keySet().iterator();
+            SearchKey eldestKey = eldest.next();
+            remove(eldestKey);
+            evictions.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(RideChangedEvent.CACHE_ORDER)
+    public synchronized void onRideChanged(RideChangedEvent event) {
+        generation.incrementAndGet();
+
+        Ride ride = event.getRide();
+        Set<SearchKey> keys = keysByDate.get(ride.getRideDate());
+        if (keys == null) {
+            return;
+        }
+
+        for (SearchKey key : new HashSet<>(keys)) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                continue;
+            }
+            if (entry.rideIds.contains(ride.getId()) || (event.isBookable() && couldMatch(key, ride))) {
+                remove(key);
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Called by the ride snapshot after swapping in a rebuild
+     */
+    public void snapshotSwapped(long epoch) {
+        snapshotEpoch = epoch;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        keysByDate.clear();
+        generation.incrementAndGet();
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        long lookups = hitCount + missCount;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("invalidations", invalidations.get());
+        stats.put("evictions", evictions.get());
+        synchronized (this) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        return stats;
+    }
+
+    /**
+     * Whether a bookable ride could be part of the cached result for this key: by place name,
+     * or for smart-match keys by its corridor box reaching both coordinate buckets
+     */
+    private boolean couldMatch(SearchKey key, Ride ride) {
+        if (LocationGrams.eitherContains(ride.getSource(), key.source())
+                && LocationGrams.eitherContains(ride.getDestination(), key.destination())) {
+            return true;
+        }
+        if (key.pickupCell() == null || ride.getCorridorMinLat() == null) {
+            return false;
+        }
+        return corridorReaches(ride, key.pickupCell()) && corridorReaches(ride, key.dropCell());
+    }
+
+    private boolean corridorReaches(Ride ride, long cell) {
+        double minLat = (int) (cell >> 32) * COORDINATE_BUCKET_DEG;
+        double minLng = (int) cell * COORDINATE_BUCKET_DEG;
+        return minLat <= ride.getCorridorMaxLat() && minLat + COORDINATE_BUCKET_DEG >= ride.getCorridorMinLat()
+                && minLng <= ride.getCorridorMaxLng() && minLng + COORDINATE_BUCKET_DEG >= ride.getCorridorMinLng();
+    }
+
+    private void remove(SearchKey key) {
+        entries.remove(key);
+        Set<SearchKey> keys = keysByDate.get(key.date());
+        if (keys != null) {
+            keys.remove(key);
+            if (keys.isEmpty()) {
+                keysByDate.remove(key.date());
+            }
+        }
+    }
+
+    /**
+     * Normalized search parameters; pickup/drop cells are null for plain searches
+     */
+    public record SearchKey(String source, String destination, LocalDate date, Long pickupCell, Long dropCell) {
+    }
+
+    private record Entry(List<RideResponse> results, Set<Long> rideIds, long expiresAt, long snapshotEpoch) {
+    }
+}
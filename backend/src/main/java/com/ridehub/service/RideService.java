@@ -1,25 +1,55 @@
 package com.ridehub.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ridehub.config.RetryOnConflict;
 import com.ridehub.dto.CreateRideRequest;
+import com.ridehub.dto.RideDayResponse;
+import com.ridehub.dto.RideFilter;
+import com.ridehub.dto.RidePageResponse;
 import com.ridehub.dto.RideResponse;
 import com.ridehub.model.Ride;
 import com.ridehub.model.User;
 import com.ridehub.repository.BookingRepository;
 import com.ridehub.repository.ReviewRepository;
 import com.ridehub.repository.RideRepository;
+import com.ridehub.repository.RideSpecifications;
 import com.ridehub.repository.UserRepository;
+import com.ridehub.util.Geohash;
+import com.ridehub.util.LocationGrams;
+import com.ridehub.util.RideCursor;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -35,6 +65,43 @@ public class RideService {
     private final NotificationService notificationService;
     private final WalletService walletService;
     private final ReviewRepository reviewRepository;
+    private final RideSpatialIndex rideSpatialIndex;
+    private final NearTermRideIndex nearTermRideIndex;
+    private final BookableRideSnapshot bookableRideSnapshot;
+    private final PlaceRegistryService placeRegistryService;
+    private final SearchMetrics searchMetrics;
+    private final LocationMatchingService locationMatchingService;
+    private final RideSearchCache rideSearchCache;
+    private final ParallelRouteMatcher parallelRouteMatcher;
+    private final RecurringRideService recurringRideService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    
+    @Value("${ridehub.rides.page-size:20}")
+    private int defaultPageSize;
+    
+    @Value("${ridehub.rides.max-page-size:100}")
+    private int maxPageSize;
+    
+    @Value("${ridehub.rides.max-flex-days:3}")
+    private int maxFlexDays;
+    
+    @Value("${ridehub.rides.max-nearby-radius-km:50}")
+    private double maxNearbyRadiusKm;
+    
+    // Rides mapped and written per batch by the NDJSON streaming endpoints
+    @Value("${ridehub.rides.stream-chunk-size:200}")
+    private int streamChunkSize;
+    
+    // Detour km that one hour between the preferred and the actual ride time is worth when ranking
+    @Value("${ridehub.rides.ranking.km-per-hour:2.0}")
+    private double rankingKmPerHour;
+    
+    private static final Comparator<RankedRide> RANKED_RIDE_ORDER = Comparator
+            .comparingDouble(RankedRide::score)
+            .thenComparing(ranked -> ranked.ride().getRideTime())
+            .thenComparing(ranked -> ranked.ride().getId());
     
     private User getCurrentUser() {
         String email = SecurityContextHolder.getContext().getAuthentication().getName();
@@ -59,6 +126,10 @@ public class RideService {
             request.getSourceLat(), request.getSourceLng(),
             request.getDestLat(), request.getDestLng());
         
+        geospatialService.validateRouteLength(
+            request.getSourceLat(), request.getSourceLng(), request.getWaypoints(),
+            request.getDestLat(), request.getDestLng());
+        
         Ride ride = Ride.builder()
                 .driver(driver)
                 .source(request.getSource())
@@ -73,11 +144,22 @@ public class RideService {
                 .sourceLng(request.getSourceLng())
                 .destLat(request.getDestLat())
                 .destLng(request.getDestLng())
+                .sourcePlaceId(placeRegistryService.resolveOrRegister(
+                    request.getSource(), request.getSourceLat(), request.getSourceLng()))
+                .destinationPlaceId(placeRegistryService.resolveOrRegister(
+                    request.getDestination(), request.getDestLat(), request.getDestLng()))
+                .sourceGeohash(Geohash.encode(request.getSourceLat(), request.getSourceLng(), Geohash.MAX_PRECISION))
+                .routePolyline(geospatialService.encodeRoutePolyline(
+                    request.getSourceLat(), request.getSourceLng(), request.getWaypoints(),
+                    request.getDestLat(), request.getDestLng()))
                 .status(Ride.RideStatus.AVAILABLE)
                 .build();
+        geospatialService.applyCorridorBounds(ride);
         
         ride = rideRepository.save(ride);
         log.info("[RideService] Ride created successfully with ID: {}", ride.getId());
+        locationMatchingService.indexRide(ride);
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.CREATED));
         
         // Send confirmation email to driver
         emailService.sendRideCreationEmail(driver, ride);
@@ -89,42 +171,308 @@ public class RideService {
     public List<RideResponse> getMyRides() {
         User driver = getCurrentUser();
         List<Ride> rides = rideRepository.findByDriverOrderByRideDateDesc(driver);
-        return rides.stream().map(this::mapToRideResponse).collect(Collectors.toList());
+        return mapToRideResponses(rides);
     }
     
     @Transactional(readOnly = true)
     public List<RideResponse> searchRides(String source, String destination, String date) {
-        log.info("[RideService] Searching rides with source='{}', destination='{}', date='{}'", source, destination, date);
+        try (SearchMetrics.Trace trace = searchMetrics.start("search")) {
+            log.info("[RideService] Searching rides with source='{}', destination='{}', date='{}'", source, destination, date);
         
-        LocalDate rideDate = LocalDate.parse(date);
-        List<Ride> rides = rideRepository.findAvailableRides(source, destination, rideDate);
+            LocalDate rideDate = LocalDate.parse(date);
+            RideSearchCache.SearchKey cacheKey = RideSearchCache.searchKey(source, destination, rideDate);
+            List<RideResponse> cached = searchMetrics.time(SearchMetrics.Phase.CACHE, () -> rideSearchCache.get(cacheKey));
+            if (cached != null) {
+                log.info("[RideService] Returning {} cached rides", cached.size());
+                return cached;
+            }
+            long cacheGeneration = rideSearchCache.generation();
         
-        log.info("[RideService] Found {} rides", rides.size());
-        if (rides.isEmpty()) {
-            log.warn("[RideService] No rides found. Check if:");
-            log.warn("  - Rides exist for date: {}", rideDate);
-            log.warn("  - Source contains: {}", source);
-            log.warn("  - Destination contains: {}", destination);
-        } else {
-            rides.forEach(ride -> log.info("  Found: {} -> {} on {}", 
-                ride.getSource(), ride.getDestination(), ride.getRideDate()));
-        }
+            List<Ride> rides = new ArrayList<>(findAvailableRidesByName(source, destination, rideDate));
+            String sourceKey = LocationGrams.normalize(source);
+            String destinationKey = LocationGrams.normalize(destination);
+            rides.addAll(searchMetrics.time(SearchMetrics.Phase.RECURRING, () -> recurringRideService.findVirtualRides(
+                rideDate, ride -> LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                    && LocationGrams.eitherContains(ride.getDestination(), destinationKey))));
+            searchMetrics.count(SearchMetrics.Count.MATCHED, rides.size());
         
-        return rides.stream().map(this::mapToRideResponse).collect(Collectors.toList());
+            log.info("[RideService] Found {} rides", rides.size());
+            if (rides.isEmpty()) {
+                log.warn("[RideService] No rides found. Check if:");
+                log.warn("  - Rides exist for date: {}", rideDate);
+                log.warn("  - Source contains: {}", source);
+                log.warn("  - Destination contains: {}", destination);
+            } else {
+                rides.forEach(ride -> log.info("  Found: {} -> {} on {}", 
+                    ride.getSource(), ride.getDestination(), ride.getRideDate()));
+            }
+        
+            List<RideResponse> responses = mapToRideResponses(rides);
+            rideSearchCache.put(cacheKey, responses, cacheGeneration);
+            return responses;
+        }
+    }
+    
+    /**
+     * Write the rides matching a search to out as NDJSON (one RideResponse per line)
+     */
+    @Transactional(readOnly = true)
+    public void streamSearchRides(String source, String destination, LocalDate rideDate, OutputStream out)
+            throws IOException {
+        try (Stream<Ride> rides = locationMatchingService.streamAvailableRides(source, destination, rideDate)) {
+            int written = writeNdjson(rides, out);
+            log.info("[RideService] Streamed {} rides for {} -> {} on {}", written, source, destination, rideDate);
+        }
+    }
+    
+    /**
+     * Write all upcoming available rides to out as NDJSON (one RideResponse per line)
+     */
+    @Transactional(readOnly = true)
+    public void streamAvailableRides(OutputStream out) throws IOException {
+        try (Stream<Ride> rides = rideRepository.streamAllAvailableRides(LocalDate.now())) {
+            int written = writeNdjson(rides, out);
+            log.info("[RideService] Streamed {} available rides", written);
+        }
+    }
+    
+    /**
+     * Map and write rides chunk by chunk, flushing after each chunk and detaching the
+     * written rides, so memory stays bounded by the chunk size however many rides match
+     */
+    private int writeNdjson(Stream<Ride> rides, OutputStream out) throws IOException {
+        List<Ride> chunk = new ArrayList<>(streamChunkSize);
+        Iterator<Ride> iterator = rides.iterator();
+        int written = 0;
+        while (iterator.hasNext()) {
+            chunk.add(iterator.next());
+            if (chunk.size() < streamChunkSize && iterator.hasNext()) {
+                continue;
+            }
+            for (RideResponse response : mapToRideResponses(chunk)) {
+                out.write(objectMapper.writeValueAsBytes(response));
+                out.write('\n');
+            }
+            out.flush();
+            written += chunk.size();
+            chunk.clear();
+            entityManager.clear();
+        }
+        return written;
     }
     
     @Transactional(readOnly = true)
     public List<RideResponse> getAvailableRides() {
         LocalDate currentDate = LocalDate.now();
         List<Ride> rides = rideRepository.findAllAvailableRides(currentDate);
-        return rides.stream().map(this::mapToRideResponse).collect(Collectors.toList());
+        return mapToRideResponses(rides);
     }
     
     @Transactional(readOnly = true)
     public List<RideResponse> getAvailableRidesByGender(String gender) {
         LocalDate currentDate = LocalDate.now();
         List<Ride> rides = rideRepository.findAvailableRidesByDriverGender(gender, currentDate);
-        return rides.stream().map(this::mapToRideResponse).collect(Collectors.toList());
+        return mapToRideResponses(rides);
+    }
+    
+    /**
+     * Keyset-paginated variant of getAvailableRides
+     */
+    @Transactional(readOnly = true)
+    public RidePageResponse getAvailableRidesPage(String cursor, Integer size) {
+        LocalDate currentDate = LocalDate.now();
+        RideCursor after = cursor != null ? RideCursor.decode(cursor) : RideCursor.startOf(currentDate);
+        int limit = resolvePageSize(size);
+        
+        List<Ride> rides = rideRepository.findAvailableRidesAfter(
+            currentDate, after.rideDate(), after.rideTime(), after.id(), PageRequest.of(0, limit + 1));
+        return toRidePage(rides, limit);
+    }
+    
+    /**
+     * Keyset-paginated variant of getAvailableRidesByGender
+     */
+    @Transactional(readOnly = true)
+    public RidePageResponse getAvailableRidesByGenderPage(String gender, String cursor, Integer size) {
+        LocalDate currentDate = LocalDate.now();
+        RideCursor after = cursor != null ? RideCursor.decode(cursor) : RideCursor.startOf(currentDate);
+        int limit = resolvePageSize(size);
+        
+        List<Ride> rides = rideRepository.findAvailableRidesByDriverGenderAfter(
+            gender, currentDate, after.rideDate(), after.rideTime(), after.id(), PageRequest.of(0, limit + 1));
+        return toRidePage(rides, limit);
+    }
+    
+    /**
+     * Keyset-paginated available rides matching every set field of the filter
+     * All filters are applied by the database in one query ordered by (rideDate, rideTime, id).
+     */
+    @Transactional(readOnly = true)
+    public RidePageResponse filterAvailableRides(RideFilter filter, String cursor, Integer size) {
+        LocalDate currentDate = LocalDate.now();
+        RideCursor after = cursor != null ? RideCursor.decode(cursor) : RideCursor.startOf(currentDate);
+        int limit = resolvePageSize(size);
+        
+        Specification<Ride> spec = Specification.where(RideSpecifications.bookableFrom(currentDate))
+                .and(RideSpecifications.after(after));
+        if (filter.getDate() != null) {
+            spec = spec.and(RideSpecifications.departsOn(LocalDate.parse(filter.getDate())));
+        }
+        if (filter.getFromTime() != null || filter.getToTime() != null) {
+            spec = spec.and(RideSpecifications.departsBetween(
+                filter.getFromTime() != null ? LocalTime.parse(filter.getFromTime()) : LocalTime.MIN,
+                filter.getToTime() != null ? LocalTime.parse(filter.getToTime()) : LocalTime.MAX));
+        }
+        if (filter.getMinSeats() != null) {
+            spec = spec.and(RideSpecifications.hasAtLeastSeats(filter.getMinSeats()));
+        }
+        if (filter.getMaxFarePerKm() != null) {
+            spec = spec.and(RideSpecifications.fareAtMost(filter.getMaxFarePerKm()));
+        }
+        if (filter.getGender() != null && !filter.getGender().isBlank()) {
+            spec = spec.and(RideSpecifications.driverGender(filter.getGender()));
+        }
+        if (filter.getVehicle() != null && !filter.getVehicle().isBlank()) {
+            spec = spec.and(RideSpecifications.vehicleContains(filter.getVehicle()));
+        }
+        if (filter.getMinRating() != null) {
+            spec = spec.and(RideSpecifications.driverRatingAtLeast(filter.getMinRating()));
+        }
+        
+        Sort order = Sort.by("rideDate", "rideTime", "id");
+        List<Ride> rides = rideRepository.findBy(spec, query -> query.sortBy(order).limit(limit + 1).all());
+        return toRidePage(rides, limit);
+    }
+    
+    /**
+     * Available rides departing within radiusKm of a point on the date between the two times, nearest first
+     */
+    @Transactional(readOnly = true)
+    public List<RideResponse> findRidesNearby(double lat, double lng, double radiusKm,
+                                              String date, String fromTime, String toTime) {
+        if (radiusKm <= 0 || radiusKm > maxNearbyRadiusKm) {
+            throw new RuntimeException("Radius must be between 0 and " + maxNearbyRadiusKm + " km");
+        }
+        LocalDate rideDate = LocalDate.parse(date);
+        LocalTime from = fromTime != null ? LocalTime.parse(fromTime) : LocalTime.MIN;
+        LocalTime to = toTime != null ? LocalTime.parse(toTime) : LocalTime.MAX;
+        
+        Map<Long, Ride> candidates = new HashMap<>();
+        for (String prefix : Geohash.coverPrefixes(lat, lng, radiusKm)) {
+            rideRepository.findAvailableRidesBySourceGeohashRange(
+                    rideDate, prefix, Geohash.prefixEnd(prefix), from, to)
+                .forEach(ride -> candidates.put(ride.getId(), ride));
+        }
+        
+        Map<Long, Double> distances = new HashMap<>();
+        List<Ride> nearby = new ArrayList<>();
+        for (Ride ride : candidates.values()) {
+            double distance = geospatialService.calculateDistance(lat, lng, ride.getSourceLat(), ride.getSourceLng());
+            if (distance <= radiusKm) {
+                distances.put(ride.getId(), distance);
+                nearby.add(ride);
+            }
+        }
+        nearby.sort(Comparator.comparingDouble((Ride ride) -> distances.get(ride.getId()))
+            .thenComparing(Ride::getRideTime)
+            .thenComparing(Ride::getId));
+        log.info("[RideService] {} of {} geohash candidates within {} km", nearby.size(), candidates.size(), radiusKm);
+        return mapToRideResponses(nearby);
+    }
+    
+    /**
+     * Search the days around a date in one query
+     * One group per day from date - flexDays to date + flexDays (never before today); empty days included.
+     */
+    @Transactional(readOnly = true)
+    public List<RideDayResponse> searchRidesFlexible(String source, String destination, String date, int flexDays) {
+        if (flexDays < 0 || flexDays > maxFlexDays) {
+            throw new RuntimeException("Flexible days must be between 0 and " + maxFlexDays);
+        }
+        
+        LocalDate rideDate = LocalDate.parse(date);
+        LocalDate today = LocalDate.now();
+        LocalDate fromDate = rideDate.minusDays(flexDays).isBefore(today) ? today : rideDate.minusDays(flexDays);
+        LocalDate toDate = rideDate.plusDays(flexDays);
+        log.info("[RideService] Flexible search source='{}', destination='{}', {} to {}", source, destination, fromDate, toDate);
+        
+        Map<LocalDate, List<Ride>> ridesByDay = new LinkedHashMap<>();
+        for (LocalDate day = fromDate; !day.isAfter(toDate); day = day.plusDays(1)) {
+            ridesByDay.put(day, new ArrayList<>());
+        }
+        if (ridesByDay.isEmpty()) {
+            return List.of();
+        }
+        
+        // Rides arrive ordered by (rideDate, rideTime, id), so each day keeps its time order
+        PlaceMatch places = matchPlaces(source, destination);
+        List<Ride> rides;
+        if (places == null) {
+            rides = locationMatchingService.findAvailableRidesBetween(source, destination, fromDate, toDate);
+        } else {
+            rides = places.isEmpty()
+                ? List.of()
+                : rideRepository.findAvailableRidesByPlacesBetween(places.sourceIds(), places.destinationIds(), fromDate, toDate);
+        }
+        rides.forEach(ride -> ridesByDay.get(ride.getRideDate()).add(ride));
+        
+        List<RideResponse> responses = mapToRideResponses(rides);
+        Map<Long, RideResponse> responsesById = responses.stream()
+                .collect(Collectors.toMap(RideResponse::getId, response -> response));
+        
+        return ridesByDay.entrySet().stream()
+                .map(day -> RideDayResponse.builder()
+                        .date(day.getKey().toString())
+                        .rides(day.getValue().stream().map(ride -> responsesById.get(ride.getId())).collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Keyset-paginated variant of searchRides
+     */
+    @Transactional(readOnly = true)
+    public RidePageResponse searchRidesPage(String source, String destination, String date,
+                                            String cursor, Integer size) {
+        LocalDate rideDate = LocalDate.parse(date);
+        RideCursor after = cursor != null ? RideCursor.decode(cursor) : RideCursor.startOf(rideDate);
+        if (!after.rideDate().equals(rideDate)) {
+            throw new IllegalArgumentException("Cursor does not belong to this search");
+        }
+        int limit = resolvePageSize(size);
+        LocationMatchingService.LocationPage page = locationMatchingService.findAvailableRidesPage(
+            source, destination, rideDate, after.rideTime(), after.id(), limit);
+        
+        return RidePageResponse.builder()
+                .rides(mapToRideResponses(page.rides()))
+                .nextCursor(page.hasMore() ? cursorOf(page.resumeAfter()) : null)
+                .hasMore(page.hasMore())
+                .build();
+    }
+    
+    private int resolvePageSize(Integer size) {
+        if (size == null || size < 1) {
+            return defaultPageSize;
+        }
+        return Math.min(size, maxPageSize);
+    }
+    
+    /**
+     * Build a page from a query that fetched up to limit + 1 rides
+     */
+    private RidePageResponse toRidePage(List<Ride> rides, int limit) {
+        boolean hasMore = rides.size() > limit;
+        List<Ride> page = hasMore ? rides.subList(0, limit) : rides;
+        
+        return RidePageResponse.builder()
+                .rides(mapToRideResponses(page))
+                .nextCursor(hasMore ? cursorOf(page.get(page.size() - 1)) : null)
+                .hasMore(hasMore)
+                .build();
+    }
+    
+    private String cursorOf(Ride ride) {
+        return new RideCursor(ride.getRideDate(), ride.getRideTime(), ride.getId()).encode();
     }
     
     @Transactional(readOnly = true)
@@ -134,22 +482,22 @@ public class RideService {
         return mapToRideResponse(ride);
     }
     
+    /**
+     * Take seats with a single conditional UPDATE, so concurrent bookings cannot oversell
+     */
     @Transactional
     public void updateRideSeats(Long rideId, Integer seatsBooked) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
-        
-        if (ride.getAvailableSeats() < seatsBooked) {
-            throw new RuntimeException("Not enough seats available");
+        if (seatsBooked == null || seatsBooked < 1) {
+            throw new RuntimeException("Seats must be at least 1");
         }
-        
-        ride.setAvailableSeats(ride.getAvailableSeats() - seatsBooked);
-        
-        if (ride.getAvailableSeats() == 0) {
-            ride.setStatus(Ride.RideStatus.FULL);
+        if (rideRepository.reserveSeats(rideId, seatsBooked) == 0) {
+            if (!rideRepository.existsById(rideId)) {
+                throw new RuntimeException("Ride not found");
+            }
+            throw new RuntimeException("Not enough seats available");
         }
         
-        rideRepository.save(ride);
+        publishSeatsChanged(rideId);
     }
     
     /**
@@ -161,72 +509,320 @@ public class RideService {
             String source, String destination, String date,
             Double pickupLat, Double pickupLng,
             Double dropLat, Double dropLng) {
+        try (SearchMetrics.Trace trace = searchMetrics.start("smart-match")) {
         
-        log.info("Smart route matching: source={}, dest={}, date={}", source, destination, date);
-        log.info("Pickup coords: ({}, {}), Drop coords: ({}, {})", pickupLat, pickupLng, dropLat, dropLng);
+            log.info("Smart route matching: source={}, dest={}, date={}", source, destination, date);
+            log.info("Pickup coords: ({}, {}), Drop coords: ({}, {})", pickupLat, pickupLng, dropLat, dropLng);
         
-        LocalDate rideDate = LocalDate.parse(date);
+            LocalDate rideDate = LocalDate.parse(date);
+            RideSearchCache.SearchKey cacheKey = RideSearchCache.smartMatchKey(
+                source, destination, rideDate, pickupLat, pickupLng, dropLat, dropLng);
+            List<RideResponse> cached = searchMetrics.time(SearchMetrics.Phase.CACHE, () -> rideSearchCache.get(cacheKey));
+            if (cached != null) {
+                log.info("Returning {} cached smart-match rides", cached.size());
+                return cached;
+            }
+            long cacheGeneration = rideSearchCache.generation();
         
-        // First, get rides that match source and destination exactly
-        List<Ride> exactMatches = rideRepository.findAvailableRides(source, destination, rideDate);
-        log.info("Found {} exact matches", exactMatches.size());
+            // Rides that match source and destination exactly, plus those whose corridor covers both points
+            RouteCandidates routeCandidates = findRouteCandidates(
+                source, destination, rideDate, pickupLat, pickupLng, dropLat, dropLng);
+            Set<Long> exactMatchIds = routeCandidates.exactMatchIds();
+            List<Ride> candidates = routeCandidates.rides();
+            log.info("Found {} exact matches", exactMatchIds.size());
+            // Exact matches plus the candidates whose route passes both points, in one batched pass
+            List<Ride> matchingRides = new ArrayList<>(routeCandidates.matched() ? candidates
+                : searchMetrics.time(SearchMetrics.Phase.ROUTE_MATCH,
+                    () -> matchRoutesInBatch(candidates, exactMatchIds, pickupLat, pickupLng, dropLat, dropLng)));
+            String sourceKey = LocationGrams.normalize(source);
+            String destinationKey = LocationGrams.normalize(destination);
+            matchingRides.addAll(searchMetrics.time(SearchMetrics.Phase.RECURRING, () -> recurringRideService.findVirtualRides(
+                rideDate, ride -> (LocationGrams.eitherContains(ride.getSource(), sourceKey)
+                        && LocationGrams.eitherContains(ride.getDestination(), destinationKey))
+                    || geospatialService.doPointsMatchRide(pickupLat, pickupLng, dropLat, dropLng, ride))));
+            searchMetrics.count(SearchMetrics.Count.MATCHED, matchingRides.size());
         
-        // Then, get all available rides for the date to check enroute matches
-        List<Ride> allRides = rideRepository.findAllAvailableRides(rideDate);
-        log.info("Checking {} total rides for enroute matches", allRides.size());
+            log.info("Total matching rides (exact + enroute): {}", matchingRides.size());
+            List<RideResponse> responses = mapToRideResponses(matchingRides);
+            rideSearchCache.put(cacheKey, responses, cacheGeneration, routeCandidates.snapshotEpoch());
+            return responses;
+        }
+    }
+    
+    /**
+     * Smart route matching that returns only the best limit rides, ranked by detour cost
+     * plus an optional per-hour penalty from the preferred time
+     */
+    @Transactional(readOnly = true)
+    public List<RideResponse> searchRidesRanked(
+            String source, String destination, String date,
+            Double pickupLat, Double pickupLng,
+            Double dropLat, Double dropLng,
+            String preferredTime, int limit) {
+        try (SearchMetrics.Trace trace = searchMetrics.start("smart-match-ranked")) {
         
-        // Combine exact matches with enroute matches
-        List<Ride> matchingRides = allRides.stream()
-                .filter(ride -> {
-                    // Skip if already in exact matches
-                    if (exactMatches.stream().anyMatch(r -> r.getId().equals(ride.getId()))) {
-                        return true;
-                    }
-                    
-                    // Check if passenger's points lie along driver's route
-                    if (ride.getSourceLat() != null && ride.getSourceLng() != null &&
-                        ride.getDestLat() != null && ride.getDestLng() != null) {
-                        
-                        boolean matches = geospatialService.doPointsMatchRoute(
-                            pickupLat, pickupLng,
-                            dropLat, dropLng,
-                            ride.getSourceLat(), ride.getSourceLng(),
-                            ride.getDestLat(), ride.getDestLng()
-                        );
-                        
-                        if (matches) {
-                            log.info("Enroute match found: Ride #{} ({} -> {})", 
-                                ride.getId(), ride.getSource(), ride.getDestination());
-                        }
-                        
-                        return matches;
+            if (limit < 1) {
+                throw new RuntimeException("Limit must be at least 1");
+            }
+            int k = Math.min(limit, maxPageSize);
+            LocalDate rideDate = LocalDate.parse(date);
+            LocalTime preferred = preferredTime != null ? LocalTime.parse(preferredTime) : null;
+            log.info("Ranked route matching: source={}, dest={}, date={}, time={}, limit={}",
+                source, destination, date, preferredTime, k);
+        
+            RouteCandidates routeCandidates = findRouteCandidates(
+                source, destination, rideDate, pickupLat, pickupLng, dropLat, dropLng);
+            Set<Long> exactMatchIds = routeCandidates.exactMatchIds();
+            List<Ride> candidates = routeCandidates.rides();
+        
+            // Max-heap on score: the head is the worst of the best k seen so far
+            PriorityQueue<RankedRide> best = new PriorityQueue<>(k + 1, RANKED_RIDE_ORDER.reversed());
+            long rankingStarted = System.nanoTime();
+            for (Ride ride : candidates) {
+                double detourKm = Double.NaN;
+                if (ride.getSourceLat() != null && ride.getSourceLng() != null &&
+                    ride.getDestLat() != null && ride.getDestLng() != null) {
+                    detourKm = geospatialService.routeDetourKm(pickupLat, pickupLng, dropLat, dropLng, ride);
+                }
+                if (Double.isNaN(detourKm)) {
+                    if (!exactMatchIds.contains(ride.getId())) {
+                        continue;
                     }
-                    return false;
-                })
-                .distinct()
-                .collect(Collectors.toList());
+                    detourKm = endpointDetourKm(ride, pickupLat, pickupLng, dropLat, dropLng);
+                }
+            
+                double score = detourKm;
+                if (preferred != null) {
+                    long minutesOff = Math.abs(Duration.between(preferred, ride.getRideTime()).toMinutes());
+                    score += minutesOff / 60.0 * rankingKmPerHour;
+                }
+            
+                RankedRide candidate = new RankedRide(ride, score);
+                if (best.size() < k) {
+                    best.offer(candidate);
+                } else if (RANKED_RIDE_ORDER.compare(candidate, best.peek()) < 0) {
+                    best.poll();
+                    best.offer(candidate);
+                }
+            }
+        
+            List<RankedRide> ranked = new ArrayList<>(best);
+            ranked.sort(RANKED_RIDE_ORDER);
+            searchMetrics.record(SearchMetrics.Phase.ROUTE_MATCH, System.nanoTime() - rankingStarted);
+            searchMetrics.count(SearchMetrics.Count.MATCHED, ranked.size());
+            log.info("Ranked {} of {} candidates", ranked.size(), candidates.size());
+            return mapToRideResponses(ranked.stream().map(RankedRide::ride).collect(Collectors.toList()));
+        }
+    }
+    
+    /**
+     * Detour for a name match whose route does not pass the points: getting from the
+     * pickup to the ride's source and from its destination to the drop
+     */
+    private double endpointDetourKm(Ride ride, double pickupLat, double pickupLng, double dropLat, double dropLng) {
+        if (ride.getSourceLat() == null || ride.getSourceLng() == null ||
+            ride.getDestLat() == null || ride.getDestLng() == null) {
+            return 2 * geospatialService.getRouteToleranceKm(); // unknown route ranks after any en-route match
+        }
+        return geospatialService.calculateDistance(pickupLat, pickupLng, ride.getSourceLat(), ride.getSourceLng())
+            + geospatialService.calculateDistance(ride.getDestLat(), ride.getDestLng(), dropLat, dropLng);
+    }
+    
+    /**
+     * Available rides on the date whose source and destination match the query, in (rideTime, id) order
+     */
+    private List<Ride> findAvailableRidesByName(String source, String destination, LocalDate rideDate) {
+        if (!nearTermRideIndex.covers(rideDate)) {
+            return searchMetrics.time(SearchMetrics.Phase.NAME_MATCH, () -> {
+                PlaceMatch places = matchPlaces(source, destination);
+                if (places == null) {
+                    return locationMatchingService.findAvailableRides(source, destination, rideDate);
+                }
+                return places.isEmpty()
+                    ? List.of()
+                    : rideRepository.findAvailableRidesByPlaces(places.sourceIds(), places.destinationIds(), rideDate);
+            });
+        }
+        List<Long> rideIds = searchMetrics.time(SearchMetrics.Phase.SPATIAL_INDEX,
+            () -> nearTermRideIndex.findRideIds(source, destination, rideDate));
+        return rideIds.isEmpty() ? List.of() : searchMetrics.time(SearchMetrics.Phase.CANDIDATE_LOAD,
+            () -> rideRepository.findAvailableRidesByIds(rideIds, rideDate));
+    }
+    
+    /**
+     * Rides on the date whose corridor covers both points, plus the exact (name) matches, none departed yet
+     * From the snapshot when fresh (already route-matched), else the spatial index, else the corridor query.
+     */
+    private RouteCandidates findRouteCandidates(
+            String source, String destination, LocalDate rideDate,
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng) {
+        
+        LocalDateTime now = LocalDateTime.now();
+        if (bookableRideSnapshot.isUsable(rideDate)) {
+            long snapshotEpoch = bookableRideSnapshot.pendingEpoch();
+            Set<Long> exactMatchIds = findExactMatchIds(source, destination, rideDate);
+            // Route, departure and seats are checked on the snapshot's columns; entities only build the response
+            Set<Long> matchedIds = searchMetrics.time(SearchMetrics.Phase.ROUTE_MATCH,
+                () -> bookableRideSnapshot.findMatchingIds(rideDate, BookableRideSnapshot.Filter.bookableAt(now),
+                    exactMatchIds, pickupLat, pickupLng, dropLat, dropLng));
+            List<Ride> matches = loadCandidates(matchedIds, rideDate);
+            log.info("Loaded {} snapshot matches", matches.size());
+            return new RouteCandidates(matches, exactMatchIds, snapshotEpoch, true);
+        }
+        
+        if (rideSpatialIndex.isReady()) {
+            Set<Long> exactMatchIds = findExactMatchIds(source, destination, rideDate);
+            Set<Long> candidateIds = searchMetrics.time(SearchMetrics.Phase.SPATIAL_INDEX,
+                () -> new HashSet<>(rideSpatialIndex.findCandidateIds(rideDate, pickupLat, pickupLng, dropLat, dropLng)));
+            candidateIds.addAll(exactMatchIds);
+            List<Ride> candidates = notDeparted(loadCandidates(candidateIds, rideDate), now);
+            log.info("Checking {} indexed candidates (of {} indexed rides) for enroute matches",
+                candidates.size(), rideSpatialIndex.size());
+            return new RouteCandidates(candidates, exactMatchIds, RideSearchCache.NO_EPOCH, false);
+        }
+        
+        List<Ride> exactMatches = findAvailableRidesByName(source, destination, rideDate);
+        Set<Long> exactMatchIds = exactMatches.stream().map(Ride::getId).collect(Collectors.toSet());
+        List<Ride> corridorRides = searchMetrics.time(SearchMetrics.Phase.CANDIDATE_LOAD,
+            () -> rideRepository.findAvailableRidesInCorridor(rideDate,
+                Math.min(pickupLat, dropLat), Math.max(pickupLat, dropLat),
+                Math.min(pickupLng, dropLng), Math.max(pickupLng, dropLng)));
+        log.info("Spatial index not ready, checking {} corridor rides for enroute matches", corridorRides.size());
         
-        log.info("Total matching rides (exact + enroute): {}", matchingRides.size());
-        return matchingRides.stream()
-                .map(this::mapToRideResponse)
+        Set<Long> corridorIds = corridorRides.stream().map(Ride::getId).collect(Collectors.toSet());
+        List<Ride> candidates = new ArrayList<>(corridorRides);
+        exactMatches.stream()
+                .filter(ride -> !corridorIds.contains(ride.getId()))
+                .forEach(candidates::add);
+        searchMetrics.count(SearchMetrics.Count.CANDIDATES, candidates.size());
+        return new RouteCandidates(notDeparted(candidates, now), exactMatchIds, RideSearchCache.NO_EPOCH, false);
+    }
+    
+    /**
+     * The rides still to depart at now, as the snapshot's filter keeps them
+     */
+    private static List<Ride> notDeparted(List<Ride> rides, LocalDateTime now) {
+        return rides.stream()
+                .filter(ride -> !LocalDateTime.of(ride.getRideDate(), ride.getRideTime()).isBefore(now))
                 .collect(Collectors.toList());
     }
     
     /**
-     * Atomically update ride seats - ensures thread-safe seat management
+     * Ids of the available rides on the date whose source and destination match the query
      */
-    @Transactional
-    public synchronized void updateRideSeatsCancellation(Long rideId, Integer seatsToRestore) {
-        Ride ride = rideRepository.findById(rideId)
-                .orElseThrow(() -> new RuntimeException("Ride not found"));
+    private Set<Long> findExactMatchIds(String source, String destination, LocalDate rideDate) {
+        if (nearTermRideIndex.covers(rideDate)) {
+            return searchMetrics.time(SearchMetrics.Phase.SPATIAL_INDEX,
+                () -> new HashSet<>(nearTermRideIndex.findRideIds(source, destination, rideDate)));
+        }
+        return searchMetrics.time(SearchMetrics.Phase.NAME_MATCH, () -> {
+            PlaceMatch places = matchPlaces(source, destination);
+            if (places == null) {
+                return locationMatchingService.findAvailableRides(source, destination, rideDate).stream()
+                    .map(Ride::getId).collect(Collectors.toSet());
+            }
+            return places.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(rideRepository.findAvailableRideIdsByPlaces(
+                    places.sourceIds(), places.destinationIds(), rideDate));
+        });
+    }
+    
+    /**
+     * Place ids matching both names, or null when the registry cannot answer: rides are not
+     * all resolved yet, or a name matches more places than an IN list should carry
+     */
+    private PlaceMatch matchPlaces(String source, String destination) {
+        if (!placeRegistryService.isReady()) {
+            return null;
+        }
+        Set<Long> sourceIds = placeRegistryService.findMatchingPlaceIds(source);
+        Set<Long> destinationIds = sourceIds == null ? null : placeRegistryService.findMatchingPlaceIds(destination);
+        return destinationIds == null ? null : new PlaceMatch(sourceIds, destinationIds);
+    }
+    
+    private List<Ride> loadCandidates(Set<Long> candidateIds, LocalDate rideDate) {
+        List<Ride> candidates = candidateIds.isEmpty()
+            ? List.of()
+            : searchMetrics.time(SearchMetrics.Phase.CANDIDATE_LOAD,
+                () -> rideRepository.findAvailableRidesByIds(candidateIds, rideDate));
+        searchMetrics.count(SearchMetrics.Count.CANDIDATES, candidates.size());
+        return candidates;
+    }
+    
+    /**
+     * Match the passenger's points against many rides in one pass over primitive columns
+     * Keeps exact matches and preserves the order of the given rides; rides with
+     * waypoints are checked against their own polyline instead
+     */
+    private List<Ride> matchRoutesInBatch(
+            List<Ride> rides, Set<Long> exactMatchIds,
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng) {
         
-        ride.setAvailableSeats(ride.getAvailableSeats() + seatsToRestore);
+        int count = rides.size();
+        double[] startLat = new double[count];
+        double[] startLng = new double[count];
+        double[] endLat = new double[count];
+        double[] endLng = new double[count];
+        for (int i = 0; i < count; i++) {
+            Ride ride = rides.get(i);
+            if (ride.getRoutePolyline() != null) {
+                startLat[i] = startLng[i] = endLat[i] = endLng[i] = Double.NaN;
+                continue;
+            }
+            // Missing coordinates become NaN, which never matches
+            startLat[i] = ride.getSourceLat() != null ? ride.getSourceLat() : Double.NaN;
+            startLng[i] = ride.getSourceLng() != null ? ride.getSourceLng() : Double.NaN;
+            endLat[i] = ride.getDestLat() != null ? ride.getDestLat() : Double.NaN;
+            endLng[i] = ride.getDestLng() != null ? ride.getDestLng() : Double.NaN;
+        }
         
-        if (ride.getStatus() == Ride.RideStatus.FULL) {
-            ride.setStatus(Ride.RideStatus.AVAILABLE);
+        RouteColumns routes = geospatialService.buildRouteColumns(startLat, startLng, endLat, endLng, count);
+        long[] matches = new long[routes.bitsetWords()];
+        parallelRouteMatcher.matchRoutes(pickupLat, pickupLng, dropLat, dropLng, routes, matches);
+        
+        List<Ride> matchingRides = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Ride ride = rides.get(i);
+            boolean matched = ride.getRoutePolyline() != null
+                ? geospatialService.doPointsMatchRide(pickupLat, pickupLng, dropLat, dropLng, ride)
+                : (matches[i >>> 6] & (1L << i)) != 0;
+            if (exactMatchIds.contains(ride.getId()) || matched) {
+                matchingRides.add(ride);
+            }
+        }
+        return matchingRides;
+    }
+    
+    /**
+     * Atomically restore ride seats with a single conditional UPDATE - safe across nodes
+     */
+    @Transactional
+    public void updateRideSeatsCancellation(Long rideId, Integer seatsToRestore) {
+        if (seatsToRestore == null || seatsToRestore < 1) {
+            throw new RuntimeException("Seats must be at least 1");
+        }
+        if (rideRepository.releaseSeats(rideId, seatsToRestore) == 0) {
+            if (!rideRepository.existsById(rideId)) {
+                throw new RuntimeException("Ride not found");
+            }
+            throw new RuntimeException("Cannot restore more seats than the ride has");
         }
         
-        rideRepository.save(ride);
+        publishSeatsChanged(rideId);
+    }
+    
+    /**
+     * Bring the managed ride up to date with a seat UPDATE and announce the change
+     * The refresh also keeps a later flush of the same entity from writing stale seats back.
+     */
+    private void publishSeatsChanged(Long rideId) {
+        Ride ride = rideRepository.findById(rideId)
+                .orElseThrow(() -> new RuntimeException("Ride not found"));
+        entityManager.refresh(ride);
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.SEATS_CHANGED));
     }
     
     /**
@@ -235,6 +831,7 @@ public class RideService {
      * - Sends email notifications to all passengers
      * - Processes refunds for paid bookings
      */
+    @RetryOnConflict
     @Transactional
     public void cancelRide(Long rideId) {
         User driver = getCurrentUser();
@@ -251,30 +848,39 @@ public class RideService {
             throw new RuntimeException("Ride is already cancelled");
         }
         
-        // Get all bookings for this ride
-        List<com.ridehub.model.Booking> bookings = bookingRepository.findByRideOrderByBookedAtDesc(ride);
+        // Cancel the ride first so a concurrent change conflicts here, before anything is sent
+        ride.setStatus(Ride.RideStatus.CANCELLED);
+        rideRepository.saveAndFlush(ride);
         
+        List<com.ridehub.model.Booking> bookings = bookingRepository.findByRideOrderByBookedAtDesc(ride);
         log.info("Cancelling ride #{} with {} bookings", rideId, bookings.size());
         
-        // Cancel all bookings and process refunds
+        List<com.ridehub.model.Booking> cancelled = new ArrayList<>();
+        List<com.ridehub.model.Booking> paid = new ArrayList<>();
         for (com.ridehub.model.Booking booking : bookings) {
             if (booking.getStatus() != com.ridehub.model.Booking.BookingStatus.CANCELLED) {
-                // Update booking status
-                booking.setStatus(com.ridehub.model.Booking.BookingStatus.CANCELLED);
-                bookingRepository.save(booking);
-                
-                // Process refund if payment was made
-                if (booking.getStatus() == com.ridehub.model.Booking.BookingStatus.CONFIRMED || 
+                if (booking.getStatus() == com.ridehub.model.Booking.BookingStatus.CONFIRMED ||
                     booking.getPaidAt() != null) {
-                    try {
-                        refundService.processRefund(booking);
-                        log.info("Refund processed for booking #{}", booking.getId());
-                    } catch (Exception e) {
-                        log.error("Failed to process refund for booking #{}: {}", booking.getId(), e.getMessage());
-                    }
+                    paid.add(booking);
                 }
-                
-                // Send cancellation email to passenger
+                booking.setStatus(com.ridehub.model.Booking.BookingStatus.CANCELLED);
+                cancelled.add(booking);
+            }
+        }
+        bookingRepository.saveAllAndFlush(cancelled);
+        eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
+        
+        // Refunds and messages only go out once the cancellation has committed
+        afterCommit(() -> {
+            for (com.ridehub.model.Booking booking : paid) {
+                try {
+                    refundService.processRefund(booking);
+                    log.info("Refund processed for booking #{}", booking.getId());
+                } catch (Exception e) {
+                    log.error("Failed to process refund for booking #{}: {}", booking.getId(), e.getMessage());
+                }
+            }
+            for (com.ridehub.model.Booking booking : cancelled) {
                 try {
                     emailService.sendRideCancellationEmail(booking.getPassenger(), booking, ride, driver);
                     log.info("Cancellation email sent to passenger: {}", booking.getPassenger().getEmail());
@@ -283,32 +889,59 @@ public class RideService {
                         booking.getPassenger().getEmail(), e.getMessage());
                 }
                 
-                // Send notification
                 try {
                     notificationService.sendRideCancellationNotification(booking.getPassenger(), booking, "Ride cancelled by driver");
                 } catch (Exception e) {
                     log.error("Failed to send notification: {}", e.getMessage());
                 }
             }
-        }
-        
-        // Update ride status
-        ride.setStatus(Ride.RideStatus.CANCELLED);
-        rideRepository.save(ride);
+        });
         
         log.info("Ride #{} cancelled successfully", rideId);
     }
     
     private RideResponse mapToRideResponse(Ride ride) {
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        
         // Get driver rating
         Double driverRating = reviewRepository.getAverageRatingForDriver(ride.getDriver().getId());
         Long totalReviews = reviewRepository.countReviewsForDriver(ride.getDriver().getId());
         
+        return mapToRideResponse(ride, driverRating, totalReviews);
+    }
+    
+    /**
+     * Map many rides, fetching driver ratings with one grouped query instead of two per ride
+     */
+    private List<RideResponse> mapToRideResponses(List<Ride> rides) {
+        if (rides.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Set<Long> driverIds = rides.stream()
+                .map(ride -> ride.getDriver().getId())
+                .collect(Collectors.toSet());
+        Map<Long, Object[]> ratingsByDriver = new HashMap<>();
+        for (Object[] row : searchMetrics.time(SearchMetrics.Phase.RATINGS,
+                () -> reviewRepository.getRatingSummariesForDrivers(driverIds))) {
+            ratingsByDriver.put((Long) row[0], row);
+        }
+        
+        return searchMetrics.time(SearchMetrics.Phase.MAPPING, () -> rides.stream()
+                .map(ride -> {
+                    Object[] rating = ratingsByDriver.get(ride.getDriver().getId());
+                    Double driverRating = rating != null && rating[1] != null ? ((Number) rating[1]).doubleValue() : null;
+                    Long totalReviews = rating != null ? ((Number) rating[2]).longValue() : 0L;
+                    return mapToRideResponse(ride, driverRating, totalReviews);
+                })
+                .collect(Collectors.toList()));
+    }
+    
+    private RideResponse mapToRideResponse(Ride ride, Double driverRating, Long totalReviews) {
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+        
         return RideResponse.builder()
                 .id(ride.getId())
+                .templateId(ride.getTemplateId())
                 .source(ride.getSource())
                 .destination(ride.getDestination())
                 .rideDate(ride.getRideDate().format(dateFormatter))
@@ -332,6 +965,7 @@ public class RideService {
                 .build();
     }
     
+    @RetryOnConflict
     @Transactional
     public void startRide(Long bookingId) {
         User currentUser = getCurrentUser();
@@ -374,6 +1008,8 @@ public class RideService {
                 ride.setTripStartedAt(LocalDateTime.now());
                 rideRepository.save(ride);
             }
+            // Flush before the emails so a version conflict surfaces (and retries) first
+            bookingRepository.saveAndFlush(booking);
             
             // Send emails to both driver and passenger when ride starts
             try {
@@ -388,6 +1024,7 @@ public class RideService {
         bookingRepository.save(booking);
     }
     
+    @RetryOnConflict
     @Transactional
     public void endRide(Long bookingId) {
         User currentUser = getCurrentUser();
@@ -414,24 +1051,10 @@ public class RideService {
         booking.setRideEndedAt(LocalDateTime.now());
         booking.setDeboardedAt(LocalDateTime.now());
         booking.setStatus(com.ridehub.model.Booking.BookingStatus.COMPLETED);
-        bookingRepository.save(booking);
+        bookingRepository.saveAndFlush(booking);
         
         log.info("Ride ended for booking #{}", bookingId);
         
-        // Send emails to both driver and passenger when ride ends
-        try {
-            Ride ride = booking.getRide();
-            emailService.sendRideEndedEmailToDriver(ride.getDriver(), ride, booking);
-            emailService.sendRideEndedEmailToPassenger(booking.getPassenger(), ride, booking);
-            log.info("Ride end emails sent to driver and passenger for booking #{}", bookingId);
-        } catch (Exception e) {
-            log.error("Failed to send ride end emails: {}", e.getMessage());
-        }
-        
-        // Transfer locked balance to available balance IMMEDIATELY
-        walletService.releaseLockedFunds(booking);
-        log.info("✓ Locked funds released to available balance for booking #{}", bookingId);
-        
         // Check if all bookings for this ride are completed
         Ride ride = booking.getRide();
         List<com.ridehub.model.Booking> allBookings = bookingRepository.findByRideOrderByBookedAtDesc(ride);
@@ -443,8 +1066,56 @@ public class RideService {
             ride.setStatus(Ride.RideStatus.COMPLETED);
             ride.setTripStatus(Ride.TripStatus.COMPLETED);
             ride.setTripCompletedAt(LocalDateTime.now());
-            rideRepository.save(ride);
+            rideRepository.saveAndFlush(ride);
+            eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
             log.info("All bookings completed. Ride #{} marked as completed", ride.getId());
         }
+        
+        // Booking and ride are flushed, so a conflict has already surfaced before the wallet moves
+        walletService.releaseLockedFunds(booking);
+        log.info("✓ Locked funds released to available balance for booking #{}", bookingId);
+        
+        afterCommit(() -> {
+            try {
+                emailService.sendRideEndedEmailToDriver(ride.getDriver(), ride, booking);
+                emailService.sendRideEndedEmailToPassenger(booking.getPassenger(), ride, booking);
+                log.info("Ride end emails sent to driver and passenger for booking #{}", bookingId);
+            } catch (Exception e) {
+                log.error("Failed to send ride end emails: {}", e.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Run once the current transaction commits, or right away outside a transaction
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private record RankedRide(Ride ride, double score) {
+    }
+    
+    private record PlaceMatch(Set<Long> sourceIds, Set<Long> destinationIds) {
+        
+        boolean isEmpty() {
+            return sourceIds.isEmpty() || destinationIds.isEmpty();
+        }
+    }
+    
+    /**
+     * snapshotEpoch is the stale snapshot the rides came from, or RideSearchCache.NO_EPOCH;
+     * matched is true when the rides already passed the route check
+     */
+    private record RouteCandidates(List<Ride> rides, Set<Long> exactMatchIds, long snapshotEpoch, boolean matched) {
     }
 }
@@ -0,0 +1,219 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.util.GeoGrid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory grid index over the route corridors of bookable rides
+ * Smart matching only checks rides whose corridor shares a cell with both the pickup and the drop point.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RideSpatialIndex {
+
+    private static final double CELL_SIZE_DEG = 0.05; // ~5.5km grid cells
+
+    private final RideRepository rideRepository;
+    private final GeospatialService geospatialService;
+
+    private final Map<Long, Set<Long>> ridesByCell = new ConcurrentHashMap<>();
+    private final Map<Long, IndexedRide> indexedRides = new ConcurrentHashMap<>();
+    // Ride events seen while the initial load runs, replayed once the loaded rides are in
+    private List<RideChangedEvent> pendingEvents;
+    private volatile boolean ready = false;
+
+    /**
+     * Load all currently bookable rides once the application has started, computing their cells outside the lock
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        synchronized (this) {
+            pendingEvents = new ArrayList<>();
+        }
+
+        List<Ride> rides;
+        List<Map.Entry<Ride, Set<Long>>> cellsByRide = new ArrayList<>();
+        try {
+            rides = rideRepository.findAllAvailableRides(LocalDate.now());
+            for (Ride ride : rides) {
+                Set<Long> cells = cellsOf(ride);
+                if (cells != null) {
+                    cellsByRide.add(Map.entry(ride, cells));
+                }
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                replayPendingEvents();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            cellsByRide.forEach(entry -> put(entry.getKey(), entry.getValue()));
+            // Replayed in arrival order, so a ride changed during the load ends in its latest state
+            replayPendingEvents();
+            ready = true;
+        }
+        rides.stream()
+                .filter(ride -> indexedRides.containsKey(ride.getId()))
+                .forEach(ride -> {
+                    geospatialService.getRouteGeometry(ride);
+                    geospatialService.getPolylineRoute(ride);
+                });
+        log.info("[RideSpatialIndex] Indexed {} rides across {} cells", indexedRides.size(), ridesByCell.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    @Order(RideChangedEvent.INDEX_ORDER)
+    public synchronized void onRideChanged(RideChangedEvent event) {
+        if (pendingEvents != null) {
+            pendingEvents.add(event);
+        } else {
+            apply(event);
+        }
+    }
+
+    private void apply(RideChangedEvent event) {
+        if (event.isBookable()) {
+            index(event.getRide());
+        } else {
+            remove(event.getRide().getId());
+        }
+    }
+
+    private void replayPendingEvents() {
+        List<RideChangedEvent> events = pendingEvents;
+        pendingEvents = null;
+        events.forEach(this::apply);
+    }
+
+    /**
+     * Drop rides whose date has passed - runs shortly after midnight
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastRides() {
+        LocalDate today = LocalDate.now();
+        indexedRides.values().stream()
+                .filter(entry -> entry.rideDate().isBefore(today))
+                .map(IndexedRide::rideId)
+                .toList()
+                .forEach(rideId -> {
+                    remove(rideId);
+                    geospatialService.evictRouteGeometry(rideId);
+                });
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return indexedRides.size();
+    }
+
+    /**
+     * Ids of rides on the given date whose corridor covers both the pickup and the drop cell
+     */
+    public Set<Long> findCandidateIds(
+            LocalDate rideDate,
+            double pickupLat, double pickupLng,
+            double dropLat, double dropLng) {
+
+        Set<Long> pickupRides = ridesByCell.get(GeoGrid.cellOf(pickupLat, pickupLng, CELL_SIZE_DEG));
+        Set<Long> dropRides = ridesByCell.get(GeoGrid.cellOf(dropLat, dropLng, CELL_SIZE_DEG));
+        if (pickupRides == null || dropRides == null) {
+            return Collections.emptySet();
+        }
+
+        Set<Long> smaller = pickupRides.size() <= dropRides.size() ? pickupRides : dropRides;
+        Set<Long> larger = smaller == pickupRides ? dropRides : pickupRides;
+
+        Set<Long> candidates = new HashSet<>();
+        for (Long rideId : smaller) {
+            IndexedRide entry = indexedRides.get(rideId);
+            if (entry != null && entry.rideDate().equals(rideDate) && larger.contains(rideId)) {
+                candidates.add(rideId);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Writers are synchronized so a ride's cells and its entry change together; readers stay lock-free
+     */
+    private synchronized void index(Ride ride) {
+        IndexedRide existing = ride.getId() == null ? null : indexedRides.get(ride.getId());
+        if (existing != null && existing.rideDate().equals(ride.getRideDate())) {
+            return; // coordinates never change once a ride is created
+        }
+        Set<Long> cells = cellsOf(ride);
+        if (cells != null) {
+            put(ride, cells);
+        }
+    }
+
+    private Set<Long> cellsOf(Ride ride) {
+        if (ride.getId() == null || ride.getSourceLat() == null || ride.getSourceLng() == null
+                || ride.getDestLat() == null || ride.getDestLng() == null) {
+            return null;
+        }
+        try {
+            return geospatialService.corridorCells(ride, CELL_SIZE_DEG);
+        } catch (IllegalArgumentException e) {
+            log.warn("[RideSpatialIndex] Not indexing ride {}: {}", ride.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private synchronized void put(Ride ride, Set<Long> cells) {
+        IndexedRide existing = indexedRides.get(ride.getId());
+        if (existing != null && existing.rideDate().equals(ride.getRideDate())) {
+            return;
+        }
+        if (existing != null) {
+            remove(ride.getId());
+        }
+        for (Long cell : cells) {
+            ridesByCell.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(ride.getId());
+        }
+        indexedRides.put(ride.getId(), new IndexedRide(ride.getId(), ride.getRideDate(),
+                cells.stream().mapToLong(Long::longValue).toArray()));
+    }
+
+    private synchronized void remove(Long rideId) {
+        IndexedRide entry = indexedRides.remove(rideId);
+        if (entry == null) {
+            return;
+        }
+        for (long cell : entry.cells()) {
+            ridesByCell.computeIfPresent(cell, (key, rides) -> {
+                rides.remove(rideId);
+                return rides.isEmpty() ? null : rides;
+            });
+        }
+    }
+
+    private record IndexedRide(Long rideId, LocalDate rideDate, long[] cells) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.ridehub.service;
+
+/**
+ * Struct-of-arrays form of many precomputed routes
+ * Column i holds the same values a {@link RouteGeometry} would for route i,
+ * laid out in primitive arrays so batch matching runs without touching entities or boxing.
+ * Build instances through {@link GeospatialService#buildRouteColumns}.
+ */
+public final class RouteColumns {
+
+    final int size;
+    final double[] startLatRad;
+    final double[] startLngRad;
+    final double[] sinStartLat;
+    final double[] cosStartLat;
+    final double[] bearing;
+    final double[] lengthKm;
+
+    RouteColumns(int size, double[] startLatRad, double[] startLngRad,
+                 double[] sinStartLat, double[] cosStartLat,
+                 double[] bearing, double[] lengthKm) {
+        this.size = size;
+        this.startLatRad = startLatRad;
+        this.startLngRad = startLngRad;
+        this.sinStartLat = sinStartLat;
+        this.cosStartLat = cosStartLat;
+        this.bearing = bearing;
+        this.lengthKm = lengthKm;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Number of long words needed for a match bitset over these routes
+     */
+    public int bitsetWords() {
+        return (size + 63) >>> 6;
+    }
+
+    /**
+     * These routes followed by the given ones, in new arrays
+     */
+    RouteColumns append(RouteColumns more) {
+        return new RouteColumns(size + more.size,
+                concat(startLatRad, size, more.startLatRad, more.size),
+                concat(startLngRad, size, more.startLngRad, more.size),
+                concat(sinStartLat, size, more.sinStartLat, more.size),
+                concat(cosStartLat, size, more.cosStartLat, more.size),
+                concat(bearing, size, more.bearing, more.size),
+                concat(lengthKm, size, more.lengthKm, more.size));
+    }
+
+    /**
+     * These routes without route i, in new arrays; later routes move down by one
+     */
+    RouteColumns without(int i) {
+        return new RouteColumns(size - 1,
+                remove(startLatRad, size, i), remove(startLngRad, size, i),
+                remove(sinStartLat, size, i), remove(cosStartLat, size, i),
+                remove(bearing, size, i), remove(lengthKm, size, i));
+    }
+
+    private static double[] concat(double[] first, int firstSize, double[] second, int secondSize) {
+        double[] out = new double[firstSize + secondSize];
+        System.arraycopy(first, 0, out, 0, firstSize);
+        System.arraycopy(second, 0, out, firstSize, secondSize);
+        return out;
+    }
+
+    private static double[] remove(double[] column, int size, int i) {
+        double[] out = new double[size - 1];
+        System.arraycopy(column, 0, out, 0, i);
+        System.arraycopy(column, i + 1, out, i, size - 1 - i);
+        return out;
+    }
+}
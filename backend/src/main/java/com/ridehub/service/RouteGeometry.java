@@ -0,0 +1,120 @@
+package com.ridehub.service;
+
+/**
+ * Immutable, precomputed geometry of a driver's route (start -> end)
+ * Holds everything about the route that the matching formulas need, so
+ * matching a passenger's points only does the point-dependent work.
+ */
+public final class RouteGeometry {
+
+    private final double startLat;
+    private final double startLng;
+    private final double endLat;
+    private final double endLng;
+
+    private final double startLatRad;
+    private final double startLngRad;
+    private final double sinStartLat;
+    private final double cosStartLat;
+    private final double endLatRad;
+    private final double endLngRad;
+    private final double cosEndLat;
+
+    private final double bearing;     // initial bearing start -> end (radians)
+    private final double lengthKm;    // great-circle length start -> end
+
+    private RouteGeometry(double startLat, double startLng, double endLat, double endLng,
+                          double earthRadiusKm) {
+        this.startLat = startLat;
+        this.startLng = startLng;
+        this.endLat = endLat;
+        this.endLng = endLng;
+
+        this.startLatRad = Math.toRadians(startLat);
+        this.startLngRad = Math.toRadians(startLng);
+        this.sinStartLat = Math.sin(startLatRad);
+        this.cosStartLat = Math.cos(startLatRad);
+
+        this.endLatRad = Math.toRadians(endLat);
+        this.endLngRad = Math.toRadians(endLng);
+        this.cosEndLat = Math.cos(endLatRad);
+        double sinEndLat = Math.sin(endLatRad);
+        double dLng = Math.toRadians(endLng - startLng);
+
+        double y = Math.sin(dLng) * cosEndLat;
+        double x = cosStartLat * sinEndLat - sinStartLat * cosEndLat * Math.cos(dLng);
+        this.bearing = Math.atan2(y, x);
+        this.lengthKm = haversine(startLatRad, cosStartLat, startLngRad, endLatRad, cosEndLat,
+                endLngRad, earthRadiusKm);
+    }
+
+    static RouteGeometry of(double startLat, double startLng, double endLat, double endLng,
+                            double earthRadiusKm) {
+        return new RouteGeometry(startLat, startLng, endLat, endLng, earthRadiusKm);
+    }
+
+    /**
+     * Whether this geometry was built from exactly these coordinates
+     */
+    public boolean hasEndpoints(double startLat, double startLng, double endLat, double endLng) {
+        return this.startLat == startLat && this.startLng == startLng
+                && this.endLat == endLat && this.endLng == endLng;
+    }
+
+    public double getStartLat() {
+        return startLat;
+    }
+
+    public double getStartLng() {
+        return startLng;
+    }
+
+    public double getEndLat() {
+        return endLat;
+    }
+
+    public double getEndLng() {
+        return endLng;
+    }
+
+    public double getBearing() {
+        return bearing;
+    }
+
+    public double getLengthKm() {
+        return lengthKm;
+    }
+
+    /**
+     * Great-circle distance (km) from the route start to the point
+     */
+    double distanceFromStart(double latRad, double cosLat, double lngRad, double earthRadiusKm) {
+        return haversine(startLatRad, cosStartLat, startLngRad, latRad, cosLat, lngRad, earthRadiusKm);
+    }
+
+    /**
+     * Great-circle distance (km) from the route end to the point
+     */
+    double distanceFromEnd(double latRad, double cosLat, double lngRad, double earthRadiusKm) {
+        return haversine(endLatRad, cosEndLat, endLngRad, latRad, cosLat, lngRad, earthRadiusKm);
+    }
+
+    /**
+     * Initial bearing (radians) from the route start to the point
+     */
+    double bearingFromStart(double sinLat, double cosLat, double lngRad) {
+        double dLng = lngRad - startLngRad;
+        double y = Math.sin(dLng) * cosLat;
+        double x = cosStartLat * sinLat - sinStartLat * cosLat * Math.cos(dLng);
+        return Math.atan2(y, x);
+    }
+
+    private static double haversine(double lat1Rad, double cosLat1, double lng1Rad,
+                                    double lat2Rad, double cosLat2, double lng2Rad,
+                                    double earthRadiusKm) {
+        double sinHalfDLat = Math.sin((lat2Rad - lat1Rad) / 2);
+        double sinHalfDLng = Math.sin((lng2Rad - lng1Rad) / 2);
+        double a = sinHalfDLat * sinHalfDLat + cosLat1 * cosLat2 * sinHalfDLng * sinHalfDLng;
+        return earthRadiusKm * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
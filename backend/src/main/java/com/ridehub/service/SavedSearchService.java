@@ -0,0 +1,326 @@
+package com.ridehub.service;
+
+import com.ridehub.dto.SavedSearchRequest;
+import com.ridehub.dto.SavedSearchResponse;
+import com.ridehub.model.Ride;
+import com.ridehub.model.SavedSearch;
+import com.ridehub.model.User;
+import com.ridehub.repository.SavedSearchRepository;
+import com.ridehub.repository.UserRepository;
+import com.ridehub.util.GeoGrid;
+import com.ridehub.util.LocationGrams;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Saved ride searches that alert the passenger when a matching ride is created
+ * Upcoming searches are indexed by date, pickup cell and source-name trigram.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SavedSearchService {
+    
+    private static final double CELL_SIZE_DEG = 0.05; // ~5.5km grid cells
+    
+    private final SavedSearchRepository savedSearchRepository;
+    private final UserRepository userRepository;
+    private final GeospatialService geospatialService;
+    private final NotificationService notificationService;
+    
+    @Value("${ridehub.saved-searches.max-per-passenger:20}")
+    private int maxPerPassenger;
+    
+    // date -> pickup cell -> saved searches
+    private final Map<LocalDate, Map<Long, Set<IndexedSearch>>> searchesByDateAndCell = new ConcurrentHashMap<>();
+    
+    // date -> source-name gram -> saved searches, for alerts that match on place names only
+    private final Map<LocalDate, Map<String, Set<IndexedSearch>>> searchesByDateAndGram = new ConcurrentHashMap<>();
+    
+    private User getCurrentUser() {
+        String email = SecurityContextHolder.getContext().getAuthentication().getName();
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        List<SavedSearch> searches = savedSearchRepository.findBySearchDateGreaterThanEqual(LocalDate.now());
+        searches.forEach(search -> index(IndexedSearch.of(search)));
+        log.info("[SavedSearchService] Indexed {} saved searches", searches.size());
+    }
+    
+    @Transactional
+    public SavedSearchResponse saveSearch(SavedSearchRequest request) {
+        User passenger = getCurrentUser();
+        LocalDate searchDate = LocalDate.parse(request.getDate());
+        if (searchDate.isBefore(LocalDate.now())) {
+            throw new RuntimeException("Cannot save a search for a past date");
+        }
+        if (savedSearchRepository.countByPassengerIdAndSearchDateGreaterThanEqual(
+                passenger.getId(), LocalDate.now()) >= maxPerPassenger) {
+            throw new RuntimeException("You can have at most " + maxPerPassenger + " saved searches");
+        }
+        
+        SavedSearch search = savedSearchRepository.save(SavedSearch.builder()
+                .passenger(passenger)
+                .source(request.getSource())
+                .destination(request.getDestination())
+                .searchDate(searchDate)
+                .pickupLat(request.getPickupLat())
+                .pickupLng(request.getPickupLng())
+                .dropLat(request.getDropLat())
+                .dropLng(request.getDropLng())
+                .build());
+        log.info("Saved search #{} for passenger {}", search.getId(), passenger.getId());
+        
+        IndexedSearch indexed = IndexedSearch.of(search);
+        afterCommit(() -> index(indexed));
+        return mapToResponse(search);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<SavedSearchResponse> getMySavedSearches() {
+        User passenger = getCurrentUser();
+        return savedSearchRepository.findByPassengerIdOrderByCreatedAtDesc(passenger.getId()).stream()
+                .map(this::mapToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    @Transactional
+    public void deleteSavedSearch(Long searchId) {
+        User passenger = getCurrentUser();
+        SavedSearch search = savedSearchRepository.findById(searchId)
+                .orElseThrow(() -> new RuntimeException("Saved search not found"));
+        if (!search.getPassenger().getId().equals(passenger.getId())) {
+            throw new RuntimeException("You can only delete your own saved searches");
+        }
+        
+        IndexedSearch indexed = IndexedSearch.of(search);
+        savedSearchRepository.delete(search);
+        afterCommit(() -> unindex(indexed));
+    }
+    
+    /**
+     * Match a newly created ride against the saved searches for its date
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRideChanged(RideChangedEvent event) {
+        if (event.getChangeType() != RideChangedEvent.ChangeType.CREATED || !event.isBookable()) {
+            return;
+        }
+        Ride ride = event.getRide();
+        Set<IndexedSearch> candidates = new LinkedHashSet<>();
+        addCorridorCandidates(ride, candidates);
+        addNameCandidates(ride, candidates);
+        
+        Set<Long> notifiedPassengers = new HashSet<>();
+        for (IndexedSearch search : candidates) {
+            if (search.passengerId().equals(ride.getDriver().getId())
+                    || notifiedPassengers.contains(search.passengerId())
+                    || !matches(search, ride)) {
+                continue;
+            }
+            notifiedPassengers.add(search.passengerId());
+            try {
+                userRepository.findById(search.passengerId()).ifPresent(passenger ->
+                        notificationService.sendSavedSearchMatchNotification(passenger, ride, search.id()));
+            } catch (Exception e) {
+                log.error("Failed to send saved search alert #{}: {}", search.id(), e.getMessage());
+            }
+        }
+        if (!notifiedPassengers.isEmpty()) {
+            log.info("Ride #{} matched saved searches of {} passengers", ride.getId(), notifiedPassengers.size());
+        }
+    }
+    
+    /**
+     * Searches whose pickup and drop cells both lie in the ride's route corridor
+     */
+    private void addCorridorCandidates(Ride ride, Set<IndexedSearch> candidates) {
+        Map<Long, Set<IndexedSearch>> searchesByCell = searchesByDateAndCell.get(ride.getRideDate());
+        if (searchesByCell == null || ride.getSourceLat() == null || ride.getSourceLng() == null
+                || ride.getDestLat() == null || ride.getDestLng() == null) {
+            return;
+        }
+        
+        Set<Long> rideCells;
+        try {
+            rideCells = geospatialService.corridorCells(ride, CELL_SIZE_DEG);
+        } catch (IllegalArgumentException e) {
+            log.warn("[SavedSearchService] No corridor alerts for ride {}: {}", ride.getId(), e.getMessage());
+            return;
+        }
+        for (Long cell : rideCells) {
+            Set<IndexedSearch> searches = searchesByCell.get(cell);
+            if (searches == null) {
+                continue;
+            }
+            for (IndexedSearch search : searches) {
+                if (rideCells.contains(search.dropCell())) {
+                    candidates.add(search);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Searches sharing a source-name gram with the ride; a name shorter than a trigram
+     * can sit inside any search name, so it is checked against every search of the date
+     */
+    private void addNameCandidates(Ride ride, Set<IndexedSearch> candidates) {
+        Map<String, Set<IndexedSearch>> searchesByGram = searchesByDateAndGram.get(ride.getRideDate());
+        if (searchesByGram == null) {
+            return;
+        }
+        String rideKey = LocationGrams.normalize(ride.getSource());
+        if (!LocationGrams.isIndexable(rideKey)) {
+            searchesByGram.values().forEach(candidates::addAll);
+            return;
+        }
+        for (String gram : LocationGrams.queryGrams(rideKey)) {
+            Set<IndexedSearch> searches = searchesByGram.get(gram);
+            if (searches != null) {
+                candidates.addAll(searches);
+            }
+        }
+    }
+    
+    /**
+     * Drop searches whose date has passed - runs shortly after midnight
+     */
+    @Scheduled(cron = "0 10 0 * * *")
+    @Transactional
+    public void purgePastSearches() {
+        LocalDate today = LocalDate.now();
+        searchesByDateAndCell.keySet().removeIf(date -> date.isBefore(today));
+        searchesByDateAndGram.keySet().removeIf(date -> date.isBefore(today));
+        int deleted = savedSearchRepository.deleteBySearchDateBefore(today);
+        log.info("[SavedSearchService] Purged {} past saved searches", deleted);
+    }
+    
+    /**
+     * Same rule as smart matching: the points lie along the route, or the place names match
+     */
+    private boolean matches(IndexedSearch search, Ride ride) {
+        if (geospatialService.doPointsMatchRide(
+                search.pickupLat(), search.pickupLng(), search.dropLat(), search.dropLng(), ride)) {
+            return true;
+        }
+        return LocationGrams.eitherContains(ride.getSource(), LocationGrams.normalize(search.source()))
+                && LocationGrams.eitherContains(ride.getDestination(), LocationGrams.normalize(search.destination()));
+    }
+    
+    private void index(IndexedSearch search) {
+        searchesByDateAndCell
+                .computeIfAbsent(search.date(), date -> new ConcurrentHashMap<>())
+                .computeIfAbsent(search.pickupCell(), cell -> ConcurrentHashMap.newKeySet())
+                .add(search);
+        Map<String, Set<IndexedSearch>> searchesByGram =
+                searchesByDateAndGram.computeIfAbsent(search.date(), date -> new ConcurrentHashMap<>());
+        for (String gram : search.sourceGrams()) {
+            searchesByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(search);
+        }
+    }
+    
+    private void unindex(IndexedSearch search) {
+        Map<Long, Set<IndexedSearch>> searchesByCell = searchesByDateAndCell.get(search.date());
+        if (searchesByCell != null) {
+            removeFrom(searchesByCell, List.of(search.pickupCell()), search);
+        }
+        Map<String, Set<IndexedSearch>> searchesByGram = searchesByDateAndGram.get(search.date());
+        if (searchesByGram != null) {
+            removeFrom(searchesByGram, search.sourceGrams(), search);
+        }
+    }
+    
+    private static <K> void removeFrom(Map<K, Set<IndexedSearch>> index, Collection<K> keys, IndexedSearch search) {
+        for (K key : keys) {
+            index.computeIfPresent(key, (k, searches) -> {
+                searches.remove(search);
+                return searches.isEmpty() ? null : searches;
+            });
+        }
+    }
+    
+    /**
+     * Run once the current transaction commits, or right away outside a transaction
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
+    private SavedSearchResponse mapToResponse(SavedSearch search) {
+        return SavedSearchResponse.builder()
+                .id(search.getId())
+                .source(search.getSource())
+                .destination(search.getDestination())
+                .date(search.getSearchDate().toString())
+                .pickupLat(search.getPickupLat())
+                .pickupLng(search.getPickupLng())
+                .dropLat(search.getDropLat())
+                .dropLng(search.getDropLng())
+                .createdAt(search.getCreatedAt())
+                .build();
+    }
+    
+    /**
+     * Detached copy of a saved search held by the index; equal by id
+     */
+    private record IndexedSearch(Long id, Long passengerId, String source, String destination, LocalDate date,
+                                 double pickupLat, double pickupLng, double dropLat, double dropLng,
+                                 long pickupCell, long dropCell) {
+        
+        static IndexedSearch of(SavedSearch search) {
+            return new IndexedSearch(search.getId(), search.getPassenger().getId(),
+                    search.getSource(), search.getDestination(), search.getSearchDate(),
+                    search.getPickupLat(), search.getPickupLng(), search.getDropLat(), search.getDropLng(),
+                    GeoGrid.cellOf(search.getPickupLat(), search.getPickupLng(), CELL_SIZE_DEG),
+                    GeoGrid.cellOf(search.getDropLat(), search.getDropLng(), CELL_SIZE_DEG));
+        }
+        
+        Set<String> sourceGrams() {
+            return LocationGrams.storedGrams(LocationGrams.normalize(source));
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof IndexedSearch that && id.equals(that.id);
+        }
+        
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.ridehub.service;
+
+import com.ridehub.util.LocationGrams;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight layer in front of the ride searches: identical queries arriving while one
+ * runs wait for its result. Nothing is kept afterwards, caching stays with {@link RideSearchCache}
+ */
+@Service
+@Slf4j
+public class SearchCoalescer {
+
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public static Object searchKey(String source, String destination, String date) {
+        return new FlightKey("search", LocationGrams.normalize(source), LocationGrams.normalize(destination),
+                date, null, null, null, null, null, null);
+    }
+
+    public static Object smartMatchKey(String source, String destination, String date,
+                                       double pickupLat, double pickupLng, double dropLat, double dropLng,
+                                       Integer limit, String time) {
+        return new FlightKey("smart-match", LocationGrams.normalize(source), LocationGrams.normalize(destination),
+                date, pickupLat, pickupLng, dropLat, dropLng, limit, time);
+    }
+
+    /**
+     * Result of work for the key, shared with every concurrent caller of the same key
+     * Failures are shared as well: each waiting caller gets the leader's exception.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Object key, Supplier<T> work) {
+        requests.incrementAndGet();
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+
+        executions.incrementAndGet();
+        try {
+            T result = work.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            failures.incrementAndGet();
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        long requestCount = requests.get();
+        long coalescedCount = coalesced.get();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requestCount);
+        stats.put("executions", executions.get());
+        stats.put("coalesced", coalescedCount);
+        stats.put("coalescingRatio", requestCount == 0 ? 0.0 : (double) coalescedCount / requestCount);
+        stats.put("failures", failures.get());
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    private record FlightKey(String operation, String source, String destination, String date,
+                             Double pickupLat, Double pickupLng, Double dropLat, Double dropLng,
+                             Integer limit, String time) {
+    }
+}
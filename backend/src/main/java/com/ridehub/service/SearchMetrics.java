@@ -0,0 +1,228 @@
+package com.ridehub.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Per-phase latency and size histograms for ride searches
+ * Phases report into the thread's open {@link Trace}; closing it records them and logs slow searches.
+ */
+@Service
+@Slf4j
+public class SearchMetrics {
+
+    public enum Phase {
+        CACHE(false),
+        NAME_MATCH(true),
+        SPATIAL_INDEX(false),
+        CANDIDATE_LOAD(true),
+        ROUTE_MATCH(false),
+        RECURRING(true),
+        RATINGS(true),
+        MAPPING(false);
+
+        private final boolean database;
+
+        Phase(boolean database) {
+            this.database = database;
+        }
+
+        public boolean isDatabase() {
+            return database;
+        }
+    }
+
+    public enum Count {
+        CANDIDATES,
+        MATCHED
+    }
+
+    private final long slowThresholdMicros;
+    private final ThreadLocal<Trace> currentTrace = new ThreadLocal<>();
+    private final Map<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    public SearchMetrics(@Value("${ridehub.search-metrics.slow-threshold-ms:500}") long slowThresholdMillis) {
+        this.slowThresholdMicros = slowThresholdMillis * 1000;
+    }
+
+    /**
+     * Start tracing a search on this thread; close the returned trace when the search ends
+     */
+    public Trace start(String operation) {
+        Trace trace = new Trace(operation, currentTrace.get());
+        currentTrace.set(trace);
+        return trace;
+    }
+
+    /**
+     * Run the phase, charging its time to the current trace (if any)
+     */
+    public <T> T time(Phase phase, Supplier<T> work) {
+        Trace trace = currentTrace.get();
+        if (trace == null) {
+            return work.get();
+        }
+        long started = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            trace.add(phase, System.nanoTime() - started);
+        }
+    }
+
+    public void run(Phase phase, Runnable work) {
+        time(phase, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Charge time measured by the caller to the phase of the current trace (if any)
+     */
+    public void record(Phase phase, long nanos) {
+        Trace trace = currentTrace.get();
+        if (trace != null) {
+            trace.add(phase, nanos);
+        }
+    }
+
+    public void count(Count count, long value) {
+        Trace trace = currentTrace.get();
+        if (trace != null) {
+            trace.counts.put(count, value);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("slowThresholdMs", slowThresholdMicros / 1000);
+        Map<String, Object> byOperation = new LinkedHashMap<>();
+        operations.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> byOperation.put(entry.getKey(), entry.getValue().snapshot()));
+        stats.put("operations", byOperation);
+        return stats;
+    }
+
+    private void finish(Trace trace, long totalNanos) {
+        OperationStats stats = operations.computeIfAbsent(trace.operation, name -> new OperationStats());
+        long totalMicros = totalNanos / 1000;
+        stats.total.record(totalMicros);
+
+        long dbMicros = 0;
+        long phaseMicros = 0;
+        for (Map.Entry<Phase, Long> entry : trace.phases.entrySet()) {
+            long micros = entry.getValue() / 1000;
+            stats.phases.get(entry.getKey()).record(micros);
+            phaseMicros += micros;
+            if (entry.getKey().isDatabase()) {
+                dbMicros += micros;
+            }
+        }
+        stats.database.record(dbMicros);
+        stats.cpu.record(Math.max(0, totalMicros - dbMicros));
+        stats.unattributed.record(Math.max(0, totalMicros - phaseMicros));
+        trace.counts.forEach((count, value) -> stats.counts.get(count).record(value));
+
+        if (totalMicros >= slowThresholdMicros) {
+            stats.slow.incrementAndGet();
+            log.warn("[SearchMetrics] Slow {}: {}", trace.operation, trace.summary(totalMicros, dbMicros));
+        }
+    }
+
+    /**
+     * Timings of one search on one thread
+     */
+    public final class Trace implements AutoCloseable {
+
+        private final String operation;
+        private final Trace parent;
+        private final long startedAt = System.nanoTime();
+        private final Map<Phase, Long> phases = new EnumMap<>(Phase.class);
+        private final Map<Count, Long> counts = new EnumMap<>(Count.class);
+
+        private Trace(String operation, Trace parent) {
+            this.operation = operation;
+            this.parent = parent;
+        }
+
+        private void add(Phase phase, long nanos) {
+            phases.merge(phase, nanos, Long::sum);
+        }
+
+        private String summary(long totalMicros, long dbMicros) {
+            StringBuilder summary = new StringBuilder()
+                    .append(totalMicros / 1000).append("ms (db ").append(dbMicros / 1000)
+                    .append("ms, cpu ").append((totalMicros - dbMicros) / 1000).append("ms)");
+            phases.forEach((phase, nanos) -> summary.append(' ').append(phase.name().toLowerCase())
+                    .append('=').append(nanos / 1_000_000).append("ms"));
+            counts.forEach((count, value) -> summary.append(' ').append(count.name().toLowerCase())
+                    .append('=').append(value));
+            return summary.toString();
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                currentTrace.remove();
+            } else {
+                currentTrace.set(parent);
+            }
+            finish(this, System.nanoTime() - startedAt);
+        }
+    }
+
+    private static final class OperationStats {
+        private final Histogram total = new Histogram(Histogram.LATENCY_BOUNDS_MICROS);
+        private final Histogram database = new Histogram(Histogram.LATENCY_BOUNDS_MICROS);
+        private final Histogram cpu = new Histogram(Histogram.LATENCY_BOUNDS_MICROS);
+        private final Histogram unattributed = new Histogram(Histogram.LATENCY_BOUNDS_MICROS);
+        private final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+        private final Map<Count, Histogram> counts = new EnumMap<>(Count.class);
+        private final AtomicLong slow = new AtomicLong();
+
+        private OperationStats() {
+            for (Phase phase : Phase.values()) {
+                phases.put(phase, new Histogram(Histogram.LATENCY_BOUNDS_MICROS));
+            }
+            for (Count count : Count.values()) {
+                counts.put(count, new Histogram(Histogram.COUNT_BOUNDS));
+            }
+        }
+
+        private Map<String, Object> snapshot() {
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("slow", slow.get());
+            snapshot.put("totalMs", total.snapshot(1000.0));
+            snapshot.put("databaseMs", database.snapshot(1000.0));
+            snapshot.put("cpuMs", cpu.snapshot(1000.0));
+            snapshot.put("unattributedMs", unattributed.snapshot(1000.0));
+
+            Map<String, Object> phaseStats = new LinkedHashMap<>();
+            phases.forEach((phase, histogram) -> {
+                if (histogram.count() > 0) {
+                    phaseStats.put(phase.name().toLowerCase(), histogram.snapshot(1000.0));
+                }
+            });
+            snapshot.put("phasesMs", phaseStats);
+
+            Map<String, Object> countStats = new LinkedHashMap<>();
+            counts.forEach((count, histogram) -> {
+                if (histogram.count() > 0) {
+                    countStats.put(count.name().toLowerCase(), histogram.snapshot(1.0));
+                }
+            });
+            snapshot.put("counts", countStats);
+            return snapshot;
+        }
+    }
+}
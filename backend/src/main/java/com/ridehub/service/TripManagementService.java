@@ -1,9 +1,11 @@
 package com.ridehub.service;
 
+import com.ridehub.config.RetryOnConflict;
 import com.ridehub.model.*;
 import com.ridehub.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +26,7 @@ public class TripManagementService {
     private final NotificationService notificationService;
     private final EmailService emailService;
     private final WalletService walletService;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final int OTP_LENGTH = 6;
     private static final int OTP_EXPIRY_MINUTES = 15;
@@ -37,6 +40,7 @@ public class TripManagementService {
     /**
      * Driver starts the journey - sets trip status to PICKING_UP
      */
+    @RetryOnConflict
     @Transactional
     public void startJourney(Long rideId) {
         User driver = getCurrentUser();
@@ -52,10 +56,10 @@ public class TripManagementService {
             throw new RuntimeException("Cannot start journey - Trip is not in SCHEDULED status");
         }
         
-        // Update trip status
+        // Update trip status - flushed now so a version conflict surfaces before any email goes out
         ride.setTripStatus(Ride.TripStatus.PICKING_UP);
         ride.setTripStartedAt(LocalDateTime.now());
-        rideRepository.save(ride);
+        rideRepository.saveAndFlush(ride);
         
         log.info("Driver {} started journey for ride {}", driver.getId(), rideId);
         
@@ -129,6 +133,7 @@ public class TripManagementService {
     /**
      * Validate onboarding OTP and mark passenger as onboarded
      */
+    @RetryOnConflict
     @Transactional
     public void validateOnboardingOTP(Long bookingId, String otpCode) {
         User driver = getCurrentUser();
@@ -164,7 +169,7 @@ public class TripManagementService {
         // Update booking status
         booking.setStatus(Booking.BookingStatus.ONBOARDED);
         booking.setOnboardedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        bookingRepository.saveAndFlush(booking);
         
         log.info("Passenger onboarded successfully - Booking: {}, Passenger: {}", 
                 bookingId, booking.getPassenger().getId());
@@ -236,6 +241,7 @@ public class TripManagementService {
     /**
      * Validate deboarding OTP and complete booking
      */
+    @RetryOnConflict
     @Transactional
     public void validateDeboardingOTP(Long bookingId, String otpCode) {
         User driver = getCurrentUser();
@@ -271,7 +277,7 @@ public class TripManagementService {
         // Update booking status
         booking.setStatus(Booking.BookingStatus.DEBOARDED);
         booking.setDeboardedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        bookingRepository.saveAndFlush(booking);
         
         log.info("Passenger deboarded successfully - Booking: {}, Passenger: {}", 
                 bookingId, booking.getPassenger().getId());
@@ -295,7 +301,7 @@ public class TripManagementService {
         if (onboardedCount == confirmedBookings.size() && 
             ride.getTripStatus() == Ride.TripStatus.PICKING_UP) {
             ride.setTripStatus(Ride.TripStatus.IN_PROGRESS);
-            rideRepository.save(ride);
+            rideRepository.saveAndFlush(ride);
             
             log.info("All passengers onboarded - Trip {} status updated to IN_PROGRESS", ride.getId());
             
@@ -317,13 +323,14 @@ public class TripManagementService {
             ride.setTripStatus(Ride.TripStatus.COMPLETED);
             ride.setStatus(Ride.RideStatus.COMPLETED);
             ride.setTripCompletedAt(LocalDateTime.now());
-            rideRepository.save(ride);
+            rideRepository.saveAndFlush(ride);
+            eventPublisher.publishEvent(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
             
             // Mark all bookings as completed and unlock funds
             double totalUnlockedAmount = 0.0;
             for (Booking booking : onboardedBookings) {
                 booking.setStatus(Booking.BookingStatus.COMPLETED);
-                bookingRepository.save(booking);
+                bookingRepository.saveAndFlush(booking);
                 
                 // Unlock funds for each booking
                 walletService.unlockFunds(booking);
@@ -364,6 +371,7 @@ public class TripManagementService {
      * Passenger confirms they are ready to start the ride
      * This automatically onboards the passenger (simplified flow without driver OTP)
      */
+    @RetryOnConflict
     @Transactional
     public void passengerStartRide(Long bookingId, Long passengerId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -399,7 +407,7 @@ public class TripManagementService {
         if (booking.getRideStartedAt() == null) {
             booking.setRideStartedAt(now);
         }
-        bookingRepository.save(booking);
+        bookingRepository.saveAndFlush(booking);
         
         log.info("Passenger {} started and onboarded for ride - Booking: {}", passengerId, bookingId);
     }
@@ -408,6 +416,7 @@ public class TripManagementService {
      * Passenger confirms they have completed the ride and reached destination
      * This marks the booking as DEBOARDED from passenger's side
      */
+    @RetryOnConflict
     @Transactional
     public void passengerEndRide(Long bookingId, Long passengerId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -428,7 +437,7 @@ public class TripManagementService {
         booking.setStatus(Booking.BookingStatus.DEBOARDED);
         booking.setDeboardedAt(LocalDateTime.now());
         booking.setRideEndedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        bookingRepository.saveAndFlush(booking);
         
         log.info("Passenger {} ended ride successfully - Booking: {}", passengerId, bookingId);
         
@@ -1,5 +1,6 @@
 package com.ridehub.service;
 
+import com.ridehub.config.RetryOnConflict;
 import com.ridehub.dto.TransactionResponse;
 import com.ridehub.dto.WalletResponse;
 import com.ridehub.dto.WithdrawalRequest;
@@ -50,6 +51,7 @@ public class WalletService {
                 });
     }
     
+    @RetryOnConflict
     @Transactional
     public void creditToWallet(User driver, Double amount, Payment payment, Booking booking) {
         log.info("Starting wallet credit - Driver: {}, Amount: {}, Booking: {}", 
@@ -66,7 +68,7 @@ public class WalletService {
         
         wallet.setLockedBalance(wallet.getLockedBalance() + amount);
         wallet.setTotalEarnings(wallet.getTotalEarnings() + amount);
-        wallet = walletRepository.save(wallet);
+        wallet = walletRepository.saveAndFlush(wallet);
         
         log.info("Updated wallet state - Locked: {} -> {}, Total: {} -> {}",
                 oldLocked, wallet.getLockedBalance(), oldTotal, wallet.getTotalEarnings());
@@ -88,6 +90,7 @@ public class WalletService {
         System.out.println("✓ Credited ₹" + amount + " to driver's wallet (locked balance)");
     }
     
+    @RetryOnConflict
     @Transactional
     public void unlockFunds(Booking booking) {
         HubWallet wallet = getOrCreateWallet(booking.getRide().getDriver());
@@ -102,7 +105,7 @@ public class WalletService {
         // Move from locked to available
         wallet.setLockedBalance(wallet.getLockedBalance() - amountToUnlock);
         wallet.setAvailableBalance(wallet.getAvailableBalance() + amountToUnlock);
-        wallet = walletRepository.save(wallet);
+        wallet = walletRepository.saveAndFlush(wallet);
         
         // Record transaction
         WalletTransaction transaction = WalletTransaction.builder()
@@ -155,6 +158,7 @@ public class WalletService {
                 .collect(Collectors.toList());
     }
     
+    @RetryOnConflict
     @Transactional
     public String withdrawFunds(WithdrawalRequest request) {
         User driver = getCurrentUser();
@@ -170,7 +174,7 @@ public class WalletService {
         
         // Deduct from available balance
         wallet.setAvailableBalance(wallet.getAvailableBalance() - request.getAmount());
-        wallet = walletRepository.save(wallet);
+        wallet = walletRepository.saveAndFlush(wallet);
         
         // Record transaction
         WalletTransaction transaction = WalletTransaction.builder()
@@ -192,6 +196,7 @@ public class WalletService {
         return String.format("Withdrawal of ₹%.2f initiated successfully. Funds will be credited to your bank account within 3-5 business days.", request.getAmount());
     }
     
+    @RetryOnConflict
     @Transactional
     public void releaseLockedFunds(Booking booking) {
         User driver = booking.getRide().getDriver();
@@ -211,7 +216,7 @@ public class WalletService {
         
         wallet.setLockedBalance(wallet.getLockedBalance() - amount);
         wallet.setAvailableBalance(wallet.getAvailableBalance() + amount);
-        wallet = walletRepository.save(wallet);
+        wallet = walletRepository.saveAndFlush(wallet);
         
         // Record transaction
         WalletTransaction transaction = WalletTransaction.builder()
@@ -0,0 +1,83 @@
+package com.ridehub.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Helpers for bucketing coordinates into a fixed lat/lng grid
+ * Cells are addressed by a single long key (row in the high 32 bits, column in the low 32 bits)
+ */
+public final class GeoGrid {
+
+    public static final double KM_PER_DEGREE = 111.32;
+    public static final int MAX_CORRIDOR_CELLS = 100_000;
+
+    private GeoGrid() {
+    }
+
+    public static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    public static int row(double lat, double cellSizeDeg) {
+        return (int) Math.floor(lat / cellSizeDeg);
+    }
+
+    public static int col(double lng, double cellSizeDeg) {
+        return (int) Math.floor(lng / cellSizeDeg);
+    }
+
+    public static long cellOf(double lat, double lng, double cellSizeDeg) {
+        return cellKey(row(lat, cellSizeDeg), col(lng, cellSizeDeg));
+    }
+
+    /**
+     * Convert a distance in km to degrees of longitude at the given latitude
+     */
+    public static double kmToLngDegrees(double km, double lat) {
+        double cos = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat))));
+        return km / (KM_PER_DEGREE * Math.max(cos, 0.01));
+    }
+
+    /**
+     * All cells within paddingKm of the straight segment start -> end.
+     * The segment is sampled every half cell and each sample is padded by paddingKm
+     * plus one cell, so any point within paddingKm of the segment lands in a returned cell.
+     * Throws IllegalArgumentException past MAX_CORRIDOR_CELLS cells.
+     */
+    public static Set<Long> corridorCells(
+            double startLat, double startLng,
+            double endLat, double endLng,
+            double paddingKm, double cellSizeDeg) {
+
+        double step = cellSizeDeg / 2;
+        double maxAbsLat = Math.max(Math.abs(startLat), Math.abs(endLat));
+        double padLat = paddingKm / KM_PER_DEGREE + cellSizeDeg;
+        double padLng = kmToLngDegrees(paddingKm, maxAbsLat + padLat) + cellSizeDeg;
+
+        double span = Math.max(Math.abs(endLat - startLat), Math.abs(endLng - startLng));
+        int samples = Math.max(1, (int) Math.ceil(span / step));
+
+        Set<Long> cells = new HashSet<>();
+        for (int i = 0; i <= samples; i++) {
+            double t = (double) i / samples;
+            double lat = startLat + (endLat - startLat) * t;
+            double lng = startLng + (endLng - startLng) * t;
+
+            int minRow = row(lat - padLat, cellSizeDeg);
+            int maxRow = row(lat + padLat, cellSizeDeg);
+            int minCol = col(lng - padLng, cellSizeDeg);
+            int maxCol = col(lng + padLng, cellSizeDeg);
+
+            for (int r = minRow; r <= maxRow; r++) {
+                for (int c = minCol; c <= maxCol; c++) {
+                    cells.add(cellKey(r, c));
+                }
+            }
+            if (cells.size() > MAX_CORRIDOR_CELLS) {
+                throw new IllegalArgumentException("Route corridor covers more than " + MAX_CORRIDOR_CELLS + " grid cells");
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,123 @@
+package com.ridehub.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Standard base32 geohash encoding plus the prefix cover used for radius lookups
+ */
+public final class Geohash {
+
+    public static final int MAX_PRECISION = 9; // ~4.8m x 4.8m cells
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0;
+        int index = 0;
+
+        while (hash.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) {
+                    index = (index << 1) | 1;
+                    minLng = mid;
+                } else {
+                    index <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    index = (index << 1) | 1;
+                    minLat = mid;
+                } else {
+                    index <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+
+            if (++bit == 5) {
+                hash.append(BASE32.charAt(index));
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Cell height in degrees of latitude at the given precision
+     */
+    public static double cellHeightDeg(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+
+    /**
+     * Cell width in degrees of longitude at the given precision
+     */
+    public static double cellWidthDeg(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+
+    /**
+     * At most nine prefixes (a cell and its neighbours) covering every point within radiusKm
+     */
+    public static Set<String> coverPrefixes(double lat, double lng, double radiusKm) {
+        double radiusLat = radiusKm / GeoGrid.KM_PER_DEGREE;
+        double radiusLng = GeoGrid.kmToLngDegrees(radiusKm, Math.abs(lat) + radiusLat);
+
+        int precision = 1;
+        while (precision < MAX_PRECISION
+                && cellHeightDeg(precision + 1) >= radiusLat
+                && cellWidthDeg(precision + 1) >= radiusLng) {
+            precision++;
+        }
+
+        double height = cellHeightDeg(precision);
+        double width = cellWidthDeg(precision);
+        Set<String> prefixes = new LinkedHashSet<>();
+        for (int dLat = -1; dLat <= 1; dLat++) {
+            double neighbourLat = lat + dLat * height;
+            if (neighbourLat < -90 || neighbourLat > 90) {
+                continue;
+            }
+            for (int dLng = -1; dLng <= 1; dLng++) {
+                double neighbourLng = lng + dLng * width;
+                if (neighbourLng < -180) {
+                    neighbourLng += 360;
+                } else if (neighbourLng >= 180) {
+                    neighbourLng -= 360;
+                }
+                prefixes.add(encode(neighbourLat, neighbourLng, precision));
+            }
+        }
+        return prefixes;
+    }
+
+    /**
+     * Exclusive upper bound of the geohashes (up to MAX_PRECISION characters) starting with the prefix
+     */
+    public static String prefixEnd(String prefix) {
+        StringBuilder end = new StringBuilder(prefix);
+        while (end.length() > 0) {
+            int last = end.length() - 1;
+            int index = BASE32.indexOf(end.charAt(last));
+            if (index < BASE32.length() - 1) {
+                end.setCharAt(last, BASE32.charAt(index + 1));
+                return end.toString();
+            }
+            end.setLength(last);
+        }
+        // Prefix of only 'z': any longer run of 'z' sorts after every hash inside it
+        return "z".repeat(MAX_PRECISION + 1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ridehub.util;
+
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization and trigram helpers for place-name matching
+ * A ride matches a query when either normalized name contains the other; trigrams
+ * give an index-friendly necessary condition for both directions.
+ */
+public final class LocationGrams {
+    
+    public static final int GRAM_LENGTH = 3;
+    
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private LocationGrams() {
+    }
+    
+    /**
+     * Key every place-name comparison uses: lower case, trimmed, single spaces
+     */
+    public static String normalize(String location) {
+        return location == null ? "" : WHITESPACE.matcher(location.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+    
+    /**
+     * Whether a query key is long enough to be matched through trigrams
+     */
+    public static boolean isIndexable(String key) {
+        return key.length() >= GRAM_LENGTH;
+    }
+    
+    /**
+     * Distinct grams stored for a ride's place name: its trigrams,
+     * or the whole name when it is shorter than a trigram
+     */
+    public static Set<String> storedGrams(String key) {
+        Set<String> grams = new LinkedHashSet<>();
+        if (key.length() < GRAM_LENGTH) {
+            if (!key.isEmpty()) {
+                grams.add(key);
+            }
+            return grams;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= key.length(); i++) {
+            grams.add(key.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+    
+    /**
+     * Grams to look up for a query: its trigrams plus every shorter substring,
+     * so rides with names shorter than a trigram can still be found inside the query
+     */
+    public static Set<String> queryGrams(String key) {
+        Set<String> grams = storedGrams(key);
+        for (int length = 1; length < GRAM_LENGTH; length++) {
+            for (int i = 0; i + length <= key.length(); i++) {
+                grams.add(key.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+    
+    /**
+     * Number of distinct trigrams in the query - a ride containing the query has all of them
+     */
+    public static int trigramCount(String key) {
+        return key.length() < GRAM_LENGTH ? 0 : storedGrams(key).size();
+    }
+    
+    /**
+     * Exact matching rule of the location search: either name contains the other
+     */
+    public static boolean eitherContains(String rideLocation, String queryKey) {
+        String rideKey = normalize(rideLocation);
+        return rideKey.contains(queryKey) || queryKey.contains(rideKey);
+    }
+}
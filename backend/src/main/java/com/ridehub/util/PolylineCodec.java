@@ -0,0 +1,87 @@
+package com.ridehub.util;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Compact binary encoding for route polylines
+ * Coordinates are rounded to 1e-5 degrees (~1m) and stored as zigzag varint deltas.
+ */
+public final class PolylineCodec {
+
+    private static final double SCALE = 1e5;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Encode vertices given as interleaved lat, lng pairs
+     */
+    public static byte[] encode(double[] latLngs) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(latLngs.length * 3 + 2);
+        int vertices = latLngs.length / 2;
+        writeVarint(out, vertices);
+
+        long prevLat = 0;
+        long prevLng = 0;
+        for (int i = 0; i < vertices; i++) {
+            long lat = Math.round(latLngs[2 * i] * SCALE);
+            long lng = Math.round(latLngs[2 * i + 1] * SCALE);
+            writeVarint(out, zigzag(lat - prevLat));
+            writeVarint(out, zigzag(lng - prevLng));
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode to interleaved lat, lng pairs
+     */
+    public static double[] decode(byte[] encoded) {
+        int[] position = {0};
+        int vertices = (int) readVarint(encoded, position);
+        double[] latLngs = new double[vertices * 2];
+
+        long lat = 0;
+        long lng = 0;
+        for (int i = 0; i < vertices; i++) {
+            lat += unzigzag(readVarint(encoded, position));
+            lng += unzigzag(readVarint(encoded, position));
+            latLngs[2 * i] = lat / SCALE;
+            latLngs[2 * i + 1] = lng / SCALE;
+        }
+        return latLngs;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarint(byte[] bytes, int[] position) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (position[0] >= bytes.length) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            byte b = bytes[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
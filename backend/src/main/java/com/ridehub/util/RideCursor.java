@@ -0,0 +1,41 @@
+package com.ridehub.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a ride listing ordered by (rideDate, rideTime, id)
+ * Travels to clients as an opaque URL-safe token.
+ */
+public record RideCursor(LocalDate rideDate, LocalTime rideTime, Long id) {
+    
+    private static final String SEPARATOR = "|";
+    
+    /**
+     * Position before every ride departing on or after the given date
+     */
+    public static RideCursor startOf(LocalDate date) {
+        return new RideCursor(date, LocalTime.MIN, 0L);
+    }
+    
+    public String encode() {
+        String raw = rideDate + SEPARATOR + rideTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static RideCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new RideCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
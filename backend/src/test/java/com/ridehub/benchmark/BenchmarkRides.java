@@ -0,0 +1,77 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.model.Ride;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic rides and queries shared by the benchmarks
+ * Straight routes of 20-300 km spread over south India, so a query only matches a few rides.
+ */
+final class BenchmarkRides {
+
+    private BenchmarkRides() {
+    }
+
+    static List<Ride> generate(int count, LocalDate date, long seed) {
+        Random random = new Random(seed);
+        List<Ride> rides = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double sourceLat = 8 + random.nextDouble() * 12;
+            double sourceLng = 74 + random.nextDouble() * 10;
+            double lengthDeg = 0.2 + random.nextDouble() * 2.5;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            rides.add(Ride.builder()
+                    .id((long) i + 1)
+                    .source("Source " + i)
+                    .destination("Destination " + i)
+                    .rideDate(date)
+                    .rideTime(LocalTime.of(6 + i % 16, i % 60))
+                    .totalSeats(4)
+                    .availableSeats(4)
+                    .farePerKm(8.0)
+                    .sourceLat(sourceLat)
+                    .sourceLng(sourceLng)
+                    .destLat(sourceLat + lengthDeg * Math.cos(bearing))
+                    .destLng(sourceLng + lengthDeg * Math.sin(bearing))
+                    .status(Ride.RideStatus.AVAILABLE)
+                    .tripStatus(Ride.TripStatus.SCHEDULED)
+                    .build());
+        }
+        return rides;
+    }
+
+    /**
+     * Pickup/drop pairs as {pickupLat, pickupLng, dropLat, dropLng}: half lie along a random
+     * ride (so something matches), half are random points (so most searches miss)
+     */
+    static double[][] queries(List<Ride> rides, int count, long seed) {
+        Random random = new Random(seed);
+        double[][] queries = new double[count][];
+        for (int i = 0; i < count; i++) {
+            if (i % 2 == 0) {
+                Ride ride = rides.get(random.nextInt(rides.size()));
+                double from = random.nextDouble() * 0.4;
+                double to = 0.6 + random.nextDouble() * 0.4;
+                queries[i] = new double[] {
+                        lerp(ride.getSourceLat(), ride.getDestLat(), from),
+                        lerp(ride.getSourceLng(), ride.getDestLng(), from),
+                        lerp(ride.getSourceLat(), ride.getDestLat(), to),
+                        lerp(ride.getSourceLng(), ride.getDestLng(), to)};
+            } else {
+                double lat = 8 + random.nextDouble() * 12;
+                double lng = 74 + random.nextDouble() * 10;
+                queries[i] = new double[] {lat, lng, lat + random.nextDouble() - 0.5, lng + random.nextDouble() - 0.5};
+            }
+        }
+        return queries;
+    }
+
+    private static double lerp(double from, double to, double t) {
+        return from + (to - from) * t;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.model.Ride;
+import com.ridehub.service.GeospatialService;
+import com.ridehub.util.Geohash;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nearby-ride lookup through geohash prefix ranges over a sorted hash column (as the
+ * database index serves it) against distance-checking every ride on the date
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GeohashNearbyBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    @Param({"10000", "100000"})
+    public int rides;
+
+    private GeospatialService geospatialService;
+    private Ride[] byHash;
+    private String[] hashes;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geospatialService = new GeospatialService();
+        List<Ride> all = BenchmarkRides.generate(rides, DATE, 1);
+        all.forEach(ride -> ride.setSourceGeohash(
+                Geohash.encode(ride.getSourceLat(), ride.getSourceLng(), Geohash.MAX_PRECISION)));
+        byHash = all.toArray(new Ride[0]);
+        Arrays.sort(byHash, Comparator.comparing(Ride::getSourceGeohash));
+        hashes = Arrays.stream(byHash).map(Ride::getSourceGeohash).toArray(String[]::new);
+
+        Random random = new Random(2);
+        queries = new double[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new double[] {8 + random.nextDouble() * 12, 74 + random.nextDouble() * 10,
+                    2 + random.nextDouble() * 23};
+        }
+        for (double[] q : queries) {
+            if (viaGeohash(q) != viaScan(q)) {
+                throw new IllegalStateException("Geohash lookup disagrees with the scan at " + Arrays.toString(q));
+            }
+        }
+    }
+
+    @Benchmark
+    public int geohashRanges() {
+        return viaGeohash(queries[next++ & 1023]);
+    }
+
+    @Benchmark
+    public int fullScan() {
+        return viaScan(queries[next++ & 1023]);
+    }
+
+    private int viaGeohash(double[] q) {
+        int matches = 0;
+        for (String prefix : Geohash.coverPrefixes(q[0], q[1], q[2])) {
+            int to = lowerBound(Geohash.prefixEnd(prefix));
+            for (int i = lowerBound(prefix); i < to; i++) {
+                if (within(byHash[i], q)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    private int viaScan(double[] q) {
+        int matches = 0;
+        for (Ride ride : byHash) {
+            if (within(ride, q)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private boolean within(Ride ride, double[] q) {
+        return geospatialService.calculateDistance(q[0], q[1], ride.getSourceLat(), ride.getSourceLng()) <= q[2];
+    }
+
+    private int lowerBound(String key) {
+        int index = Arrays.binarySearch(hashes, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        while (index > 0 && hashes[index - 1].equals(key)) {
+            index--;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,228 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.util.LocationGrams;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Location search on a Postgres container with a million rides: the original double-sided
+ * LIKE query against the ride_location_grams lookup (same SQL shape the JPQL queries generate)
+ * Needs Docker. Setup loads the data once per fork and checks both queries agree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class LocationSearchBenchmark {
+
+    private static final String LIKE_SQL =
+            "SELECT r.id FROM rides r WHERE "
+            + "(lower(r.source) LIKE '%' || lower(?) || '%' OR lower(?) LIKE '%' || lower(r.source) || '%') AND "
+            + "(lower(r.destination) LIKE '%' || lower(?) || '%' OR lower(?) LIKE '%' || lower(r.destination) || '%') AND "
+            + "r.ride_date = ? AND r.status = 'AVAILABLE' AND r.available_seats > 0 "
+            + "ORDER BY r.ride_time, r.id";
+
+    private static final String GRAM_SQL =
+            "SELECT r.id, r.source, r.destination FROM rides r WHERE r.ride_date = ? AND r.status = 'AVAILABLE' "
+            + "AND r.available_seats > 0 "
+            + "AND r.id IN (SELECT g.ride_id FROM ride_location_grams g WHERE g.endpoint = 'SOURCE' "
+            + "AND g.ride_date = ? AND g.gram = ANY(?) GROUP BY g.ride_id, g.gram_count "
+            + "HAVING count(*) = g.gram_count OR count(*) >= ?) "
+            + "AND r.id IN (SELECT g.ride_id FROM ride_location_grams g WHERE g.endpoint = 'DESTINATION' "
+            + "AND g.ride_date = ? AND g.gram = ANY(?) GROUP BY g.ride_id, g.gram_count "
+            + "HAVING count(*) = g.gram_count OR count(*) >= ?) "
+            + "ORDER BY r.ride_time, r.id";
+
+    @Param({"1000000"})
+    public int rides;
+
+    @Param({"30"})
+    public int days;
+
+    private PostgreSQLContainer<?> postgres;
+    private Connection connection;
+    private List<String[]> queries;
+    private int next;
+
+    @Setup
+    public void setUp() throws SQLException {
+        postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+        postgres.start();
+        connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+
+        List<String> places = places(2000);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE places (name text PRIMARY KEY)");
+            statement.execute("CREATE TABLE place_grams (name text, gram varchar(8), gram_count int)");
+            statement.execute("CREATE TABLE rides (id bigint PRIMARY KEY, source text, destination text, "
+                    + "ride_date date, ride_time time, status varchar(16), available_seats int)");
+            statement.execute("CREATE TABLE ride_location_grams (id bigserial PRIMARY KEY, ride_id bigint, "
+                    + "endpoint varchar(16), ride_date date, gram varchar(8), gram_count int)");
+        }
+        try (PreparedStatement place = connection.prepareStatement("INSERT INTO places VALUES (?)");
+             PreparedStatement gram = connection.prepareStatement("INSERT INTO place_grams VALUES (?, ?, ?)")) {
+            for (String name : places) {
+                place.setString(1, name);
+                place.addBatch();
+                Set<String> grams = LocationGrams.storedGrams(LocationGrams.normalize(name));
+                for (String g : grams) {
+                    gram.setString(1, name);
+                    gram.setString(2, g);
+                    gram.setInt(3, grams.size());
+                    gram.addBatch();
+                }
+            }
+            place.executeBatch();
+            gram.executeBatch();
+        }
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TEMP TABLE numbered AS SELECT name, row_number() OVER (ORDER BY name) - 1 AS n FROM places");
+            statement.execute("INSERT INTO rides SELECT i, s.name, d.name, DATE '2030-01-01' + (i % " + days + "), "
+                    + "TIME '06:00' + (i % 960) * INTERVAL '1 minute', "
+                    + "CASE WHEN i % 10 = 0 THEN 'FULL' ELSE 'AVAILABLE' END, CASE WHEN i % 10 = 0 THEN 0 ELSE 3 END "
+                    + "FROM generate_series(1, " + rides + ") i "
+                    + "JOIN numbered s ON s.n = (i * 7919) % " + places.size() + " "
+                    + "JOIN numbered d ON d.n = (i * 104729 + 13) % " + places.size());
+            for (String endpoint : new String[] {"SOURCE", "DESTINATION"}) {
+                String column = endpoint.equals("SOURCE") ? "source" : "destination";
+                statement.execute("INSERT INTO ride_location_grams (ride_id, endpoint, ride_date, gram, gram_count) "
+                        + "SELECT r.id, '" + endpoint + "', r.ride_date, g.gram, g.gram_count "
+                        + "FROM rides r JOIN place_grams g ON g.name = r." + column);
+            }
+            statement.execute("CREATE INDEX idx_rides_status_date_time ON rides (status, ride_date, ride_time)");
+            statement.execute("CREATE INDEX idx_ride_location_grams_lookup ON ride_location_grams (endpoint, ride_date, gram, ride_id)");
+            statement.execute("ANALYZE");
+        }
+
+        Random random = new Random(3);
+        queries = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            queries.add(new String[] {
+                    queryFor(places.get(random.nextInt(places.size())), random),
+                    queryFor(places.get(random.nextInt(places.size())), random),
+                    "2030-01-" + String.format("%02d", 1 + random.nextInt(Math.min(days, 28)))});
+        }
+        for (String[] query : queries) {
+            if (!like(query).equals(grams(query))) {
+                throw new IllegalStateException("LIKE and trigram lookups disagree for " + String.join(" / ", query));
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<Long> likeScan() throws SQLException {
+        return like(queries.get(next++ & 63));
+    }
+
+    @Benchmark
+    public List<Long> trigramLookup() throws SQLException {
+        return grams(queries.get(next++ & 63));
+    }
+
+    private List<Long> like(String[] query) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(LIKE_SQL)) {
+            statement.setString(1, query[0]);
+            statement.setString(2, query[0]);
+            statement.setString(3, query[1]);
+            statement.setString(4, query[1]);
+            statement.setObject(5, LocalDate.parse(query[2]));
+            List<Long> ids = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    ids.add(rows.getLong(1));
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * The trigram candidates confirmed with eitherContains, as LocationMatchingService does
+     */
+    private List<Long> grams(String[] query) throws SQLException {
+        String sourceKey = LocationGrams.normalize(query[0]);
+        String destinationKey = LocationGrams.normalize(query[1]);
+        LocalDate date = LocalDate.parse(query[2]);
+        try (PreparedStatement statement = connection.prepareStatement(GRAM_SQL)) {
+            Array sourceGrams = connection.createArrayOf("varchar", LocationGrams.queryGrams(sourceKey).toArray());
+            Array destinationGrams = connection.createArrayOf("varchar", LocationGrams.queryGrams(destinationKey).toArray());
+            statement.setObject(1, date);
+            statement.setObject(2, date);
+            statement.setArray(3, sourceGrams);
+            statement.setLong(4, LocationGrams.trigramCount(sourceKey));
+            statement.setObject(5, date);
+            statement.setArray(6, destinationGrams);
+            statement.setLong(7, LocationGrams.trigramCount(destinationKey));
+            List<Long> ids = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    if (LocationGrams.eitherContains(rows.getString(2), sourceKey)
+                            && LocationGrams.eitherContains(rows.getString(3), destinationKey)) {
+                        ids.add(rows.getLong(1));
+                    }
+                }
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Two-part synthetic place names ("Kora Nagar") so substrings of one name also occur in others
+     */
+    private static List<String> places(int count) {
+        String[] first = {"Kora", "Indira", "Jaya", "Raja", "Vijaya", "Mahadeva", "Hebba", "Yela", "Banash",
+                "Elec", "Whit", "Marat", "Sarja", "Kengeri", "Bellan", "Hosa", "Ulsoo", "Malle", "Basava", "Shiva"};
+        String[] second = {"Nagar", "Pura", "Halli", "Palya", "Layout", "Road", "Circle", "Gudi", "Wadi", "Pet"};
+        List<String> names = new ArrayList<>(count);
+        for (int i = 0; names.size() < count; i++) {
+            String name = first[i % first.length] + " " + second[(i / first.length) % second.length];
+            names.add(i < first.length * second.length ? name : name + " " + (i / (first.length * second.length)));
+        }
+        return names;
+    }
+
+    /**
+     * Whole names, a leading word, or a name with a suffix the ride names do not have
+     */
+    private static String queryFor(String place, Random random) {
+        return switch (random.nextInt(3)) {
+            case 0 -> place;
+            case 1 -> place.substring(0, place.indexOf(' '));
+            default -> place + " bus stand";
+        };
+    }
+}
@@ -0,0 +1,80 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.model.Ride;
+import com.ridehub.service.GeospatialService;
+import com.ridehub.service.ParallelRouteMatcher;
+import com.ridehub.service.RouteColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential batch matching against the fork-join matcher forced parallel, across batch sizes
+ * around the default parallel-threshold (2048) to find where splitting starts to pay off
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ParallelMatcherBenchmark {
+
+    @Param({"256", "1024", "2048", "4096", "16384", "65536"})
+    public int rides;
+
+    private GeospatialService geospatialService;
+    private ParallelRouteMatcher parallel;
+    private RouteColumns columns;
+    private long[] matches;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geospatialService = new GeospatialService();
+        parallel = new ParallelRouteMatcher(geospatialService, 0, 0);
+        List<Ride> all = BenchmarkRides.generate(rides, LocalDate.of(2030, 1, 15), 1);
+        columns = geospatialService.buildRouteColumns(
+                all.stream().mapToDouble(Ride::getSourceLat).toArray(),
+                all.stream().mapToDouble(Ride::getSourceLng).toArray(),
+                all.stream().mapToDouble(Ride::getDestLat).toArray(),
+                all.stream().mapToDouble(Ride::getDestLng).toArray(),
+                rides);
+        matches = new long[columns.bitsetWords()];
+        queries = BenchmarkRides.queries(all, 1024, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        parallel.shutdown();
+    }
+
+    @Benchmark
+    public int sequential() {
+        double[] q = queries[next++ & 1023];
+        Arrays.fill(matches, 0L);
+        return geospatialService.matchRoutes(q[0], q[1], q[2], q[3], columns, matches);
+    }
+
+    @Benchmark
+    public int forkJoin() {
+        double[] q = queries[next++ & 1023];
+        Arrays.fill(matches, 0L);
+        return parallel.matchRoutes(q[0], q[1], q[2], q[3], columns, matches);
+    }
+}
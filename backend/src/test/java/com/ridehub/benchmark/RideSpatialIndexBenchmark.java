@@ -0,0 +1,114 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.model.Ride;
+import com.ridehub.service.GeospatialService;
+import com.ridehub.service.RideChangedEvent;
+import com.ridehub.service.RideSpatialIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Smart route matching through the grid index (candidates, then the exact check)
+ * against checking every ride on the date
+ * The scan applies the same corridor-box filter as the database fallback query; setup
+ * checks that the index never drops a ride that scan finds.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RideSpatialIndexBenchmark {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    @Param({"1000", "10000", "50000"})
+    public int rides;
+
+    private GeospatialService geospatialService;
+    private RideSpatialIndex index;
+    private List<Ride> all;
+    private Map<Long, Ride> byId;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geospatialService = new GeospatialService();
+        index = new RideSpatialIndex(null, geospatialService);
+        all = BenchmarkRides.generate(rides, DATE, 1);
+        byId = new HashMap<>();
+        for (Ride ride : all) {
+            geospatialService.applyCorridorBounds(ride);
+            index.onRideChanged(new RideChangedEvent(ride, RideChangedEvent.ChangeType.CREATED));
+            byId.put(ride.getId(), ride);
+        }
+        queries = BenchmarkRides.queries(all, 1024, 2);
+
+        for (double[] q : queries) {
+            Set<Long> candidates = index.findCandidateIds(DATE, q[0], q[1], q[2], q[3]);
+            for (Ride ride : all) {
+                if (scanMatches(ride, q) && !candidates.contains(ride.getId())) {
+                    throw new IllegalStateException("Index dropped ride " + ride.getId());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int gridIndex() {
+        return viaIndex(queries[next++ & 1023]);
+    }
+
+    @Benchmark
+    public int fullScan() {
+        return viaScan(queries[next++ & 1023]);
+    }
+
+    private int viaIndex(double[] q) {
+        int matches = 0;
+        for (Long rideId : index.findCandidateIds(DATE, q[0], q[1], q[2], q[3])) {
+            if (geospatialService.doPointsMatchRide(q[0], q[1], q[2], q[3], byId.get(rideId))) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private int viaScan(double[] q) {
+        int matches = 0;
+        for (Ride ride : all) {
+            if (scanMatches(ride, q)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    private boolean scanMatches(Ride ride, double[] q) {
+        return inCorridor(ride, q[0], q[1]) && inCorridor(ride, q[2], q[3])
+                && geospatialService.doPointsMatchRide(q[0], q[1], q[2], q[3], ride);
+    }
+
+    private static boolean inCorridor(Ride ride, double lat, double lng) {
+        return lat >= ride.getCorridorMinLat() && lat <= ride.getCorridorMaxLat()
+                && lng >= ride.getCorridorMinLng() && lng <= ride.getCorridorMaxLng();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ridehub.benchmark;
+
+import com.ridehub.model.Ride;
+import com.ridehub.service.GeospatialService;
+import com.ridehub.service.RouteColumns;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One pickup/drop pair against every ride of a date: the per-ride doPointsMatchRide loop
+ * over cached geometry against the struct-of-arrays batch matcher
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RouteMatchingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    public int rides;
+
+    private GeospatialService geospatialService;
+    private List<Ride> all;
+    private RouteColumns columns;
+    private long[] matches;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        geospatialService = new GeospatialService();
+        all = BenchmarkRides.generate(rides, LocalDate.of(2030, 1, 15), 1);
+        all.forEach(geospatialService::getRouteGeometry);
+
+        double[] startLat = all.stream().mapToDouble(Ride::getSourceLat).toArray();
+        double[] startLng = all.stream().mapToDouble(Ride::getSourceLng).toArray();
+        double[] endLat = all.stream().mapToDouble(Ride::getDestLat).toArray();
+        double[] endLng = all.stream().mapToDouble(Ride::getDestLng).toArray();
+        columns = geospatialService.buildRouteColumns(startLat, startLng, endLat, endLng, rides);
+        matches = new long[columns.bitsetWords()];
+        queries = BenchmarkRides.queries(all, 1024, 2);
+    }
+
+    @Benchmark
+    public int perRide() {
+        double[] q = queries[next++ & 1023];
+        int count = 0;
+        for (Ride ride : all) {
+            if (geospatialService.doPointsMatchRide(q[0], q[1], q[2], q[3], ride)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int batch() {
+        double[] q = queries[next++ & 1023];
+        Arrays.fill(matches, 0L);
+        return geospatialService.matchRoutes(q[0], q[1], q[2], q[3], columns, matches);
+    }
+}
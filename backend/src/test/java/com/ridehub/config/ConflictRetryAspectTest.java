@@ -0,0 +1,113 @@
+package com.ridehub.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ConflictRetryAspectTest {
+
+    private final ConflictRetryAspect aspect = new ConflictRetryAspect();
+    private final ConflictingService target = new ConflictingService();
+    private final ConflictingService service = proxy(target);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void retriesUntilTheConflictClears() {
+        target.conflictsLeft = 2;
+        assertEquals("saved", service.save());
+        assertEquals(3, target.attempts);
+
+        Map<String, Object> stats = methodStats("save");
+        assertEquals(1L, stats.get("calls"));
+        assertEquals(1L, stats.get("conflictedCalls"));
+        assertEquals(2L, stats.get("conflicts"));
+        assertEquals(2L, stats.get("retries"));
+        assertEquals(1L, stats.get("recovered"));
+        assertEquals(0L, stats.get("exhausted"));
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        target.conflictsLeft = Integer.MAX_VALUE;
+        assertThrows(OptimisticLockingFailureException.class, service::save);
+        assertEquals(3, target.attempts);
+
+        Map<String, Object> stats = methodStats("save");
+        assertEquals(1L, stats.get("exhausted"));
+        assertEquals(0L, stats.get("recovered"));
+    }
+
+    @Test
+    void callInsideARunningTransactionIsLeftToTheOutermostCaller() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        target.conflictsLeft = 1;
+        assertThrows(OptimisticLockingFailureException.class, service::save);
+        assertEquals(1, target.attempts);
+        assertEquals(0L, aspect.getStats().get("calls"));
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        assertThrows(IllegalStateException.class, service::fail);
+        assertEquals(1, target.attempts);
+        assertEquals(0L, methodStats("fail").get("conflicts"));
+    }
+
+    @Test
+    void unannotatedMethodsAreNotAdvised() {
+        target.conflictsLeft = 1;
+        assertThrows(OptimisticLockingFailureException.class, service::saveWithoutRetry);
+        assertEquals(1, target.attempts);
+        assertEquals(0L, aspect.getStats().get("calls"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> methodStats(String method) {
+        Map<String, Object> methods = (Map<String, Object>) aspect.getStats().get("methods");
+        return (Map<String, Object>) methods.get("ConflictingService." + method);
+    }
+
+    private ConflictingService proxy(ConflictingService target) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(aspect);
+        return factory.getProxy();
+    }
+
+    static class ConflictingService {
+
+        int conflictsLeft;
+        int attempts;
+
+        @RetryOnConflict(maxAttempts = 3, backoffMs = 1)
+        public String save() {
+            return saveWithoutRetry();
+        }
+
+        public String saveWithoutRetry() {
+            attempts++;
+            if (conflictsLeft > 0) {
+                conflictsLeft--;
+                throw new OptimisticLockingFailureException("Row was updated by another transaction");
+            }
+            return "saved";
+        }
+
+        @RetryOnConflict(backoffMs = 1)
+        public void fail() {
+            attempts++;
+            throw new IllegalStateException("not a conflict");
+        }
+    }
+}
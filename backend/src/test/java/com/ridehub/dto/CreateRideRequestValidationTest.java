@@ -0,0 +1,74 @@
+package com.ridehub.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CreateRideRequestValidationTest {
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Test
+    void validRequestPasses() {
+        assertTrue(validator.validate(request()).isEmpty());
+    }
+
+    @Test
+    void outOfRangeCoordinatesAreRejected() {
+        CreateRideRequest request = request();
+        request.setSourceLat(91.0);
+        request.setDestLng(-180.5);
+        assertEquals(Set.of("sourceLat", "destLng"), invalidPaths(request));
+    }
+
+    @Test
+    void everyWaypointIsValidated() {
+        CreateRideRequest request = request();
+        request.setWaypoints(Arrays.asList(new RouteWaypoint(12.95, 77.6), new RouteWaypoint(12.9, 200.0), null));
+        assertEquals(Set.of("waypoints[1].lng", "waypoints[2].<list element>"), invalidPaths(request));
+    }
+
+    @Test
+    void waypointCountIsCapped() {
+        CreateRideRequest request = request();
+        List<RouteWaypoint> waypoints = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            waypoints.add(new RouteWaypoint(12.9 + i * 0.001, 77.6));
+        }
+        request.setWaypoints(waypoints);
+        assertEquals(Set.of("waypoints"), invalidPaths(request));
+    }
+
+    private Set<String> invalidPaths(CreateRideRequest request) {
+        Set<String> paths = new HashSet<>();
+        for (ConstraintViolation<CreateRideRequest> violation : validator.validate(request)) {
+            paths.add(violation.getPropertyPath().toString());
+        }
+        return paths;
+    }
+
+    private static CreateRideRequest request() {
+        return CreateRideRequest.builder()
+                .source("Koramangala")
+                .destination("Whitefield")
+                .rideDate("2030-01-15")
+                .rideTime("08:30")
+                .totalSeats(3)
+                .farePerKm(8.0)
+                .sourceLat(12.93)
+                .sourceLng(77.62)
+                .destLat(12.97)
+                .destLng(77.75)
+                .build();
+    }
+}
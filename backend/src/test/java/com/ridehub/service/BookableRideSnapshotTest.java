@@ -0,0 +1,127 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookableRideSnapshotTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(2);
+    private static final BookableRideSnapshot.Filter BOOKABLE =
+            BookableRideSnapshot.Filter.bookableAt(LocalDateTime.now());
+
+    private final GeospatialService geospatialService = new GeospatialService();
+    private final ParallelRouteMatcher matcher = new ParallelRouteMatcher(geospatialService, 1, Integer.MAX_VALUE);
+    private final AtomicInteger loads = new AtomicInteger();
+    private BookableRideSnapshot snapshot;
+
+    @AfterEach
+    void shutdown() {
+        matcher.shutdown();
+    }
+
+    @Test
+    void rideEventsAreAppliedWithoutARebuild() {
+        snapshot = snapshotLoading(() -> rows(puneToMumbai(1L, 9, 3)));
+        snapshot.warmUp();
+
+        snapshot.onRideChanged(new RideChangedEvent(puneToMumbai(2L, 10, 2), RideChangedEvent.ChangeType.CREATED));
+        Ride cancelled = puneToMumbai(1L, 9, 3);
+        cancelled.setStatus(Ride.RideStatus.CANCELLED);
+        snapshot.onRideChanged(new RideChangedEvent(cancelled, RideChangedEvent.ChangeType.STATUS_CHANGED));
+
+        assertEquals(Set.of(2L), matching(BOOKABLE));
+        snapshot.rebuildIfExpired();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void seatChangesOnlyUpdateTheSeatsColumn() {
+        snapshot = snapshotLoading(() -> rows(puneToMumbai(1L, 9, 3), puneToMumbai(2L, 10, 3)));
+        snapshot.warmUp();
+        BookableRideSnapshot.Filter twoSeats = new BookableRideSnapshot.Filter(LocalDateTime.now(), 2, 100.0);
+
+        snapshot.onRideChanged(new RideChangedEvent(puneToMumbai(1L, 9, 1), RideChangedEvent.ChangeType.SEATS_CHANGED));
+
+        assertEquals(Set.of(2L), matching(twoSeats));
+        assertEquals(Set.of(1L, 2L), matching(BOOKABLE));
+    }
+
+    @Test
+    void columnsFilterBeforeAnyRouteIsMatched() {
+        Ride expensive = puneToMumbai(2L, 10, 3);
+        expensive.setFarePerKm(25.0);
+        snapshot = snapshotLoading(() -> rows(puneToMumbai(1L, 9, 3), expensive));
+        snapshot.warmUp();
+
+        assertEquals(Set.of(1L), matching(new BookableRideSnapshot.Filter(LocalDateTime.now(), 1, 20.0)));
+        assertEquals(Set.of(2L), matching(new BookableRideSnapshot.Filter(LocalDateTime.of(DATE, LocalTime.of(9, 30)), 1, 100.0)));
+    }
+
+    @Test
+    void eventsArrivingDuringARebuildAreAppliedAfterTheSwap() {
+        snapshot = snapshotLoading(() -> {
+            snapshot.onRideChanged(new RideChangedEvent(puneToMumbai(3L, 11, 3), RideChangedEvent.ChangeType.CREATED));
+            return rows(puneToMumbai(1L, 9, 3));
+        });
+        snapshot.warmUp();
+
+        assertEquals(Set.of(1L, 3L), matching(BOOKABLE));
+    }
+
+    private Set<Long> matching(BookableRideSnapshot.Filter filter) {
+        return snapshot.findMatchingIds(DATE, filter, Set.of(), 18.60, 73.70, 18.95, 73.10);
+    }
+
+    private BookableRideSnapshot snapshotLoading(Supplier<List<Object[]>> load) {
+        RideRepository repository = (RideRepository) Proxy.newProxyInstance(RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findBookableRideColumns")) {
+                        loads.incrementAndGet();
+                        return load.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new BookableRideSnapshot(repository, geospatialService, matcher, new RideSearchCache(100, 60),
+                5000, 300000);
+    }
+
+    private static List<Object[]> rows(Ride... rides) {
+        List<Object[]> rows = new ArrayList<>();
+        for (Ride ride : rides) {
+            rows.add(new Object[] {ride.getId(), ride.getRideDate(), ride.getSourceLat(), ride.getSourceLng(),
+                    ride.getDestLat(), ride.getDestLng(), ride.getRoutePolyline(),
+                    ride.getRideTime(), ride.getAvailableSeats(), ride.getFarePerKm()});
+        }
+        return rows;
+    }
+
+    private static Ride puneToMumbai(Long id, int hour, int seats) {
+        return Ride.builder()
+                .id(id)
+                .source("Pune")
+                .destination("Mumbai")
+                .sourceLat(18.52).sourceLng(73.85)
+                .destLat(19.07).destLng(72.87)
+                .rideDate(DATE)
+                .rideTime(LocalTime.of(hour, 0))
+                .totalSeats(3)
+                .availableSeats(seats)
+                .farePerKm(10.0)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+}
@@ -0,0 +1,149 @@
+package com.ridehub.service;
+
+import com.ridehub.dto.BookingRequest;
+import com.ridehub.model.Ride;
+import com.ridehub.model.User;
+import com.ridehub.repository.BookingRepository;
+import com.ridehub.repository.RideRepository;
+import com.ridehub.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Many passengers booking the last seats of one ride at once (needs Docker)
+ */
+@SpringBootTest
+@Testcontainers
+class BookingConcurrencyTest {
+
+    private static final int SEATS = 3;
+    private static final int PASSENGERS = 16;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @MockBean
+    private EmailService emailService;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Test
+    void concurrentBookingsNeverOversell() throws Exception {
+        User driver = userRepository.save(user("driver@example.com", User.Role.DRIVER));
+        Ride ride = rideRepository.save(Ride.builder()
+                .driver(driver)
+                .source("Pune")
+                .destination("Mumbai")
+                .rideDate(LocalDate.now().plusDays(3))
+                .rideTime(LocalTime.of(9, 0))
+                .totalSeats(SEATS)
+                .availableSeats(SEATS)
+                .farePerKm(10.0)
+                .distance(150.0)
+                .sourceLat(18.52).sourceLng(73.85)
+                .destLat(19.07).destLng(72.87)
+                .status(Ride.RideStatus.AVAILABLE)
+                .tripStatus(Ride.TripStatus.SCHEDULED)
+                .build());
+
+        List<String> passengers = new ArrayList<>();
+        for (int i = 0; i < PASSENGERS; i++) {
+            passengers.add(userRepository.save(user("passenger" + i + "@example.com", User.Role.PASSENGER)).getEmail());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(PASSENGERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> attempts = new ArrayList<>();
+        try {
+            for (String email : passengers) {
+                attempts.add(pool.submit(() -> {
+                    SecurityContextHolder.setContext(new SecurityContextImpl(
+                            new UsernamePasswordAuthenticationToken(email, null, List.of())));
+                    try {
+                        start.await();
+                        bookingService.createBooking(request(ride.getId()));
+                        return true;
+                    } catch (RuntimeException e) {
+                        return false;
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                }));
+            }
+            start.countDown();
+
+            int booked = 0;
+            for (Future<Boolean> attempt : attempts) {
+                if (attempt.get(60, TimeUnit.SECONDS)) {
+                    booked++;
+                }
+            }
+            assertEquals(SEATS, booked);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Ride after = rideRepository.findById(ride.getId()).orElseThrow();
+        assertEquals(0, after.getAvailableSeats());
+        assertEquals(Ride.RideStatus.FULL, after.getStatus());
+        assertEquals(SEATS, bookingRepository.findByRide(after).size());
+    }
+
+    private static BookingRequest request(Long rideId) {
+        return BookingRequest.builder()
+                .rideId(rideId)
+                .seatsBooked(1)
+                .pickupLocation("Pune")
+                .dropLocation("Mumbai")
+                .pickupLat(18.52).pickupLng(73.85)
+                .dropLat(19.07).dropLng(72.87)
+                .totalFare(0.0)
+                .build();
+    }
+
+    private static User user(String email, User.Role role) {
+        User user = new User();
+        user.setName(email);
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setContact("9999999999");
+        user.setAge("30");
+        user.setRole(role);
+        return user;
+    }
+}
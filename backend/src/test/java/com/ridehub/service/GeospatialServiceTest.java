@@ -0,0 +1,122 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeospatialServiceTest {
+
+    private final GeospatialService geospatialService = new GeospatialService();
+
+    @Test
+    void batchMatchingAgreesWithPerRideMatching() {
+        Random random = new Random(7);
+        List<Ride> rides = randomRides(random, 700);
+        RouteColumns columns = columnsOf(rides);
+
+        for (int q = 0; q < 400; q++) {
+            double[] query = q % 2 == 0 ? alongRide(random, rides.get(random.nextInt(rides.size()))) : randomQuery(random);
+            long[] matches = new long[columns.bitsetWords()];
+            int count = geospatialService.matchRoutes(query[0], query[1], query[2], query[3], columns, matches);
+
+            int expected = 0;
+            for (int i = 0; i < rides.size(); i++) {
+                boolean single = geospatialService.doPointsMatchRide(query[0], query[1], query[2], query[3], rides.get(i));
+                boolean batch = (matches[i >>> 6] & (1L << i)) != 0;
+                assertEquals(single, batch, "ride " + i + ", query " + q);
+                if (single) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, count);
+        }
+    }
+
+    @Test
+    void rangeMatchingOnlySetsBitsInsideTheRange() {
+        Random random = new Random(11);
+        List<Ride> rides = new ArrayList<>();
+        Ride ride = randomRides(random, 2).get(1);
+        for (int i = 0; i < 300; i++) {
+            rides.add(ride); // every route matches the same query
+        }
+        RouteColumns columns = columnsOf(rides);
+        double[] query = {
+                ride.getSourceLat() * 0.7 + ride.getDestLat() * 0.3, ride.getSourceLng() * 0.7 + ride.getDestLng() * 0.3,
+                ride.getSourceLat() * 0.3 + ride.getDestLat() * 0.7, ride.getSourceLng() * 0.3 + ride.getDestLng() * 0.7};
+
+        long[] matches = new long[columns.bitsetWords()];
+        int count = geospatialService.matchRoutes(query[0], query[1], query[2], query[3], columns, 64, 192, matches);
+
+        assertEquals(128, count);
+        assertEquals(0L, matches[0]);
+        assertEquals(-1L, matches[1]);
+        assertEquals(-1L, matches[2]);
+        assertEquals(0L, matches[3]);
+    }
+
+    @Test
+    void zeroLengthRouteMatchesNothingBeyondTheTolerance() {
+        RouteColumns columns = geospatialService.buildRouteColumns(
+                new double[] {12.97}, new double[] {77.59}, new double[] {12.97}, new double[] {77.59}, 1);
+        long[] matches = new long[1];
+        assertEquals(0, geospatialService.matchRoutes(13.5, 77.59, 14.0, 77.59, columns, matches));
+        assertTrue(Double.isNaN(geospatialService.routeDetourKm(13.5, 77.59, 14.0, 77.59,
+                geospatialService.buildRouteGeometry(12.97, 77.59, 12.97, 77.59))));
+    }
+
+    static List<Ride> randomRides(Random random, int count) {
+        List<Ride> rides = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double sourceLat = 8 + random.nextDouble() * 12;
+            double sourceLng = 74 + random.nextDouble() * 10;
+            double lengthDeg = i % 50 == 0 ? 0 : 0.1 + random.nextDouble() * 2;
+            double bearing = random.nextDouble() * 2 * Math.PI;
+            rides.add(Ride.builder()
+                    .sourceLat(sourceLat)
+                    .sourceLng(sourceLng)
+                    .destLat(sourceLat + lengthDeg * Math.cos(bearing))
+                    .destLng(sourceLng + lengthDeg * Math.sin(bearing))
+                    .build());
+        }
+        return rides;
+    }
+
+    private RouteColumns columnsOf(List<Ride> rides) {
+        int count = rides.size();
+        double[] startLat = new double[count];
+        double[] startLng = new double[count];
+        double[] endLat = new double[count];
+        double[] endLng = new double[count];
+        for (int i = 0; i < count; i++) {
+            startLat[i] = rides.get(i).getSourceLat();
+            startLng[i] = rides.get(i).getSourceLng();
+            endLat[i] = rides.get(i).getDestLat();
+            endLng[i] = rides.get(i).getDestLng();
+        }
+        return geospatialService.buildRouteColumns(startLat, startLng, endLat, endLng, count);
+    }
+
+    private static double[] alongRide(Random random, Ride ride) {
+        double from = random.nextDouble() * 0.5;
+        double to = from + random.nextDouble() * 0.8;
+        double jitter = 0.04;
+        return new double[] {
+                ride.getSourceLat() + (ride.getDestLat() - ride.getSourceLat()) * from + (random.nextDouble() - 0.5) * jitter,
+                ride.getSourceLng() + (ride.getDestLng() - ride.getSourceLng()) * from + (random.nextDouble() - 0.5) * jitter,
+                ride.getSourceLat() + (ride.getDestLat() - ride.getSourceLat()) * to + (random.nextDouble() - 0.5) * jitter,
+                ride.getSourceLng() + (ride.getDestLng() - ride.getSourceLng()) * to + (random.nextDouble() - 0.5) * jitter};
+    }
+
+    private static double[] randomQuery(Random random) {
+        double lat = 8 + random.nextDouble() * 12;
+        double lng = 74 + random.nextDouble() * 10;
+        return new double[] {lat, lng, lat + random.nextDouble() * 2 - 1, lng + random.nextDouble() * 2 - 1};
+    }
+}
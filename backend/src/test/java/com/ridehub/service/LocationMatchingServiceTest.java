@@ -0,0 +1,106 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocationMatchingServiceTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(5);
+
+    // Every ride shares trigrams with "Pune Station", only every 30th one actually matches it
+    private final List<Ride> rides = new ArrayList<>();
+    private final LocationMatchingService service = new LocationMatchingService(
+            scanningRepository(), null);
+
+    LocationMatchingServiceTest() {
+        for (int i = 0; i < 200; i++) {
+            rides.add(ride(i + 1L, i % 30 == 0 ? "Pune Station" : "Pune Camp", i));
+        }
+        ReflectionTestUtils.setField(service, "pageScanBudget", 2000);
+    }
+
+    @Test
+    void pagesFillAcrossScanBatchesWithoutEmptyPages() {
+        LocationMatchingService.LocationPage first = page(null, 3);
+        assertEquals(List.of(1L, 31L, 61L), ids(first));
+        assertTrue(first.hasMore());
+
+        LocationMatchingService.LocationPage second = page(first.resumeAfter(), 3);
+        assertEquals(List.of(91L, 121L, 151L), ids(second));
+        assertTrue(second.hasMore());
+
+        LocationMatchingService.LocationPage last = page(second.resumeAfter(), 3);
+        assertEquals(List.of(181L), ids(last));
+        assertFalse(last.hasMore());
+        assertNull(last.resumeAfter());
+    }
+
+    @Test
+    void lastMatchOnAFullPageEndsTheSearch() {
+        LocationMatchingService.LocationPage all = page(null, 7);
+        assertEquals(7, all.rides().size());
+        assertFalse(all.hasMore());
+    }
+
+    @Test
+    void spentBudgetGivesAShortPageResumingAfterTheLastScannedRow() {
+        ReflectionTestUtils.setField(service, "pageScanBudget", 40);
+
+        LocationMatchingService.LocationPage page = page(null, 5);
+        assertEquals(List.of(1L, 31L), ids(page));
+        assertTrue(page.hasMore());
+        assertEquals(50L, page.resumeAfter().getId());
+    }
+
+    private LocationMatchingService.LocationPage page(Ride after, int limit) {
+        return service.findAvailableRidesPage("Pune Station", "Mumbai", DATE,
+                after != null ? after.getRideTime() : LocalTime.MIN, after != null ? after.getId() : 0L, limit);
+    }
+
+    private static List<Long> ids(LocationMatchingService.LocationPage page) {
+        return page.rides().stream().map(Ride::getId).toList();
+    }
+
+    private RideRepository scanningRepository() {
+        return (RideRepository) Proxy.newProxyInstance(RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAvailableRidesByLocationGramsAfter")) {
+                        LocalTime afterTime = (LocalTime) args[5];
+                        Long afterId = (Long) args[6];
+                        Pageable pageable = (Pageable) args[7];
+                        return rides.stream()
+                                .filter(ride -> ride.getRideTime().isAfter(afterTime)
+                                        || ride.getRideTime().equals(afterTime) && ride.getId() > afterId)
+                                .limit(pageable.getPageSize())
+                                .toList();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Ride ride(Long id, String source, int minute) {
+        return Ride.builder()
+                .id(id)
+                .source(source)
+                .destination("Mumbai")
+                .rideDate(DATE)
+                .rideTime(LocalTime.of(6, 0).plusMinutes(minute))
+                .availableSeats(3)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+}
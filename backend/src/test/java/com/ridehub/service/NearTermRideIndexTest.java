@@ -0,0 +1,115 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NearTermRideIndexTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private NearTermRideIndex index;
+
+    @Test
+    void indexesTheLoadedRides() {
+        index = indexLoading(() -> List.of(ride(1L, "Pune", "Mumbai", 9), ride(2L, "Pune", "Nashik", 8)));
+        index.warmUp();
+
+        assertTrue(index.covers(TODAY));
+        assertEquals(List.of(1L), index.findRideIds("pune", "mumbai", TODAY));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void eventsArrivingDuringTheLoadAreReplayedAfterIt() {
+        index = indexLoading(() -> {
+            // Committed while the load runs: ride 1 is cancelled, ride 3 is created
+            Ride cancelled = ride(1L, "Pune", "Mumbai", 9);
+            cancelled.setStatus(Ride.RideStatus.CANCELLED);
+            index.onRideChanged(new RideChangedEvent(cancelled, RideChangedEvent.ChangeType.STATUS_CHANGED));
+            index.onRideChanged(new RideChangedEvent(ride(3L, "Pune", "Mumbai", 7), RideChangedEvent.ChangeType.CREATED));
+            return List.of(ride(1L, "Pune", "Mumbai", 9), ride(2L, "Pune", "Mumbai", 10));
+        });
+        index.warmUp();
+
+        assertEquals(List.of(3L, 2L), index.findRideIds("Pune", "Mumbai", TODAY));
+    }
+
+    @Test
+    void dayIsNotVisibleAndLockIsFreeWhileLoading() {
+        index = indexLoading(() -> {
+            boolean coveredFromAnotherThread = CompletableFuture.supplyAsync(() -> index.covers(TODAY))
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+            assertFalse(coveredFromAnotherThread);
+            return List.of(ride(1L, "Pune", "Mumbai", 9));
+        });
+        index.warmUp();
+
+        assertTrue(index.covers(TODAY));
+    }
+
+    @Test
+    void changesAfterTheLoadKeepDepartureOrderAndLeaveEarlierResultsAlone() {
+        index = indexLoading(() -> List.of(ride(1L, "Pune", "Mumbai", 9), ride(2L, "Pune", "Mumbai", 11)));
+        index.warmUp();
+        List<Long> before = index.findRideIds("Pune", "Mumbai", TODAY);
+
+        index.onRideChanged(new RideChangedEvent(ride(3L, "Pune", "Mumbai", 10), RideChangedEvent.ChangeType.CREATED));
+        Ride cancelled = ride(1L, "Pune", "Mumbai", 9);
+        cancelled.setStatus(Ride.RideStatus.CANCELLED);
+        index.onRideChanged(new RideChangedEvent(cancelled, RideChangedEvent.ChangeType.STATUS_CHANGED));
+
+        assertEquals(List.of(1L, 2L), before);
+        assertEquals(List.of(3L, 2L), index.findRideIds("Pune", "Mumbai", TODAY));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void searchesDoNotWaitForAWriter() {
+        index = indexLoading(() -> List.of(ride(1L, "Pune", "Mumbai", 9)));
+        index.warmUp();
+
+        synchronized (index) {
+            List<Long> found = CompletableFuture.supplyAsync(() -> index.findRideIds("Pune", "Mumbai", TODAY))
+                    .orTimeout(5, TimeUnit.SECONDS)
+                    .join();
+            assertEquals(List.of(1L), found);
+        }
+    }
+
+    private static NearTermRideIndex indexLoading(Supplier<List<Ride>> load) {
+        RideRepository repository = (RideRepository) Proxy.newProxyInstance(RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAvailableRidesOnDates")) {
+                        return load.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new NearTermRideIndex(repository);
+    }
+
+    private static Ride ride(Long id, String source, String destination, int hour) {
+        return Ride.builder()
+                .id(id)
+                .source(source)
+                .destination(destination)
+                .rideDate(TODAY)
+                .rideTime(LocalTime.of(hour, 0))
+                .availableSeats(3)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelRouteMatcherTest {
+
+    private final GeospatialService geospatialService = new GeospatialService();
+    private final ParallelRouteMatcher matcher = new ParallelRouteMatcher(geospatialService, 4, 0);
+
+    @AfterEach
+    void shutdown() {
+        matcher.shutdown();
+    }
+
+    @Test
+    void parallelMatchingSetsTheSameBitsAsSequential() {
+        Random random = new Random(13);
+        for (int size : new int[] {1, 63, 64, 65, 1000, 5000, 20011}) {
+            List<Ride> rides = GeospatialServiceTest.randomRides(random, size);
+            RouteColumns columns = geospatialService.buildRouteColumns(
+                    rides.stream().mapToDouble(Ride::getSourceLat).toArray(),
+                    rides.stream().mapToDouble(Ride::getSourceLng).toArray(),
+                    rides.stream().mapToDouble(Ride::getDestLat).toArray(),
+                    rides.stream().mapToDouble(Ride::getDestLng).toArray(),
+                    size);
+
+            for (int q = 0; q < 20; q++) {
+                Ride ride = rides.get(random.nextInt(size));
+                double pickupLat = ride.getSourceLat() + (random.nextDouble() - 0.5) * 0.5;
+                double pickupLng = ride.getSourceLng() + (random.nextDouble() - 0.5) * 0.5;
+                double dropLat = ride.getDestLat() + (random.nextDouble() - 0.5) * 0.5;
+                double dropLng = ride.getDestLng() + (random.nextDouble() - 0.5) * 0.5;
+
+                long[] expected = new long[columns.bitsetWords()];
+                long[] actual = new long[columns.bitsetWords()];
+                int expectedCount = geospatialService.matchRoutes(pickupLat, pickupLng, dropLat, dropLng, columns, expected);
+                int actualCount = matcher.matchRoutes(pickupLat, pickupLng, dropLat, dropLng, columns, actual);
+
+                assertEquals(expectedCount, actualCount, "size " + size);
+                assertArrayEquals(expected, actual);
+            }
+        }
+    }
+}
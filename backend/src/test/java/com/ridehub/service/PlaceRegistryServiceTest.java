@@ -0,0 +1,108 @@
+package com.ridehub.service;
+
+import com.ridehub.model.PlaceAlias;
+import com.ridehub.repository.PlaceAliasRepository;
+import com.ridehub.util.LocationGrams;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlaceRegistryServiceTest {
+
+    private final List<PlaceAlias> stored = new ArrayList<>();
+    private final PlaceRegistryService registry = new PlaceRegistryService(null, aliasRepository(stored));
+
+    @Test
+    void gramIndexFindsTheSamePlacesAsAScan() {
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            alias(i + 1, (long) random.nextInt(1500), randomName(random));
+        }
+        alias(5000, 9000L, "go");
+        registry.loadAliases();
+
+        for (int i = 0; i < 500; i++) {
+            String query = i % 5 == 0 ? randomName(random).substring(0, 2) : randomName(random);
+            Set<Long> expected = scan(query);
+            Set<Long> found = registry.findMatchingPlaceIds(query);
+            if (expected.size() > PlaceRegistryService.MAX_MATCHING_PLACES) {
+                assertNull(found, query);
+            } else {
+                assertEquals(expected, found, query);
+            }
+        }
+    }
+
+    @Test
+    void aliasesAddedLaterArePickedUpIncrementally() {
+        alias(1, 10L, "pune station");
+        registry.loadAliases();
+        assertEquals(Set.of(10L), registry.findMatchingPlaceIds("Pune"));
+
+        alias(2, 20L, "pune airport");
+        registry.reloadAliases();
+        assertEquals(Set.of(10L, 20L), registry.findMatchingPlaceIds("Pune"));
+        assertEquals(20L, registry.resolve(" Pune  Airport"));
+    }
+
+    @Test
+    void tooBroadANameReturnsNull() {
+        for (int i = 0; i <= PlaceRegistryService.MAX_MATCHING_PLACES; i++) {
+            alias(i + 1, (long) i, "sector " + i + " noida");
+        }
+        registry.loadAliases();
+        assertNull(registry.findMatchingPlaceIds("noida"));
+        assertEquals(Set.of(7L), registry.findMatchingPlaceIds("sector 7 noida"));
+    }
+
+    private Set<Long> scan(String query) {
+        String key = LocationGrams.normalize(query);
+        Set<Long> placeIds = new HashSet<>();
+        for (PlaceAlias alias : stored) {
+            if (alias.getAlias().contains(key) || key.contains(alias.getAlias())) {
+                placeIds.add(alias.getPlaceId());
+            }
+        }
+        return placeIds;
+    }
+
+    private void alias(long id, Long placeId, String name) {
+        String alias = LocationGrams.normalize(name);
+        if (stored.stream().noneMatch(existing -> existing.getAlias().equals(alias))) {
+            stored.add(PlaceAlias.builder().id(id).placeId(placeId).alias(alias).build());
+        }
+    }
+
+    private static String randomName(Random random) {
+        String[] parts = {"ma", "pur", "na", "gar", "hal", "li", "kot", "ra", "bad", "ganj", "wa", "di"};
+        StringBuilder name = new StringBuilder();
+        int length = 2 + random.nextInt(3);
+        for (int i = 0; i < length; i++) {
+            name.append(parts[random.nextInt(parts.length)]);
+        }
+        return random.nextInt(4) == 0 ? name + " road" : name.toString();
+    }
+
+    private static PlaceAliasRepository aliasRepository(List<PlaceAlias> stored) {
+        return (PlaceAliasRepository) Proxy.newProxyInstance(PlaceAliasRepository.class.getClassLoader(),
+                new Class<?>[]{PlaceAliasRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findByIdGreaterThanOrderByIdAsc" -> stored.stream()
+                            .filter(alias -> alias.getId() > (Long) args[0])
+                            .sorted((a, b) -> Long.compare(a.getId(), b.getId()))
+                            .toList();
+                    case "findByAlias" -> stored.stream()
+                            .filter(alias -> alias.getAlias().equals(args[0]))
+                            .findFirst();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -0,0 +1,107 @@
+package com.ridehub.service;
+
+import com.ridehub.model.RecurringRideTemplate;
+import com.ridehub.model.Ride;
+import com.ridehub.model.User;
+import com.ridehub.repository.RecurringRideTemplateRepository;
+import com.ridehub.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class RecurringRideServiceTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(3);
+
+    private final List<RecurringRideTemplate> templates = new ArrayList<>();
+    private final List<Long> materialized = new ArrayList<>();
+    private final RecurringRideService service = new RecurringRideService(
+            templateRepository(), rideRepository(), null, new GeospatialService(), null, null, null, null, null);
+
+    @Test
+    void templatesRunningOnTheDateAreOfferedAsUnsavedRides() {
+        templates.add(template(1L, "Pune", RecurringRideTemplate.dayBit(DATE.getDayOfWeek())));
+        templates.add(template(2L, "Pune", RecurringRideTemplate.dayBit(DATE.plusDays(1).getDayOfWeek())));
+
+        List<Ride> rides = service.findVirtualRides(DATE, ride -> true);
+
+        assertEquals(1, rides.size());
+        Ride ride = rides.get(0);
+        assertNull(ride.getId());
+        assertEquals(1L, ride.getTemplateId());
+        assertEquals(DATE, ride.getRideDate());
+        assertEquals(4, ride.getAvailableSeats());
+        assertEquals(Ride.RideStatus.AVAILABLE, ride.getStatus());
+    }
+
+    @Test
+    void datesThatAlreadyHaveARideAreServedByIt() {
+        int runsOnDate = RecurringRideTemplate.dayBit(DATE.getDayOfWeek());
+        templates.add(template(1L, "Pune", runsOnDate));
+        templates.add(template(2L, "Pune", runsOnDate));
+        materialized.add(1L);
+
+        assertEquals(List.of(2L), templateIds(service.findVirtualRides(DATE, ride -> true)));
+    }
+
+    @Test
+    void onlyRidesPassingTheSearchFilterAreReturned() {
+        int runsOnDate = RecurringRideTemplate.dayBit(DATE.getDayOfWeek());
+        templates.add(template(1L, "Pune", runsOnDate));
+        templates.add(template(2L, "Nashik", runsOnDate));
+
+        assertEquals(List.of(2L), templateIds(service.findVirtualRides(DATE, ride -> ride.getSource().equals("Nashik"))));
+    }
+
+    private static List<Long> templateIds(List<Ride> rides) {
+        return rides.stream().map(Ride::getTemplateId).toList();
+    }
+
+    private RecurringRideTemplateRepository templateRepository() {
+        return (RecurringRideTemplateRepository) Proxy.newProxyInstance(
+                RecurringRideTemplateRepository.class.getClassLoader(),
+                new Class<?>[]{RecurringRideTemplateRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findActiveOn")) {
+                        return templates;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private RideRepository rideRepository() {
+        return (RideRepository) Proxy.newProxyInstance(RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findMaterializedTemplateIds")) {
+                        return materialized;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static RecurringRideTemplate template(Long id, String source, int daysOfWeek) {
+        User driver = new User();
+        driver.setId(7L);
+        return RecurringRideTemplate.builder()
+                .id(id)
+                .driver(driver)
+                .source(source)
+                .destination("Mumbai")
+                .rideTime(LocalTime.of(9, 0))
+                .daysOfWeek(daysOfWeek)
+                .startDate(LocalDate.now())
+                .totalSeats(4)
+                .farePerKm(10.0)
+                .distance(150.0)
+                .sourceLat(18.52).sourceLng(73.85)
+                .destLat(19.07).destLng(72.87)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.ridehub.service;
+
+import com.ridehub.dto.RideResponse;
+import com.ridehub.model.Ride;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.annotation.Order;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSearchCacheTest {
+
+    private static final LocalDate DATE = LocalDate.of(2030, 1, 15);
+
+    private final RideSearchCache cache = new RideSearchCache(100, 60);
+
+    @Test
+    void resultComputedBeforeARideChangeIsNotCached() {
+        RideSearchCache.SearchKey key = RideSearchCache.searchKey("Pune", "Mumbai", DATE);
+        long generation = cache.generation();
+        cache.onRideChanged(new RideChangedEvent(ride(1L, "Pune", "Mumbai"), RideChangedEvent.ChangeType.CREATED));
+
+        cache.put(key, List.of(response(1L)), generation);
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void changeToACachedRideDropsTheEntry() {
+        RideSearchCache.SearchKey key = RideSearchCache.searchKey("Pune", "Mumbai", DATE);
+        cache.put(key, List.of(response(1L)), cache.generation());
+        assertNotNull(cache.get(key));
+
+        Ride ride = ride(1L, "Pune", "Mumbai");
+        ride.setStatus(Ride.RideStatus.CANCELLED);
+        cache.onRideChanged(new RideChangedEvent(ride, RideChangedEvent.ChangeType.STATUS_CHANGED));
+        assertNull(cache.get(key));
+    }
+
+    @Test
+    void newRideOnlyDropsEntriesItCouldAppearIn() {
+        RideSearchCache.SearchKey pune = RideSearchCache.searchKey("Pune", "Mumbai", DATE);
+        RideSearchCache.SearchKey goa = RideSearchCache.searchKey("Goa", "Mumbai", DATE);
+        cache.put(pune, List.of(response(1L)), cache.generation());
+        cache.put(goa, List.of(response(2L)), cache.generation());
+
+        cache.onRideChanged(new RideChangedEvent(ride(3L, "Pune Station", "Mumbai"), RideChangedEvent.ChangeType.CREATED));
+        assertNull(cache.get(pune));
+        assertNotNull(cache.get(goa));
+    }
+
+    @Test
+    void resultFromAStaleSnapshotIsServedOnlyUntilTheNextSwap() {
+        RideSearchCache.SearchKey stale = RideSearchCache.smartMatchKey("Pune", "Mumbai", DATE, 18.5, 73.8, 19.0, 72.9);
+        RideSearchCache.SearchKey clean = RideSearchCache.searchKey("Pune", "Mumbai", DATE);
+        cache.snapshotSwapped(4);
+        cache.put(stale, List.of(response(1L)), cache.generation(), 4);
+        cache.put(clean, List.of(response(1L)), cache.generation(), RideSearchCache.NO_EPOCH);
+        assertNotNull(cache.get(stale));
+
+        cache.snapshotSwapped(5);
+        assertNull(cache.get(stale));
+        assertNotNull(cache.get(clean));
+
+        cache.put(stale, List.of(response(1L)), cache.generation(), 4);
+        assertNull(cache.get(stale));
+    }
+
+    @Test
+    void cacheInvalidatesAfterEveryDerivedIndex() throws NoSuchMethodException {
+        int cacheOrder = listenerOrder(RideSearchCache.class);
+        for (Class<?> index : List.of(RideSpatialIndex.class, NearTermRideIndex.class,
+                GeospatialService.class, BookableRideSnapshot.class)) {
+            assertTrue(listenerOrder(index) < cacheOrder, index.getSimpleName());
+        }
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedFirst() {
+        RideSearchCache small = new RideSearchCache(2, 60);
+        RideSearchCache.SearchKey a = RideSearchCache.searchKey("A city", "B city", DATE);
+        RideSearchCache.SearchKey b = RideSearchCache.searchKey("C city", "D city", DATE);
+        RideSearchCache.SearchKey c = RideSearchCache.searchKey("E city", "F city", DATE);
+        small.put(a, List.of(), small.generation());
+        small.put(b, List.of(), small.generation());
+        small.get(a);
+        small.put(c, List.of(), small.generation());
+
+        assertNotNull(small.get(a));
+        assertNull(small.get(b));
+        assertEquals(1L, small.getStats().get("evictions"));
+    }
+
+    private static int listenerOrder(Class<?> type) throws NoSuchMethodException {
+        return type.getMethod("onRideChanged", RideChangedEvent.class).getAnnotation(Order.class).value();
+    }
+
+    private static Ride ride(Long id, String source, String destination) {
+        return Ride.builder()
+                .id(id)
+                .source(source)
+                .destination(destination)
+                .rideDate(DATE)
+                .availableSeats(3)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+
+    private static RideResponse response(Long id) {
+        return RideResponse.builder().id(id).build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.repository.RideRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RideSpatialIndexTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(1);
+
+    private RideSpatialIndex index;
+
+    @Test
+    void indexesTheLoadedRides() {
+        index = indexLoading(() -> List.of(puneToMumbai(1L), puneToMumbai(2L)));
+        index.warmUp();
+
+        assertTrue(index.isReady());
+        assertEquals(Set.of(1L, 2L), candidates());
+    }
+
+    @Test
+    void eventsArrivingDuringTheLoadAreReplayedAfterIt() {
+        index = indexLoading(() -> {
+            // Committed while the load runs: ride 1 is cancelled, ride 3 is created
+            Ride cancelled = puneToMumbai(1L);
+            cancelled.setStatus(Ride.RideStatus.CANCELLED);
+            index.onRideChanged(new RideChangedEvent(cancelled, RideChangedEvent.ChangeType.STATUS_CHANGED));
+            index.onRideChanged(new RideChangedEvent(puneToMumbai(3L), RideChangedEvent.ChangeType.CREATED));
+            return List.of(puneToMumbai(1L), puneToMumbai(2L));
+        });
+        index.warmUp();
+
+        assertEquals(Set.of(2L, 3L), candidates());
+    }
+
+    @Test
+    void eventsSeenBeforeAFailedLoadAreStillApplied() {
+        index = indexLoading(() -> {
+            index.onRideChanged(new RideChangedEvent(puneToMumbai(3L), RideChangedEvent.ChangeType.CREATED));
+            throw new IllegalStateException("database down");
+        });
+        assertThrows(IllegalStateException.class, index::warmUp);
+
+        assertEquals(Set.of(3L), candidates());
+        index.onRideChanged(new RideChangedEvent(puneToMumbai(4L), RideChangedEvent.ChangeType.CREATED));
+        assertEquals(Set.of(3L, 4L), candidates());
+    }
+
+    private Set<Long> candidates() {
+        return index.findCandidateIds(DATE, 18.60, 73.70, 18.95, 73.10);
+    }
+
+    private static RideSpatialIndex indexLoading(Supplier<List<Ride>> load) {
+        RideRepository repository = (RideRepository) Proxy.newProxyInstance(RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findAllAvailableRides")) {
+                        return load.get();
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new RideSpatialIndex(repository, new GeospatialService());
+    }
+
+    private static Ride puneToMumbai(Long id) {
+        return Ride.builder()
+                .id(id)
+                .source("Pune")
+                .destination("Mumbai")
+                .sourceLat(18.52).sourceLng(73.85)
+                .destLat(19.07).destLng(72.87)
+                .rideDate(DATE)
+                .rideTime(LocalTime.of(9, 0))
+                .availableSeats(3)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+}
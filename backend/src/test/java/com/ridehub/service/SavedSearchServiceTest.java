@@ -0,0 +1,124 @@
+package com.ridehub.service;
+
+import com.ridehub.model.Ride;
+import com.ridehub.model.SavedSearch;
+import com.ridehub.model.User;
+import com.ridehub.repository.SavedSearchRepository;
+import com.ridehub.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SavedSearchServiceTest {
+
+    private static final LocalDate DATE = LocalDate.now().plusDays(3);
+
+    private final List<SavedSearch> stored = new ArrayList<>();
+    private final List<Long> alertedSearchIds = new ArrayList<>();
+
+    private final SavedSearchService service = new SavedSearchService(
+            repository(SavedSearchRepository.class, "findBySearchDateGreaterThanEqual", args -> stored),
+            repository(UserRepository.class, "findById", args -> Optional.of(user((Long) args[0]))),
+            new GeospatialService(),
+            new NotificationService(null) {
+                @Override
+                public void sendSavedSearchMatchNotification(User passenger, Ride ride, Long savedSearchId) {
+                    alertedSearchIds.add(savedSearchId);
+                }
+            });
+
+    @Test
+    void searchAlongTheRouteIsAlerted() {
+        stored.add(search(1L, 10L, "Somewhere", "Elsewhere", 18.685, 73.556, 18.905, 73.164));
+        service.warmUp();
+
+        service.onRideChanged(created(puneToMumbai()));
+        assertEquals(List.of(1L), alertedSearchIds);
+    }
+
+    @Test
+    void searchMatchingOnlyByPlaceNamesIsAlerted() {
+        stored.add(search(1L, 10L, "pune", "mumbai central", 28.6, 77.2, 28.7, 77.1));
+        service.warmUp();
+
+        service.onRideChanged(created(puneToMumbai()));
+        assertEquals(List.of(1L), alertedSearchIds);
+    }
+
+    @Test
+    void unrelatedAndOwnSearchesAreNotAlerted() {
+        stored.add(search(1L, 10L, "Delhi", "Agra", 28.6, 77.2, 27.2, 78.0));
+        stored.add(search(2L, 99L, "Pune", "Mumbai", 18.52, 73.85, 19.07, 72.87));
+        service.warmUp();
+
+        service.onRideChanged(created(puneToMumbai()));
+        assertEquals(List.of(), alertedSearchIds);
+    }
+
+    @Test
+    void eachPassengerIsAlertedOncePerRide() {
+        stored.add(search(1L, 10L, "Pune", "Mumbai", 18.52, 73.85, 19.07, 72.87));
+        stored.add(search(2L, 10L, "Pune Station", "Mumbai", 18.53, 73.87, 19.07, 72.87));
+        service.warmUp();
+
+        service.onRideChanged(created(puneToMumbai()));
+        assertEquals(1, alertedSearchIds.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T repository(Class<T> type, String method, Function<Object[], Object> answer) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, m, args) -> {
+            if (m.getName().equals(method)) {
+                return answer.apply(args);
+            }
+            throw new UnsupportedOperationException(m.getName());
+        });
+    }
+
+    private static RideChangedEvent created(Ride ride) {
+        return new RideChangedEvent(ride, RideChangedEvent.ChangeType.CREATED);
+    }
+
+    private static Ride puneToMumbai() {
+        return Ride.builder()
+                .id(500L)
+                .driver(user(99L))
+                .source("Pune Station")
+                .destination("Mumbai Central")
+                .sourceLat(18.52).sourceLng(73.85)
+                .destLat(19.07).destLng(72.87)
+                .rideDate(DATE)
+                .rideTime(LocalTime.of(9, 0))
+                .availableSeats(3)
+                .status(Ride.RideStatus.AVAILABLE)
+                .build();
+    }
+
+    private static SavedSearch search(Long id, Long passengerId, String source, String destination,
+                                      double pickupLat, double pickupLng, double dropLat, double dropLng) {
+        return SavedSearch.builder()
+                .id(id)
+                .passenger(user(passengerId))
+                .source(source)
+                .destination(destination)
+                .searchDate(DATE)
+                .pickupLat(pickupLat).pickupLng(pickupLng)
+                .dropLat(dropLat).dropLng(dropLng)
+                .build();
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail("user" + id + "@example.com");
+        return user;
+    }
+}
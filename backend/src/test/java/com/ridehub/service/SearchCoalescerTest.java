@@ -0,0 +1,119 @@
+package com.ridehub.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchCoalescerTest {
+
+    private static final int CALLERS = 8;
+
+    private final SearchCoalescer coalescer = new SearchCoalescer();
+    private final ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void concurrentIdenticalQueriesShareOneExecution() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Object key = SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-15");
+
+        List<CompletableFuture<List<Long>>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> coalescer.execute(key, () -> {
+                executions.incrementAndGet();
+                await(release);
+                return List.of(1L, 2L);
+            }), pool));
+        }
+        awaitInFlightWaiters(CALLERS - 1);
+        release.countDown();
+
+        List<Long> first = callers.get(0).get(5, TimeUnit.SECONDS);
+        for (CompletableFuture<List<Long>> caller : callers) {
+            assertSame(first, caller.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(0, coalescer.getStats().get("inFlight"));
+    }
+
+    @Test
+    void waitingCallersGetTheLeadersException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Object key = SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-15");
+
+        List<CompletableFuture<Object>> callers = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            callers.add(CompletableFuture.supplyAsync(() -> coalescer.execute(key, () -> {
+                await(release);
+                throw new IllegalStateException("search failed");
+            }), pool));
+        }
+        awaitInFlightWaiters(CALLERS - 1);
+        release.countDown();
+
+        for (CompletableFuture<Object> caller : callers) {
+            Exception e = assertThrows(Exception.class, () -> caller.get(5, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("search failed", e.getCause().getMessage());
+        }
+        assertEquals(1L, coalescer.getStats().get("failures"));
+
+        // The failed flight is gone, the next caller runs the query again
+        assertEquals("ok", coalescer.execute(key, () -> "ok"));
+    }
+
+    @Test
+    void differentQueriesRunSeparately() {
+        AtomicInteger executions = new AtomicInteger();
+        coalescer.execute(SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-15"), executions::incrementAndGet);
+        coalescer.execute(SearchCoalescer.searchKey("Pune", "Nashik", "2030-01-15"), executions::incrementAndGet);
+        coalescer.execute(SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-16"), executions::incrementAndGet);
+
+        assertEquals(3, executions.get());
+        assertEquals(0L, coalescer.getStats().get("coalesced"));
+    }
+
+    @Test
+    void keysAreNormalized() {
+        assertEquals(SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-15"),
+                SearchCoalescer.searchKey("  pune ", "MUMBAI", "2030-01-15"));
+        assertNotEquals(SearchCoalescer.searchKey("Pune", "Mumbai", "2030-01-15"),
+                SearchCoalescer.smartMatchKey("Pune", "Mumbai", "2030-01-15", 18.52, 73.85, 19.07, 72.87, null, null));
+    }
+
+    private void awaitInFlightWaiters(int waiters) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while ((long) coalescer.getStats().get("coalesced") < waiters) {
+            assertTrue(System.nanoTime() < deadline, "callers never joined the running query");
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
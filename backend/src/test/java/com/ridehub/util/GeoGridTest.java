@@ -0,0 +1,76 @@
+package com.ridehub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoGridTest {
+
+    private static final double CELL = 0.05;
+
+    @Test
+    void cellKeysKeepNegativeRowsAndColumnsApart() {
+        assertNotEquals(GeoGrid.cellKey(-1, 0), GeoGrid.cellKey(0, -1));
+        assertNotEquals(GeoGrid.cellKey(1, -1), GeoGrid.cellKey(0, -1));
+        assertNotEquals(GeoGrid.cellKey(-1, -1), GeoGrid.cellKey(-2, -1));
+    }
+
+    @Test
+    void cellsFloorTowardsNegativeInfinity() {
+        assertEquals(-1, GeoGrid.row(-0.01, CELL));
+        assertEquals(0, GeoGrid.row(0.01, CELL));
+        assertEquals(GeoGrid.cellOf(12.97, 77.59, CELL), GeoGrid.cellOf(12.96, 77.56, CELL));
+        assertNotEquals(GeoGrid.cellOf(12.97, 77.59, CELL), GeoGrid.cellOf(13.01, 77.59, CELL));
+    }
+
+    @Test
+    void lngDegreesWidenAwayFromTheEquator() {
+        assertEquals(1.0, GeoGrid.kmToLngDegrees(GeoGrid.KM_PER_DEGREE, 0), 1e-9);
+        assertEquals(2.0, GeoGrid.kmToLngDegrees(GeoGrid.KM_PER_DEGREE, 60), 1e-9);
+        assertEquals(GeoGrid.kmToLngDegrees(10, 45), GeoGrid.kmToLngDegrees(10, -45), 1e-12);
+    }
+
+    @Test
+    void corridorCoversEveryPointWithinPaddingOfTheSegment() {
+        Random random = new Random(42);
+        double paddingKm = 5.0;
+        for (int route = 0; route < 200; route++) {
+            double startLat = 8 + random.nextDouble() * 20;
+            double startLng = 70 + random.nextDouble() * 15;
+            double endLat = startLat + (random.nextDouble() - 0.5) * 3;
+            double endLng = startLng + (random.nextDouble() - 0.5) * 3;
+            Set<Long> cells = GeoGrid.corridorCells(startLat, startLng, endLat, endLng, paddingKm, CELL);
+
+            for (int i = 0; i < 50; i++) {
+                double t = random.nextDouble();
+                double lat = startLat + (endLat - startLat) * t;
+                double lng = startLng + (endLng - startLng) * t;
+                // Any offset whose north and east parts are both within the padding
+                lat += (random.nextDouble() * 2 - 1) * paddingKm / GeoGrid.KM_PER_DEGREE;
+                lng += (random.nextDouble() * 2 - 1) * GeoGrid.kmToLngDegrees(paddingKm, lat);
+                assertTrue(cells.contains(GeoGrid.cellOf(lat, lng, CELL)),
+                        "point " + lat + "," + lng + " outside the corridor of route " + route);
+            }
+        }
+    }
+
+    @Test
+    void zeroLengthSegmentStillCoversTheSurroundingPadding() {
+        Set<Long> cells = GeoGrid.corridorCells(12.97, 77.59, 12.97, 77.59, 5.0, CELL);
+        assertTrue(cells.contains(GeoGrid.cellOf(12.97, 77.59, CELL)));
+        assertTrue(cells.contains(GeoGrid.cellOf(12.97 + 4.9 / GeoGrid.KM_PER_DEGREE, 77.59, CELL)));
+        assertTrue(cells.contains(GeoGrid.cellOf(12.97, 77.59 - GeoGrid.kmToLngDegrees(4.9, 12.97), CELL)));
+    }
+
+    @Test
+    void oversizedCorridorIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> GeoGrid.corridorCells(0, -170, 0, 170, 5.0, 0.001));
+    }
+}
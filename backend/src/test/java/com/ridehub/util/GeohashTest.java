@@ -0,0 +1,79 @@
+package com.ridehub.util;
+
+import com.ridehub.service.GeospatialService;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeohashTest {
+
+    private final GeospatialService geospatialService = new GeospatialService();
+
+    @Test
+    void encodesKnownPoints() {
+        assertEquals("u4pruydqq", Geohash.encode(57.64911, 10.40744, 9));
+        assertEquals("tdr1", Geohash.encode(12.97, 77.59, 4));
+        assertEquals("7zzzzzzzz", Geohash.encode(-0.000001, -0.000001, 9));
+        assertEquals("s00000000", Geohash.encode(0, 0, 9));
+    }
+
+    @Test
+    void coverPrefixesContainEveryPointWithinTheRadius() {
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            double lat = -80 + random.nextDouble() * 160;
+            double lng = -180 + random.nextDouble() * 360;
+            double radiusKm = 0.05 + random.nextDouble() * 50;
+            Set<String> prefixes = Geohash.coverPrefixes(lat, lng, radiusKm);
+            assertTrue(prefixes.size() <= 9);
+
+            double[] point = pointWithin(random, lat, lng, radiusKm);
+            assertTrue(geospatialService.calculateDistance(lat, lng, point[0], point[1]) <= radiusKm);
+            String hash = Geohash.encode(point[0], point[1], Geohash.MAX_PRECISION);
+            assertTrue(prefixes.stream().anyMatch(hash::startsWith),
+                    "radius " + radiusKm + " around " + lat + "," + lng + " misses " + hash);
+        }
+    }
+
+    @Test
+    void coverWrapsAroundTheAntimeridian() {
+        Set<String> prefixes = Geohash.coverPrefixes(10, 179.999, 5);
+        String east = Geohash.encode(10, -179.99, Geohash.MAX_PRECISION);
+        assertTrue(prefixes.stream().anyMatch(east::startsWith));
+    }
+
+    @Test
+    void prefixEndBoundsExactlyTheHashesWithThePrefix() {
+        assertEquals("u5", Geohash.prefixEnd("u4"));
+        assertEquals("v", Geohash.prefixEnd("uz"));
+        assertEquals("zzzzzzzzzz", Geohash.prefixEnd("zz"));
+
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            String hash = Geohash.encode(-90 + random.nextDouble() * 180, -180 + random.nextDouble() * 360,
+                    Geohash.MAX_PRECISION);
+            String prefix = hash.substring(0, 1 + random.nextInt(Geohash.MAX_PRECISION - 1));
+            assertTrue(hash.compareTo(prefix) >= 0);
+            assertTrue(hash.compareTo(Geohash.prefixEnd(prefix)) < 0);
+        }
+        assertTrue("u4zzzzzzz".compareTo(Geohash.prefixEnd("u4")) < 0);
+        assertTrue("u50000000".compareTo(Geohash.prefixEnd("u4")) >= 0);
+    }
+
+    private static double[] pointWithin(Random random, double lat, double lng, double radiusKm) {
+        double distanceKm = radiusKm * 0.999 * Math.sqrt(random.nextDouble());
+        double bearing = random.nextDouble() * 2 * Math.PI;
+        double pointLat = lat + distanceKm * Math.cos(bearing) / GeoGrid.KM_PER_DEGREE;
+        double pointLng = lng + GeoGrid.kmToLngDegrees(distanceKm * Math.sin(bearing), pointLat) * 0.99;
+        if (pointLng >= 180) {
+            pointLng -= 360;
+        } else if (pointLng < -180) {
+            pointLng += 360;
+        }
+        return new double[] {pointLat, pointLng};
+    }
+}
@@ -0,0 +1,66 @@
+package com.ridehub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocationGramsTest {
+
+    @Test
+    void normalizeLowercasesTrimsAndMapsNullToEmpty() {
+        assertEquals("", LocationGrams.normalize(null));
+        assertEquals("mg road", LocationGrams.normalize("MG Road"));
+        assertEquals("mg road", LocationGrams.normalize("  MG \t Road "));
+    }
+
+    @Test
+    void storedGramsAreTheDistinctTrigramsInOrder() {
+        assertEquals(List.of("ban", "ana", "nan"), List.copyOf(LocationGrams.storedGrams("banana")));
+        assertEquals(Set.of("ab"), LocationGrams.storedGrams("ab"));
+        assertTrue(LocationGrams.storedGrams("").isEmpty());
+    }
+
+    @Test
+    void queryGramsAddEveryShorterSubstring() {
+        Set<String> grams = LocationGrams.queryGrams("abcd");
+        assertTrue(grams.containsAll(Set.of("abc", "bcd", "a", "b", "c", "d", "ab", "bc", "cd")));
+        assertEquals(9, grams.size());
+    }
+
+    @Test
+    void trigramCountIsZeroBelowATrigram() {
+        assertEquals(0, LocationGrams.trigramCount("ab"));
+        assertEquals(3, LocationGrams.trigramCount("banana"));
+        assertFalse(LocationGrams.isIndexable("ab"));
+        assertTrue(LocationGrams.isIndexable("abc"));
+    }
+
+    @Test
+    void eitherContainsMatchesInBothDirections() {
+        assertTrue(LocationGrams.eitherContains("Koramangala, Bengaluru", "koramangala"));
+        assertTrue(LocationGrams.eitherContains("Pune", "pune station"));
+        assertFalse(LocationGrams.eitherContains("Mysuru", "bengaluru"));
+    }
+
+    @Test
+    void gramConditionHoldsWheneverEitherNameContainsTheOther() {
+        String[] names = {"pune", "pune station", "whitefield", "white", "ab", "hsr layout", "layout"};
+        for (String ride : names) {
+            for (String query : names) {
+                if (!LocationGrams.eitherContains(ride, query) || !LocationGrams.isIndexable(query)) {
+                    continue;
+                }
+                Set<String> stored = LocationGrams.storedGrams(ride);
+                Set<String> lookedUp = LocationGrams.queryGrams(query);
+                long hits = stored.stream().filter(lookedUp::contains).count();
+                assertTrue(hits == stored.size() || hits >= LocationGrams.trigramCount(query),
+                        ride + " / " + query);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.ridehub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PolylineCodecTest {
+
+    @Test
+    void roundTripsToTheNearestFiveDecimals() {
+        double[] vertices = {12.971598, 77.594566, 12.935242, 77.624481, -33.868820, 151.209290, 0, -180, 90, 180};
+        double[] decoded = PolylineCodec.decode(PolylineCodec.encode(vertices));
+        assertArrayEquals(vertices, decoded, 0.5e-5);
+    }
+
+    @Test
+    void randomRoutesRoundTrip() {
+        Random random = new Random(5);
+        for (int route = 0; route < 100; route++) {
+            double[] vertices = new double[2 * (2 + random.nextInt(100))];
+            double lat = random.nextDouble() * 160 - 80;
+            double lng = random.nextDouble() * 340 - 170;
+            for (int i = 0; i < vertices.length; i += 2) {
+                lat += (random.nextDouble() - 0.5) * 0.1;
+                lng += (random.nextDouble() - 0.5) * 0.1;
+                vertices[i] = lat;
+                vertices[i + 1] = lng;
+            }
+            assertArrayEquals(vertices, PolylineCodec.decode(PolylineCodec.encode(vertices)), 0.5e-5);
+        }
+    }
+
+    @Test
+    void nearbyVerticesTakeFewBytes() {
+        double[] vertices = new double[2 * 200];
+        for (int i = 0; i < vertices.length; i += 2) {
+            vertices[i] = 12.9 + i * 0.0005;
+            vertices[i + 1] = 77.5 + i * 0.0003;
+        }
+        byte[] encoded = PolylineCodec.encode(vertices);
+        assertTrue(encoded.length <= 2 * vertices.length + 10, "encoded " + encoded.length + " bytes");
+    }
+
+    @Test
+    void emptyPolylineHasNoVertices() {
+        assertEquals(0, PolylineCodec.decode(PolylineCodec.encode(new double[0])).length);
+    }
+
+    @Test
+    void truncatedInputIsRejected() {
+        byte[] encoded = PolylineCodec.encode(new double[] {12.97, 77.59, 13.01, 77.61});
+        byte[] truncated = Arrays.copyOf(encoded, encoded.length - 1);
+        assertThrows(IllegalArgumentException.class, () -> PolylineCodec.decode(truncated));
+    }
+}
@@ -0,0 +1,46 @@
+package com.ridehub.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RideCursorTest {
+
+    @Test
+    void encodeDecodeRoundTrips() {
+        RideCursor cursor = new RideCursor(LocalDate.of(2030, 3, 9), LocalTime.of(7, 45, 30), 123456789L);
+        assertEquals(cursor, RideCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tokenIsUrlSafeWithoutPadding() {
+        String token = new RideCursor(LocalDate.of(2030, 12, 31), LocalTime.of(23, 59), Long.MAX_VALUE).encode();
+        assertFalse(token.contains("+") || token.contains("/") || token.contains("="));
+    }
+
+    @Test
+    void startOfSortsBeforeEveryRideOnTheDate() {
+        RideCursor start = RideCursor.startOf(LocalDate.of(2030, 1, 1));
+        assertEquals(LocalTime.MIN, start.rideTime());
+        assertEquals(0L, start.id());
+    }
+
+    @Test
+    void malformedTokensAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> RideCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> RideCursor.decode(encode("2030-01-01|07:00")));
+        assertThrows(IllegalArgumentException.class, () -> RideCursor.decode(encode("2030-13-01|07:00|1")));
+        assertThrows(IllegalArgumentException.class, () -> RideCursor.decode(encode("2030-01-01|07:00|x")));
+    }
+
+    private static String encode(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}